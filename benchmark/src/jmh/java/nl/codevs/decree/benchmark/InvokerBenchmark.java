@@ -0,0 +1,142 @@
+package nl.codevs.decree.benchmark;
+
+import nl.codevs.decree.virtual.DecreeInvoker;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares running a command method through a {@link DecreeInvoker} to {@link Method#invoke(Object, Object...)} (how commands used to run),
+ * with a direct call as reference. Commands with 0, 3 and 8 parameters are measured, mixing object and primitive types.<br>
+ * The reflection benchmarks box the primitive arguments into a new varargs array on every call, as commands used to.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class InvokerBenchmark {
+
+    /**
+     * Stand-in for a category with commands taking 0, 3 and 8 parameters
+     */
+    public static class Category {
+        private long total;
+
+        public void none() {
+            total++;
+        }
+
+        public void three(String name, int amount, double factor) {
+            total += name.length() + amount + (long) factor;
+        }
+
+        public void eight(String name, int amount, double factor, boolean toggle, long seed, Object target, float scale, short count) {
+            total += name.length() + amount + (long) factor + (toggle ? 1 : 0) + seed + target.hashCode() + (long) scale + count;
+        }
+    }
+
+    private Category category;
+    private final Object target = new Object();
+
+    private Method none;
+    private DecreeInvoker noneInvoker;
+    private Object[] noneBoxed;
+    private Object[] noneParams;
+    private long[] nonePrimitives;
+
+    private Method three;
+    private DecreeInvoker threeInvoker;
+    private Object[] threeParams;
+    private long[] threePrimitives;
+
+    private Method eight;
+    private DecreeInvoker eightInvoker;
+    private Object[] eightParams;
+    private long[] eightPrimitives;
+
+    @Setup
+    public void setup() throws NoSuchMethodException {
+        category = new Category();
+
+        none = Category.class.getMethod("none");
+        none.setAccessible(true);
+        noneInvoker = DecreeInvoker.of(category, none);
+        noneBoxed = new Object[0];
+        noneParams = new Object[0];
+        nonePrimitives = new long[0];
+
+        three = Category.class.getMethod("three", String.class, int.class, double.class);
+        three.setAccessible(true);
+        threeInvoker = DecreeInvoker.of(category, three);
+        threeParams = new Object[]{"name", null, null};
+        threePrimitives = new long[]{0, 3, Double.doubleToRawLongBits(1.5)};
+
+        eight = Category.class.getMethod("eight", String.class, int.class, double.class, boolean.class, long.class, Object.class, float.class, short.class);
+        eight.setAccessible(true);
+        eightInvoker = DecreeInvoker.of(category, eight);
+        eightParams = new Object[]{"name", null, null, true, null, target, null, null};
+        eightPrimitives = new long[]{0, 3, Double.doubleToRawLongBits(1.5), 0, 42, 0, Double.doubleToRawLongBits(2.5), 7};
+    }
+
+    @Benchmark
+    public long directNone() {
+        category.none();
+        return category.total;
+    }
+
+    @Benchmark
+    public long invokerNone() throws Throwable {
+        noneInvoker.invoke(noneParams, nonePrimitives);
+        return category.total;
+    }
+
+    @Benchmark
+    public long reflectionNone() throws Exception {
+        none.invoke(category, noneBoxed);
+        return category.total;
+    }
+
+    @Benchmark
+    public long directThree() {
+        category.three((String) threeParams[0], (int) threePrimitives[1], Double.longBitsToDouble(threePrimitives[2]));
+        return category.total;
+    }
+
+    @Benchmark
+    public long invokerThree() throws Throwable {
+        threeInvoker.invoke(threeParams, threePrimitives);
+        return category.total;
+    }
+
+    @Benchmark
+    public long reflectionThree() throws Exception {
+        three.invoke(category, threeParams[0], (int) threePrimitives[1], Double.longBitsToDouble(threePrimitives[2]));
+        return category.total;
+    }
+
+    @Benchmark
+    public long directEight() {
+        category.eight((String) eightParams[0], (int) eightPrimitives[1], Double.longBitsToDouble(eightPrimitives[2]), (boolean) eightParams[3],
+                eightPrimitives[4], eightParams[5], (float) Double.longBitsToDouble(eightPrimitives[6]), (short) eightPrimitives[7]);
+        return category.total;
+    }
+
+    @Benchmark
+    public long invokerEight() throws Throwable {
+        eightInvoker.invoke(eightParams, eightPrimitives);
+        return category.total;
+    }
+
+    @Benchmark
+    public long reflectionEight() throws Exception {
+        eight.invoke(category, eightParams[0], (int) eightPrimitives[1], Double.longBitsToDouble(eightPrimitives[2]), eightParams[3],
+                eightPrimitives[4], eightParams[5], (float) Double.longBitsToDouble(eightPrimitives[6]), (short) eightPrimitives[7]);
+        return category.total;
+    }
+}
@@ -0,0 +1,446 @@
+package nl.codevs.decree.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Generates a {@code <ClassName>_DecreeRegistration} for every {@code @Decree} annotated category (see {@link #registrationName(String, String)}).<br>
+ * The registration creates the commands and subcategories of the category with direct calls, so the command tree can be built without reflection.<br>
+ * Categories that cannot be expressed in generated code (like private subcategory fields, or commands with parameters without {@code @Param})
+ * are skipped with a note, and are registered with reflection instead.<br>
+ * Annotations are looked up by name, so this processor does not depend on Decree itself.
+ */
+@SupportedAnnotationTypes(DecreeProcessor.DECREE)
+public class DecreeProcessor extends AbstractProcessor {
+    static final String DECREE = "nl.codevs.decree.virtual.Decree";
+    static final String PARAM = "nl.codevs.decree.virtual.Param";
+    static final String EXECUTOR = "nl.codevs.decree.decrees.DecreeCommandExecutor";
+    static final String SUFFIX = "_DecreeRegistration";
+
+    /**
+     * Names of registrations generated in earlier rounds
+     */
+    private final Set<String> generated = new HashSet<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment round) {
+        TypeElement decree = processingEnv.getElementUtils().getTypeElement(DECREE);
+        if (decree == null) {
+            return false;
+        }
+
+        for (TypeElement category : ElementFilter.typesIn(round.getElementsAnnotatedWith(decree))) {
+            if (category.getKind() != ElementKind.CLASS) {
+                continue;
+            }
+
+            String pkg = processingEnv.getElementUtils().getPackageOf(category).getQualifiedName().toString();
+            String name = registrationName(processingEnv.getElementUtils().getBinaryName(category).toString(), pkg);
+            if (!generated.add(name)) {
+                continue;
+            }
+
+            String reason = unsupported(category);
+            if (reason != null) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE, "Not generating a registration for " + category.getQualifiedName() + " because it " + reason + ". It will be registered with reflection.", category);
+                continue;
+            }
+
+            try {
+                write(category, name);
+            } catch (IOException e) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Failed to write " + name + ": " + e.getMessage(), category);
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Get the binary name of the registration of a category (must match {@code DecreeRegistration.Registrations}).<br>
+     * In the class part of the name, {@code _} becomes {@code __} and {@code $} becomes {@code _0}, so no two categories share a registration
+     * (ex: a top-level {@code A_B} and a nested {@code A.B}).
+     * @param binaryName The binary name of the category
+     * @param pkg The package of the category
+     * @return The binary name of the registration
+     */
+    static String registrationName(String binaryName, String pkg) {
+        int start = pkg.isEmpty() ? 0 : pkg.length() + 1;
+        StringBuilder name = new StringBuilder(binaryName.length() + SUFFIX.length() + 4).append(binaryName, 0, start);
+        for (int i = start; i < binaryName.length(); i++) {
+            char c = binaryName.charAt(i);
+            if (c == '_') {
+                name.append("__");
+            } else if (c == '$') {
+                name.append("_0");
+            } else {
+                name.append(c);
+            }
+        }
+        return name.append(SUFFIX).toString();
+    }
+
+    /**
+     * Check whether a registration can be generated for a category
+     * @param category The category
+     * @return Why it cannot be generated, or null if it can
+     */
+    private String unsupported(TypeElement category) {
+        PackageElement pkg = processingEnv.getElementUtils().getPackageOf(category);
+
+        if (category.getNestingKind() == NestingKind.LOCAL || category.getNestingKind() == NestingKind.ANONYMOUS) {
+            return "is a local class";
+        }
+        if (!category.getTypeParameters().isEmpty()) {
+            return "is generic";
+        }
+        if (!accessible(category.asType(), pkg)) {
+            return "is not accessible from its package";
+        }
+        if (!isExecutor(category.asType())) {
+            return "does not implement " + EXECUTOR;
+        }
+
+        for (ExecutableElement command : commands(category)) {
+            for (VariableElement parameter : command.getParameters()) {
+                if (mirror(parameter, PARAM) == null) {
+                    return "has a command (" + command.getSimpleName() + ") with a parameter without @Param";
+                }
+                if (!accessible(parameter.asType(), pkg)) {
+                    return "has a command (" + command.getSimpleName() + ") with a parameter type that is not accessible";
+                }
+            }
+        }
+
+        for (VariableElement subCategory : subCategories(category)) {
+            if (subCategory.getModifiers().contains(Modifier.PRIVATE)) {
+                return "has a private subcategory field (" + subCategory.getSimpleName() + ")";
+            }
+            if (!accessible(subCategory.asType(), pkg)) {
+                return "has a subcategory field (" + subCategory.getSimpleName() + ") with a type that is not accessible";
+            }
+            if (!isExecutor(subCategory.asType())) {
+                return "has a subcategory field (" + subCategory.getSimpleName() + ") that does not implement " + EXECUTOR;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Write the registration of a category
+     * @param category The category
+     * @param name The binary name of the registration
+     * @throws IOException If the file could not be written
+     */
+    private void write(TypeElement category, String name) throws IOException {
+        String pkg = processingEnv.getElementUtils().getPackageOf(category).getQualifiedName().toString();
+        String simpleName = pkg.isEmpty() ? name : name.substring(pkg.length() + 1);
+        String type = category.getQualifiedName().toString();
+
+        StringBuilder out = new StringBuilder();
+        if (!pkg.isEmpty()) {
+            out.append("package ").append(pkg).append(";\n\n");
+        }
+        out.append("import nl.codevs.decree.decrees.DecreeCommandExecutor;\n");
+        out.append("import nl.codevs.decree.util.DecreeOrigin;\n");
+        out.append("import nl.codevs.decree.util.KList;\n");
+        out.append("import nl.codevs.decree.virtual.DecreeCategory;\n");
+        out.append("import nl.codevs.decree.virtual.DecreeCommand;\n");
+        out.append("import nl.codevs.decree.virtual.DecreeParameter;\n");
+        out.append("import nl.codevs.decree.virtual.DecreeRegistration;\n");
+        out.append("import nl.codevs.decree.virtual.Decree;\n\n");
+        out.append("/**\n * Registration of {@link ").append(type).append("}.<br>\n * Generated by the Decree annotation processor, do not edit.\n */\n");
+        out.append("@SuppressWarnings({\"unchecked\", \"rawtypes\"})\n");
+        out.append("public final class ").append(simpleName).append(" implements DecreeRegistration<").append(type).append("> {\n");
+        out.append("    private static final Decree DECREE = ").append(decree(mirror(category, DECREE))).append(";\n\n");
+
+        out.append("    @Override\n");
+        out.append("    public Decree decree() {\n");
+        out.append("        return DECREE;\n");
+        out.append("    }\n\n");
+
+        out.append("    @Override\n");
+        out.append("    public KList<DecreeCommand> commands(DecreeCategory category, ").append(type).append(" instance) {\n");
+        out.append("        KList<DecreeCommand> commands = new KList<>();\n");
+        for (ExecutableElement command : commands(category)) {
+            List<? extends VariableElement> parameters = command.getParameters();
+            out.append("        commands.add(new DecreeCommand(category, ").append(literal(command.getSimpleName().toString())).append(",\n");
+            out.append("                ").append(decree(mirror(command, DECREE))).append(",\n");
+            out.append("                new KList<>(");
+            for (int i = 0; i < parameters.size(); i++) {
+                VariableElement parameter = parameters.get(i);
+                out.append(i == 0 ? "\n" : ",\n");
+                out.append("                        new DecreeParameter(").append(erasure(parameter.asType())).append(".class, ")
+                        .append(literal(parameter.getSimpleName().toString())).append(", ").append(param(mirror(parameter, PARAM))).append(")");
+            }
+            out.append("),\n");
+            out.append("                (params, primitives) -> instance.").append(command.getSimpleName()).append("(");
+            for (int i = 0; i < parameters.size(); i++) {
+                out.append(i == 0 ? "" : ", ").append(argument(parameters.get(i).asType(), i));
+            }
+            out.append("),\n");
+            out.append("                category.getSystem()));\n");
+        }
+        out.append("        return commands;\n");
+        out.append("    }\n\n");
+
+        out.append("    @Override\n");
+        out.append("    public KList<DecreeCommandExecutor> subCategories(").append(type).append(" instance) {\n");
+        out.append("        KList<DecreeCommandExecutor> subCategories = new KList<>();\n");
+        for (VariableElement subCategory : subCategories(category)) {
+            String field = "instance." + subCategory.getSimpleName();
+            if (instantiable(subCategory.asType(), processingEnv.getElementUtils().getPackageOf(category))) {
+                out.append("        if (").append(field).append(" == null) {\n");
+                out.append("            ").append(field).append(" = new ").append(erasure(subCategory.asType())).append("();\n");
+                out.append("        }\n");
+                out.append("        subCategories.add(").append(field).append(");\n");
+            } else {
+                out.append("        if (").append(field).append(" != null) {\n");
+                out.append("            subCategories.add(").append(field).append(");\n");
+                out.append("        }\n");
+            }
+        }
+        out.append("        return subCategories;\n");
+        out.append("    }\n");
+        out.append("}\n");
+
+        JavaFileObject file = processingEnv.getFiler().createSourceFile(name, category);
+        try (Writer writer = file.openWriter()) {
+            writer.write(out.toString());
+        }
+    }
+
+    /**
+     * Get the commands of a category, like DecreeCategory#prepCommands
+     * @param category The category
+     * @return The methods representing commands
+     */
+    private List<ExecutableElement> commands(TypeElement category) {
+        return ElementFilter.methodsIn(category.getEnclosedElements()).stream()
+                .filter(m -> !m.getModifiers().contains(Modifier.STATIC) && !m.getModifiers().contains(Modifier.FINAL) && !m.getModifiers().contains(Modifier.PRIVATE))
+                .filter(m -> mirror(m, DECREE) != null)
+                .toList();
+    }
+
+    /**
+     * Get the subcategory fields of a category, like DecreeCategory#prepSubCats
+     * @param category The category
+     * @return The fields representing subcategories
+     */
+    private List<VariableElement> subCategories(TypeElement category) {
+        return ElementFilter.fieldsIn(category.getEnclosedElements()).stream()
+                .filter(f -> !f.getModifiers().contains(Modifier.STATIC) && !f.getModifiers().contains(Modifier.FINAL) && !f.getModifiers().contains(Modifier.TRANSIENT) && !f.getModifiers().contains(Modifier.VOLATILE))
+                .filter(f -> f.asType().getKind() == TypeKind.DECLARED && mirror(processingEnv.getTypeUtils().asElement(f.asType()), DECREE) != null)
+                .toList();
+    }
+
+    /**
+     * Get the source of a call that creates a Decree with the values of an annotation (including defaults)
+     * @param mirror The annotation
+     * @return The source of the call
+     */
+    private String decree(AnnotationMirror mirror) {
+        Map<String, Object> values = values(mirror);
+        return "DecreeRegistration.decree("
+                + literal((String) values.get("name")) + ", "
+                + literals(values.get("aliases")) + ", "
+                + literal((String) values.get("description")) + ", "
+                + "DecreeOrigin." + ((VariableElement) values.get("origin")).getSimpleName() + ", "
+                + literal((String) values.get("permission")) + ", "
+                + values.get("sync") + ")";
+    }
+
+    /**
+     * Get the source of a call that creates a Param with the values of an annotation (including defaults)
+     * @param mirror The annotation
+     * @return The source of the call
+     */
+    private String param(AnnotationMirror mirror) {
+        Map<String, Object> values = values(mirror);
+        return "DecreeRegistration.param("
+                + literal((String) values.get("name")) + ", "
+                + literal((String) values.get("description")) + ", "
+                + literal((String) values.get("defaultValue")) + ", "
+                + literals(values.get("aliases")) + ", "
+                + values.get("contextual") + ")";
+    }
+
+    /**
+     * Get the values of an annotation, including defaults
+     * @param mirror The annotation
+     * @return The values, by element name
+     */
+    private Map<String, Object> values(AnnotationMirror mirror) {
+        Map<String, Object> values = new HashMap<>();
+        processingEnv.getElementUtils().getElementValuesWithDefaults(mirror).forEach((k, v) -> values.put(k.getSimpleName().toString(), v.getValue()));
+        return values;
+    }
+
+    /**
+     * Find an annotation on an element by name
+     * @param element The element
+     * @param annotation The qualified name of the annotation
+     * @return The annotation, or null if not present
+     */
+    private AnnotationMirror mirror(Element element, String annotation) {
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            if (((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName().contentEquals(annotation)) {
+                return mirror;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return Whether the type implements DecreeCommandExecutor (true if it cannot be found)
+     */
+    private boolean isExecutor(TypeMirror type) {
+        TypeElement executor = processingEnv.getElementUtils().getTypeElement(EXECUTOR);
+        return executor == null || processingEnv.getTypeUtils().isAssignable(type, processingEnv.getTypeUtils().erasure(executor.asType()));
+    }
+
+    /**
+     * Check whether a type can be referenced from generated code in a package
+     * @param type The type
+     * @param pkg The package
+     * @return True if it can be referenced
+     */
+    private boolean accessible(TypeMirror type, PackageElement pkg) {
+        TypeMirror erased = processingEnv.getTypeUtils().erasure(type);
+        if (erased.getKind() == TypeKind.ARRAY) {
+            return accessible(((ArrayType) erased).getComponentType(), pkg);
+        }
+        if (erased.getKind() != TypeKind.DECLARED) {
+            return erased.getKind().isPrimitive();
+        }
+        for (Element e = processingEnv.getTypeUtils().asElement(erased); e instanceof TypeElement; e = e.getEnclosingElement()) {
+            if (e.getModifiers().contains(Modifier.PRIVATE)) {
+                return false;
+            }
+            if (!e.getModifiers().contains(Modifier.PUBLIC) && !processingEnv.getElementUtils().getPackageOf(e).equals(pkg)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Check whether a subcategory can be instantiated like DecreeCategory#prepSubCats does (with a public no-argument constructor)
+     * @param type The type of the subcategory
+     * @param pkg The package of the generated code
+     * @return True if it can be instantiated
+     */
+    private boolean instantiable(TypeMirror type, PackageElement pkg) {
+        TypeElement element = (TypeElement) processingEnv.getTypeUtils().asElement(type);
+        if (element.getModifiers().contains(Modifier.ABSTRACT) || element.getKind() != ElementKind.CLASS) {
+            return false;
+        }
+        if (element.getNestingKind() == NestingKind.MEMBER && !element.getModifiers().contains(Modifier.STATIC)) {
+            return false;
+        }
+        if (!accessible(type, pkg) || !element.getModifiers().contains(Modifier.PUBLIC)) {
+            return false;
+        }
+        List<ExecutableElement> constructors = ElementFilter.constructorsIn(element.getEnclosedElements());
+        return constructors.stream().anyMatch(c -> c.getParameters().isEmpty() && c.getModifiers().contains(Modifier.PUBLIC));
+    }
+
+    /**
+     * Get the source of an argument read from the parameter arrays of a DecreeInvoker.<br>
+     * Primitive numbers are read from the primitive array (decimals as raw double bits), everything else is cast from the object array.
+     * @param type The type of the parameter
+     * @param index The index of the parameter
+     * @return The source of the argument
+     */
+    private String argument(TypeMirror type, int index) {
+        return switch (type.getKind()) {
+            case BYTE, SHORT, INT, LONG -> "(" + type + ") primitives[" + index + "]";
+            case FLOAT -> "(float) Double.longBitsToDouble(primitives[" + index + "])";
+            case DOUBLE -> "Double.longBitsToDouble(primitives[" + index + "])";
+            default -> "(" + erasure(type) + ") params[" + index + "]";
+        };
+    }
+
+    /**
+     * @return The source name of the erasure of a type
+     */
+    private String erasure(TypeMirror type) {
+        return processingEnv.getTypeUtils().erasure(type).toString();
+    }
+
+    /**
+     * @return The source of a string array with the strings in an annotation value
+     */
+    private static String literals(Object values) {
+        StringBuilder out = new StringBuilder("new String[]{");
+        List<?> list = (List<?>) values;
+        for (int i = 0; i < list.size(); i++) {
+            out.append(i == 0 ? "" : ", ").append(literal((String) ((AnnotationValue) list.get(i)).getValue()));
+        }
+        return out.append("}").toString();
+    }
+
+    /**
+     * @return The source of a string literal
+     */
+    private static String literal(String value) {
+        StringBuilder out = new StringBuilder("\"");
+        for (char c : value.toCharArray()) {
+            switch (c) {
+                case '"':
+                    out.append("\\\"");
+                    break;
+                case '\\':
+                    out.append("\\\\");
+                    break;
+                case '\n':
+                    out.append("\\n");
+                    break;
+                case '\r':
+                    out.append("\\r");
+                    break;
+                case '\t':
+                    out.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20 || c > 0x7e) {
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+            }
+        }
+        return out.append("\"").toString();
+    }
+}
@@ -30,4 +30,9 @@ public class Decree extends JavaPlugin implements TabCompleter, CommandExecutor
         decreeSystem = new DecreeSystem(new MainCommandClass(), this);
         Bukkit.getPluginManager().registerEvents(decreeSystem, this);
     }
+
+    @Override
+    public void onDisable() {
+        decreeSystem.disable();
+    }
 }
@@ -1,6 +1,8 @@
 package nl.codevs.decree;
 
+import io.papermc.lib.PaperLib;
 import lombok.*;
+import net.kyori.adventure.platform.bukkit.BukkitAudiences;
 import nl.codevs.decree.context.DecreeContextHandler;
 import nl.codevs.decree.context.PlayerContextHandler;
 import nl.codevs.decree.context.WorldContextHandler;
@@ -12,23 +14,41 @@ import nl.codevs.decree.handlers.*;
 import nl.codevs.decree.util.*;
 import nl.codevs.decree.virtual.Decree;
 import nl.codevs.decree.virtual.DecreeCategory;
+import nl.codevs.decree.virtual.DecreeRegistration;
+import nl.codevs.decree.virtual.TabCache;
 import nl.codevs.decree.virtual.Decreed;
 import org.apache.commons.lang.time.StopWatch;
 import org.bukkit.Bukkit;
+import org.bukkit.World;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandSender;
+import org.bukkit.command.ConsoleCommandSender;
+import org.bukkit.entity.Player;
+import org.bukkit.event.Event;
 import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerChangedWorldEvent;
 import org.bukkit.event.player.PlayerCommandPreprocessEvent;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
 import org.bukkit.event.server.ServerCommandEvent;
+import org.bukkit.event.world.WorldLoadEvent;
+import org.bukkit.event.world.WorldUnloadEvent;
 import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitTask;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.io.File;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.util.*;
 import java.util.concurrent.*;
-import java.util.stream.Stream;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 @Getter
 @Setter
@@ -40,9 +60,9 @@ public class DecreeSystem implements Listener {
     public static final String version = "1.2";
 
     /**
-     * The settings
+     * The settings. This is a snapshot which is replaced when the settings change, do not modify it.
      */
-    public static DecreeSettings settings;
+    public static volatile DecreeSettings settings;
 
     /**
      * Command roots ({@link ConcurrentHashMap})
@@ -54,25 +74,59 @@ public class DecreeSystem implements Listener {
      */
     private final Plugin instance;
 
+    /**
+     * The {@link DecreeSender}s of this system
+     */
+    private final Senders senders;
+
+    /**
+     * The tab completion engine of this system
+     */
+    private final Tabs tabs;
+
+    /**
+     * The command execution engine of this system
+     */
+    private final Commands commands;
+
     public DecreeSystem(DecreeCommandExecutor rootInstance, Plugin plugin){
         this(new KList<>(rootInstance), plugin);
     }
 
     public DecreeSystem(KList<DecreeCommandExecutor> rootInstances, Plugin plugin) {
-        settings = DecreeSettings.fromConfigJson(new File(plugin.getDataFolder() + "/decreeconfig.json"));
-        roots = new Roots(rootInstances, this);
+        File config = new File(plugin.getDataFolder() + "/decreeconfig.json");
+        settings = DecreeSettings.fromConfigJson(config);
+        DecreeSettings.watch(config);
         instance = plugin;
+        senders = new Senders(plugin);
+        roots = new Roots(rootInstances, this);
+        Server.start(plugin);
+        tabs = new Tabs(this, plugin);
+        commands = new Commands(this);
+        Completer.start();
         System.out.println("Enabled Advanced Command System " + C.YELLOW + "Decree v" + version + C.RESET + " for " + C.YELLOW + plugin.getName() + " v" + plugin.getDescription().getVersion());
         System.out.println("See our GitHub page: " + C.YELLOW + "https://www.github.com/CocoTheOwner/Decree");
     }
 
+    /**
+     * Stop the background work of the system. Call this when disabling the plugin.
+     */
+    public void disable() {
+        DecreeSettings.stopWatching();
+        Server.stop();
+        tabs.close();
+        commands.close();
+        Completer.stop();
+        senders.close();
+    }
+
     /**
      * What to do with debug messages
      * @param message The debug message
      */
     public void debug(String message) {
         if (DecreeSystem.settings.debug) {
-            DecreeSettings.onDebug.accept(message, instance);
+            DecreeSettings.onDebug.accept(message, senders.console());
         }
     }
 
@@ -94,65 +148,152 @@ public class DecreeSystem implements Listener {
      */
     @EventHandler
     public void on(PlayerCommandPreprocessEvent e) {
-        e.setCancelled(Completer.pick(e.getMessage()));
+        e.setCancelled(Completer.pick(e.getPlayer(), e.getMessage()));
     }
 
     /**
-     * Handles the cases where there are multiple options following from the entered command values, except for Consoles instead of players.
+     * Handles the cases where there are multiple options following from the entered command values, except for Consoles (and RCON) instead of players.
      * @param e The event to check
      */
     @EventHandler
     public void on(ServerCommandEvent e) {
-        e.setCancelled(Completer.pickConsole(e.getCommand()));
+        e.setCancelled(Completer.pickConsole(e.getSender(), e.getCommand()));
     }
 
-    @Nullable
-    public List<String> onTabComplete(@NotNull CommandSender commandSender, @NotNull Command command, @NotNull String[] arguments) {
+    /**
+     * Adds players that join to the {@link Server} snapshot
+     * @param e The event to check
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void on(PlayerJoinEvent e) {
+        Server.refresh(null, null);
+    }
+
+    /**
+     * Evicts the cached {@link DecreeSender}, tab completions and open prompts of players that leave, and removes them from the {@link Server} snapshot
+     * @param e The event to check
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void on(PlayerQuitEvent e) {
+        senders.remove(e.getPlayer());
+        tabs.forget(e.getPlayer());
+        Completer.forget(e.getPlayer());
+        Server.refresh(e.getPlayer(), null);
+    }
+
+    /**
+     * Recalculates what players that change worlds may see in completions (permissions may be per world)
+     * @param e The event to check
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void on(PlayerChangedWorldEvent e) {
+        tabs.invalidate(e.getPlayer());
+    }
+
+    /**
+     * Adds worlds that load to the {@link Server} snapshot
+     * @param e The event to check
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void on(WorldLoadEvent e) {
+        Server.refresh(null, null);
+    }
 
-        settings = settings.hotload();
+    /**
+     * Removes worlds that unload from the {@link Server} snapshot
+     * @param e The event to check
+     */
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void on(WorldUnloadEvent e) {
+        Server.refresh(null, e.getWorld());
+    }
 
-        DecreeSender sender = new DecreeSender(commandSender, getInstance());
-        KList<String> args = new KList<>(arguments);
-        KList<String> completions = new KList<>();
+    /**
+     * Tab complete a command. Runs the completion on a worker thread (see {@link Tabs}), and waits for it at most {@link DecreeSettings#tabDeadline}.
+     * If it takes longer (or a newer request replaced it), returns the last completions of the sender for the same argument.
+     * @param commandSender The sender
+     * @param command The command
+     * @param arguments The arguments
+     * @return The completions
+     */
+    @Nullable
+    public List<String> onTabComplete(@NotNull CommandSender commandSender, @NotNull Command command, @NotNull String[] arguments) {
+        return tabs.complete(commandSender, command.getName(), arguments);
+    }
 
-        debug(C.GREEN + "Args: " + C.GOLD + args.toString(C.GREEN + ", " + C.GOLD));
-        if (!args.getLast().isEmpty()) {
-            debug(C.YELLOW + "No tab because no space!");
+    /**
+     * Tab complete a command on the current thread
+     * @param commandSender The sender
+     * @param command The name of the root command
+     * @param arguments The arguments
+     * @return The completions
+     */
+    private KList<String> tab(CommandSender commandSender, String command, String[] arguments) {
+        KList<DecreeCategory> commandRoots = roots.get(command);
+        if (commandRoots == null || arguments.length == 0) {
             return new KList<>();
         }
 
-        args.popLast();
+        DecreeSender sender = senders.get(commandSender);
+        long start = Trace.enabled ? Trace.begin(sender, command + " " + String.join(" ", arguments) + " (tab)") : 0;
 
-        sender.sendMessage("Command: '" + command.getName() + "'");
-        sender.sendMessage("Arguments: '" + args.toString(", ") + "'");
+        if (settings.debug) {
+            debug(C.GREEN + "Command: " + C.GOLD + command + C.GREEN + " Arguments: " + C.GOLD + String.join(C.GREEN + ", " + C.GOLD, arguments));
+        }
 
-        roots.get(command.getName()).forEach(c -> completions.addAll(c.tab(args, sender)));
+        try {
+            // Handlers may need the sender to parse entered values
+            KList<String> completions = Context.call(sender, () -> tabs.cache.complete(commandSender, sender, command, commandRoots, arguments));
 
-        debug(C.GREEN + "Tab completed as: " + C.GOLD + completions.toString(C.GREEN + ", " + C.GOLD));
-        return completions.qremoveDuplicates();
+            if (settings.debug) {
+                debug(C.GREEN + "Tab completed as: " + C.GOLD + completions.toString(C.GREEN + ", " + C.GOLD));
+            }
+            return completions;
+        } finally {
+            Trace.end("Tab completion", start);
+        }
     }
 
-    @SuppressWarnings({"deprecation", "SameReturnValue"})
+    /**
+     * Run a command on the command executor (see {@link Commands})
+     * @param commandSender The sender
+     * @param command The command
+     * @param arguments The arguments
+     * @return True if the command was queued, false if it was refused (the sender is told why)
+     */
     public boolean onCommand(@NotNull CommandSender commandSender, @NotNull Command command, @NotNull String[] arguments) {
-        Bukkit.getScheduler().scheduleAsyncDelayedTask(getInstance(), () -> {
-            StopWatch s = new StopWatch();
-            if (DecreeSystem.settings.debugRuntime) {
-                s.start();
-            }
-            settings = settings.hotload();
+        return commands.submit(commandSender, () -> {
+            DecreeSender sender = senders.get(commandSender);
+            Context.run(sender, () -> execute(sender, command.getName(), arguments));
+        });
+    }
 
-            KList<String> args = new KList<>(arguments).qremoveIf(String::isEmpty);
-            DecreeSender sender = new DecreeSender(commandSender, getInstance());
-            Context.touch(sender);
+    /**
+     * Run a command on the current thread
+     * @param sender The sender
+     * @param command The name of the root command
+     * @param arguments The arguments
+     */
+    private void execute(DecreeSender sender, String command, String[] arguments) {
+        StopWatch s = new StopWatch();
+        if (DecreeSystem.settings.debugRuntime) {
+            s.start();
+        }
+
+        DecreeArguments args = DecreeArguments.of(arguments);
 
-            for (Decreed root : roots.get(command.getName())) {
+        long start = Trace.enabled ? Trace.begin(sender, command + " " + args.line()) : 0;
+        String outcome = "Failed command";
+
+        try {
+            for (Decreed root : roots.get(command)) {
                 if (root.run(args, sender)) {
+                    outcome = "Command";
                     playSound(true, SFX.Command, sender);
                     if (DecreeSystem.settings.debugRuntime) {
                         debug(C.GREEN + "Running command took: " + C.GOLD + s.getTime() + "ms");
                         s.stop();
                     }
-                    settings = settings.hotload();
                     return;
                 }
             }
@@ -162,81 +303,309 @@ public class DecreeSystem implements Listener {
                 debug(C.GREEN + "Running command took: " + C.GOLD + s.getTime());
                 s.stop();
             }
-            settings = settings.hotload();
-        });
-        return true;
+        } finally {
+            Trace.end(outcome, start);
+        }
     }
 
+    /**
+     * Registry of open prompts (ex: asking a sender to pick one of multiple options).<br>
+     * Players answer by clicking an option, which runs {@value #COMMAND} with the token of the prompt. Other senders (console, RCON) type the option.<br>
+     * Prompts expire on a hashed timer wheel ({@value #WHEEL_SIZE} buckets of {@value #TICK}ms), which completes them with null.
+     * Each sender has at most {@value #MAX_PER_SENDER} open prompts (the oldest expires first), and the prompts of players that leave expire right away.
+     * Only the sender a prompt was posted to can answer it.<br>
+     * The registry is shared by all systems in the classloader (ex: plugins shading Decree), and stops once the last of them is disabled.
+     */
     public static class Completer {
 
-        public static final ConcurrentHashMap<String, CompletableFuture<String>> futures = new ConcurrentHashMap<>();
-        public static CompletableFuture<String> consoleFuture;
+        /**
+         * The command players run to answer a prompt
+         */
+        public static final String COMMAND = "decree-future";
+
+        /**
+         * The maximal amount of open prompts per sender
+         */
+        public static final int MAX_PER_SENDER = 4;
+
+        private static final long TICK = 250;
+        private static final int WHEEL_SIZE = 64;
+
+        /**
+         * Guards all state below
+         */
+        private static final Object lock = new Object();
+        private static final Map<String, Prompt> byToken = new HashMap<>();
+        private static final Map<Object, ArrayDeque<Prompt>> bySender = new HashMap<>();
+        @SuppressWarnings("unchecked")
+        private static final ArrayDeque<Prompt>[] wheel = (ArrayDeque<Prompt>[]) new ArrayDeque<?>[WHEEL_SIZE];
+        private static int cursor;
+        private static ScheduledExecutorService timer;
+
+        /**
+         * The amount of enabled systems using the registry
+         */
+        private static int users;
+
+        /**
+         * An open prompt
+         */
+        public static final class Prompt {
+            private final String token;
+            private final Object owner;
+            private final CompletableFuture<String> answer = new CompletableFuture<>();
+            private int rounds;
+
+            private Prompt(String token, Object owner) {
+                this.token = token;
+                this.owner = owner;
+            }
+
+            /**
+             * @return The token to answer this prompt with
+             */
+            public String token() {
+                return token;
+            }
+
+            /**
+             * @return The answer, or null if the prompt expired before it was answered
+             */
+            public CompletableFuture<String> answer() {
+                return answer;
+            }
+        }
+
+        /**
+         * Open a prompt for a sender
+         * @param sender The sender that must answer
+         * @param timeout The time the sender has to answer
+         * @param unit The unit of the timeout
+         * @return The prompt
+         */
+        public static Prompt post(CommandSender sender, long timeout, TimeUnit unit) {
+            Prompt expired = null;
+            Prompt prompt;
+            synchronized (lock) {
+                String token;
+                do {
+                    token = Long.toUnsignedString(ThreadLocalRandom.current().nextLong(), 36);
+                } while (byToken.containsKey(token));
+                prompt = new Prompt(token, ownerOf(sender));
+                byToken.put(token, prompt);
+
+                ArrayDeque<Prompt> prompts = bySender.computeIfAbsent(prompt.owner, o -> new ArrayDeque<>());
+                prompts.addLast(prompt);
+                if (prompts.size() > MAX_PER_SENDER) {
+                    expired = prompts.pollFirst();
+                    byToken.remove(expired.token);
+                }
+
+                long ticks = Math.max(1, (unit.toMillis(timeout) + TICK - 1) / TICK);
+                prompt.rounds = (int) ((ticks - 1) / WHEEL_SIZE);
+                int bucket = (int) ((cursor + ticks) % WHEEL_SIZE);
+                if (wheel[bucket] == null) {
+                    wheel[bucket] = new ArrayDeque<>();
+                }
+                wheel[bucket].add(prompt);
+
+                if (timer == null) {
+                    timer = Executors.newSingleThreadScheduledExecutor(r -> {
+                        Thread thread = new Thread(r, "Decree Prompt Timer");
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+                    timer.scheduleAtFixedRate(Completer::tick, TICK, TICK, TimeUnit.MILLISECONDS);
+                }
+            }
+            if (expired != null) {
+                expired.answer.complete(null);
+            }
+            return prompt;
+        }
 
         /**
-         * Try fulfilling a {@link CompletableFuture}
-         * @param message the message that will fulfill the contract
-         * @return True if any {@link CompletableFuture} was fulfilled, false if not
+         * Try answering a prompt with a command of a player
+         * @param player The player
+         * @param message The command ({@value #COMMAND} token option)
+         * @return True if a prompt of the player was answered, false if not
          */
-        public static boolean pick(String message) {
-            String msg = message.startsWith("/") ? message.substring(1) : message;
+        public static boolean pick(Player player, String message) {
+            int start = message.startsWith("/") ? 1 : 0;
+            if (!message.startsWith(COMMAND + " ", start)) {
+                return false;
+            }
+            int tokenStart = start + COMMAND.length() + 1;
+            int tokenEnd = message.indexOf(' ', tokenStart);
+            if (tokenEnd < 0) {
+                return false;
+            }
+
+            Prompt prompt;
+            synchronized (lock) {
+                prompt = byToken.get(message.substring(tokenStart, tokenEnd));
+                if (prompt == null || !prompt.owner.equals(player.getUniqueId())) {
+                    return false;
+                }
+                remove(prompt);
+            }
+            prompt.answer.complete(message.substring(tokenEnd + 1));
+            return true;
+        }
 
-            if(msg.startsWith("decree-future ")) {
-                String[] args = msg.split("\\Q \\E");
-                CompletableFuture<String> future = futures.get(args[1]);
+        /**
+         * Try answering the newest prompt of a sender that cannot click (like the console) with a command
+         * @param sender The sender
+         * @param command The command
+         * @return True if a prompt was answered, false if not
+         */
+        public static boolean pickConsole(CommandSender sender, String command) {
+            if (command.contains(" ")) {
+                return false;
+            }
+            Prompt prompt;
+            synchronized (lock) {
+                ArrayDeque<Prompt> prompts = bySender.get(ownerOf(sender));
+                if (prompts == null || prompts.isEmpty()) {
+                    return false;
+                }
+                prompt = prompts.peekLast();
+                remove(prompt);
+            }
+            prompt.answer.complete(NameTrie.fold(command.trim()));
+            return true;
+        }
 
-                if(future != null)
-                {
-                    future.complete(args[2]);
-                    futures.remove(args[0]);
-                    return true;
+        /**
+         * Expire the prompts of a sender (ex: when they leave)
+         * @param sender The sender
+         */
+        public static void forget(CommandSender sender) {
+            ArrayDeque<Prompt> prompts;
+            synchronized (lock) {
+                prompts = bySender.remove(ownerOf(sender));
+                if (prompts == null) {
+                    return;
+                }
+                for (Prompt prompt : prompts) {
+                    byToken.remove(prompt.token);
                 }
             }
+            for (Prompt prompt : prompts) {
+                prompt.answer.complete(null);
+            }
+        }
+
+        /**
+         * @return The amount of open prompts
+         */
+        public static int size() {
+            synchronized (lock) {
+                return byToken.size();
+            }
+        }
+
+        /**
+         * Register an enabled system using the registry
+         */
+        private static void start() {
+            synchronized (lock) {
+                users++;
+            }
+        }
 
-            return false;
+        /**
+         * Unregister a disabled system. When it was the last one, expire all prompts and stop the timer.
+         */
+        private static void stop() {
+            KList<Prompt> open;
+            synchronized (lock) {
+                if (users > 0 && --users > 0) {
+                    return;
+                }
+                open = new KList<>(byToken.values());
+                byToken.clear();
+                bySender.clear();
+                Arrays.fill(wheel, null);
+                if (timer != null) {
+                    timer.shutdownNow();
+                    timer = null;
+                }
+            }
+            for (Prompt prompt : open) {
+                prompt.answer.complete(null);
+            }
         }
 
         /**
-         * Try fulfilling a {@link CompletableFuture}
-         * @param command The command to use to fulfill the future
-         * @return True if the future was fulfilled, false if not.
+         * Advance the wheel by one bucket, and expire the prompts that are due
          */
-        public static boolean pickConsole(String command) {
-            if (consoleFuture != null && !consoleFuture.isCancelled() && !consoleFuture.isDone()) {
-                if (!command.contains(" ")) {
-                    consoleFuture.complete(command.trim().toLowerCase(Locale.ROOT));
-                    return true;
+        private static void tick() {
+            KList<Prompt> due = new KList<>();
+            synchronized (lock) {
+                cursor = (cursor + 1) % WHEEL_SIZE;
+                ArrayDeque<Prompt> bucket = wheel[cursor];
+                if (bucket == null) {
+                    return;
+                }
+                Iterator<Prompt> prompts = bucket.iterator();
+                while (prompts.hasNext()) {
+                    Prompt prompt = prompts.next();
+                    if (prompt.answer.isDone()) {
+                        prompts.remove();
+                    } else if (prompt.rounds > 0) {
+                        prompt.rounds--;
+                    } else {
+                        prompts.remove();
+                        remove(prompt);
+                        due.add(prompt);
+                    }
+                }
+                if (bucket.isEmpty()) {
+                    wheel[cursor] = null;
                 }
             }
-            return false;
+            for (Prompt prompt : due) {
+                prompt.answer.complete(null);
+            }
         }
 
         /**
-         * Post a future which assists in figuring out {@link DecreeWhichException}s
-         * @param password The password to access this future (appended to the onclick)
-         * @param future The future to fulfill
+         * Remove a prompt from the token and sender maps. It is dropped from the wheel once its bucket comes up. Must hold the lock.
+         * @param prompt The prompt
          */
-        public static void postFuture(String password, CompletableFuture<String> future) {
-            futures.put(password, future);
+        private static void remove(Prompt prompt) {
+            byToken.remove(prompt.token);
+            ArrayDeque<Prompt> prompts = bySender.get(prompt.owner);
+            if (prompts != null) {
+                prompts.remove(prompt);
+                if (prompts.isEmpty()) {
+                    bySender.remove(prompt.owner);
+                }
+            }
         }
 
         /**
-         * Post a future which assists in figuring out {@link DecreeWhichException}s
-         * @param future The future to fulfill
+         * The key of the prompts of a sender: the unique id for players (which outlives their {@link Player} object), the sender itself for others
+         * @param sender The sender
+         * @return The key
          */
-        public static void postConsoleFuture(CompletableFuture<String> future) {
-            consoleFuture = future;
+        private static Object ownerOf(CommandSender sender) {
+            if (sender instanceof DecreeSender decreeSender) {
+                sender = decreeSender.getS();
+            }
+            return sender instanceof Player player ? player.getUniqueId() : sender;
         }
     }
 
     public static class Handler {
         /**
-         * Parameter handlers list. You can add/remove handlers to/from this list.
+         * Parameter handlers. You can add/remove handlers with {@link #addHandler(DecreeParameterHandler)} and {@link #removeHandlers(Class)}.
          * Parameters must implement {@link DecreeParameterHandler}.
          * Parameter handlers handle string-to-type conversion (and back).
          */
-        @Getter
-        @Setter
-        private static KList<DecreeParameterHandler<?>> handlers = new KList<>(
+        private static final HandlerRegistry<DecreeParameterHandler<?>> handlers = new HandlerRegistry<>(
+                DecreeParameterHandler::supports, List.of(
                 new BlockVectorHandler(),
                 new BooleanHandler(),
                 new ByteHandler(),
@@ -249,7 +618,7 @@ public class DecreeSystem implements Listener {
                 new StringHandler(),
                 new VectorHandler(),
                 new WorldHandler()
-        );
+        ));
 
         /**
          * Add a new handler to the list of handlers.
@@ -257,11 +626,7 @@ public class DecreeSystem implements Listener {
          * @return True if the handler is new, false if it was already added.
          */
         public static boolean addHandler(DecreeParameterHandler<?> handler) {
-            if (handlers.contains(handler)) {
-                return false;
-            }
-            handlers.add(handler);
-            return true;
+            return handlers.add(handler);
         }
 
         /**
@@ -270,26 +635,42 @@ public class DecreeSystem implements Listener {
          * @return True if any existed
          */
         public static boolean removeHandlers(Class<?> type) {
-            Stream<DecreeParameterHandler<?>> matchedHandlers = handlers.stream().filter(h -> h.supports(type));
-            if (matchedHandlers.noneMatch(h -> true)){
-                return false;
-            } else {
-                matchedHandlers.forEach(h -> handlers.remove(h));
-                return true;
-            }
+            return handlers.remove(type);
+        }
+
+        /**
+         * @return A copy of the registered handlers
+         */
+        public static KList<DecreeParameterHandler<?>> getHandlers() {
+            return handlers.all();
+        }
+
+        /**
+         * Replace all handlers
+         * @param handlers The new handlers
+         */
+        public static void setHandlers(KList<DecreeParameterHandler<?>> handlers) {
+            Handler.handlers.set(handlers);
+        }
+
+        /**
+         * The version of the handlers. Changes every time a handler is added or removed.
+         * @return The version
+         */
+        public static int version() {
+            return handlers.version();
         }
 
         /**
-         * Get the handler for the specified type
+         * Get the handler for the specified type (or, if there is none, for its closest supertype)
          *
          * @param type The type to handle
-         * @return The corresponding {@link DecreeParameterHandler}, or null
+         * @return The corresponding {@link DecreeParameterHandler}
          */
         public static DecreeParameterHandler<?> get(Class<?> type) throws DecreeException {
-            for (DecreeParameterHandler<?> i : handlers) {
-                if (i.supports(type)) {
-                    return i;
-                }
+            DecreeParameterHandler<?> handler = handlers.get(type);
+            if (handler != null) {
+                return handler;
             }
             throw new DecreeException("Unhandled type in Decree Parameter: " + type.getName() + ". This is bad! Contact your admin! (Remove param or add handler)");
         }
@@ -301,19 +682,28 @@ public class DecreeSystem implements Listener {
         Picked
     }
 
+    /**
+     * Context of commands: the sender a thread is running for, and the handlers that derive parameter values from it.<br>
+     * The sender is bound for the duration of a command or tab completion ({@link #run(DecreeSender, Runnable)}), and carried over to
+     * the main thread for sync commands ({@link #wrap(Runnable)}). Nothing outlives the command, and no lock is taken.
+     */
     public static class Context {
 
-        private static final ChronoLatch cl = new ChronoLatch(60000);
-        private static final ConcurrentHashMap<Thread, DecreeSender> context = new ConcurrentHashMap<>();
+        /**
+         * The sender scope: a {@code ScopedValue} (Java 21+, if available at runtime), or a thread local
+         */
+        private static final Scope scope = Scope.create();
 
         /**
-         * Context handlers mapping. You can add/remove handlers to/from this map.
+         * Context handlers. You can add/remove handlers with {@link #addHandler(DecreeContextHandler)} and {@link #removeHandlers(Class)}.
          * Parameters must implement {@link DecreeContextHandler}.
          * Context handlers extract data that can be auto-filled in commands from only the sender.
          */
-        @Getter
-        @Setter
-        private static KList<DecreeContextHandler<?>> handlers = new KList<>(new WorldContextHandler(), new PlayerContextHandler());
+        private static final HandlerRegistry<DecreeContextHandler<?>> handlers = new HandlerRegistry<>(
+                DecreeContextHandler::supports, List.of(
+                new WorldContextHandler(),
+                new PlayerContextHandler()
+        ));
 
         /**
          * Add a new handler to the list of handlers.
@@ -321,11 +711,7 @@ public class DecreeSystem implements Listener {
          * @return True if the handler is new, false if it was already added.
          */
         public static boolean addHandler(DecreeContextHandler<?> handler) {
-            if (handlers.contains(handler)) {
-                return false;
-            }
-            handlers.add(handler);
-            return true;
+            return handlers.add(handler);
         }
 
         /**
@@ -334,60 +720,1243 @@ public class DecreeSystem implements Listener {
          * @return True if any existed
          */
         public static boolean removeHandlers(Class<?> type) {
-            Stream<DecreeContextHandler<?>> matchedHandlers = handlers.stream().filter(h -> h.supports(type));
-            if (matchedHandlers.noneMatch(h -> true)){
-                return false;
-            } else {
-                matchedHandlers.forEach(h -> handlers.remove(h));
-                return true;
-            }
+            return handlers.remove(type);
+        }
+
+        /**
+         * @return A copy of the registered handlers
+         */
+        public static KList<DecreeContextHandler<?>> getHandlers() {
+            return handlers.all();
+        }
+
+        /**
+         * Replace all handlers
+         * @param handlers The new handlers
+         */
+        public static void setHandlers(KList<DecreeContextHandler<?>> handlers) {
+            Context.handlers.set(handlers);
         }
 
         /**
-         * Get the handler for the specified type
+         * Get the handler for the specified type (or, if there is none, for its closest supertype)
          *
          * @param type The type to handle
-         * @return The corresponding {@link DecreeContextHandler}, or null
+         * @return The corresponding {@link DecreeContextHandler}
          */
         public static DecreeContextHandler<?> getHandler(Class<?> type) throws DecreeException {
-            for (DecreeContextHandler<?> i : handlers) {
-                if (i.supports(type)) {
-                    return i;
-                }
+            DecreeContextHandler<?> handler = handlers.get(type);
+            if (handler != null) {
+                return handler;
             }
             throw new DecreeException("Unhandled type in Decree Parameter: " + type.getName() + ". This is bad! Contact your admin! (Remove param or add handler)");
         }
 
         /**
-         * Get the sender from the current thread's context
-         * @return The {@link DecreeSender} for this thread
+         * Get the sender of the command (or tab completion) the current thread is running for
+         * @return The {@link DecreeSender}, or null if the thread is not running for a sender
          */
         public static DecreeSender get() {
-            return context.get(Thread.currentThread());
+            return scope.get();
+        }
+
+        /**
+         * Run a task with a sender as context. The previous context is restored afterwards, so nothing is left behind on pooled threads.
+         * @param sender The sender
+         * @param task The task
+         */
+        public static void run(DecreeSender sender, Runnable task) {
+            if (sender == null) {
+                task.run();
+            } else {
+                scope.run(sender, task);
+            }
         }
 
         /**
-         * Add the {@link DecreeSender} to the context map & removes dead threads
+         * Compute a value with a sender as context. The previous context is restored afterwards.
          * @param sender The sender
+         * @param task The computation
+         * @param <T> The type of value
+         * @return The value
+         */
+        public static <T> T call(DecreeSender sender, Supplier<T> task) {
+            Object[] result = new Object[1];
+            run(sender, () -> result[0] = task.get());
+            @SuppressWarnings("unchecked") T value = (T) result[0];
+            return value;
+        }
+
+        /**
+         * Carry the context of the current thread over to a task that runs elsewhere (ex: on the main thread).<br>
+         * This includes the {@link Trace} of the sender, so events recorded by the task are kept.
+         * @param task The task
+         * @return The task, running with the current context
+         */
+        public static Runnable wrap(Runnable task) {
+            DecreeSender sender = get();
+            UUID trace = Trace.current();
+            if (sender == null && trace == null) {
+                return task;
+            }
+            return () -> run(sender, () -> Trace.resume(trace, task));
+        }
+
+        /**
+         * Carry the context of the current thread over to a task that runs elsewhere (ex: as a continuation on another thread)
+         * @param task The task
+         * @param <T> The type of input
+         * @return The task, running with the current context
+         */
+        public static <T> Consumer<T> wrap(Consumer<T> task) {
+            DecreeSender sender = get();
+            UUID trace = Trace.current();
+            if (sender == null && trace == null) {
+                return task;
+            }
+            return value -> run(sender, () -> Trace.resume(trace, () -> task.accept(value)));
+        }
+
+        /**
+         * Carry the context of the current thread over to a task that runs elsewhere (ex: on the main thread)
+         * @param task The task
+         * @param <T> The type of result
+         * @return The task, running with the current context
+         */
+        public static <T> Callable<T> wrap(Callable<T> task) {
+            DecreeSender sender = get();
+            UUID trace = Trace.current();
+            if (sender == null && trace == null) {
+                return task;
+            }
+            return () -> {
+                Object[] result = new Object[1];
+                Exception[] failure = new Exception[1];
+                run(sender, () -> Trace.resume(trace, () -> {
+                    try {
+                        result[0] = task.call();
+                    } catch (Exception e) {
+                        failure[0] = e;
+                    }
+                }));
+                if (failure[0] != null) {
+                    throw failure[0];
+                }
+                @SuppressWarnings("unchecked") T value = (T) result[0];
+                return value;
+            };
+        }
+
+        /**
+         * Binds the sender for the duration of a task
          */
-        public static void touch(DecreeSender sender) {
-            synchronized (context) {
-                context.put(Thread.currentThread(), sender);
+        private interface Scope {
+
+            DecreeSender get();
 
-                if (cl.flip()) {
-                    Enumeration<Thread> contextKeys = context.keys();
+            void run(DecreeSender sender, Runnable task);
 
-                    while (contextKeys.hasMoreElements()) {
-                        Thread thread = contextKeys.nextElement();
-                        if (!thread.isAlive()) {
-                            context.remove(thread);
+            /**
+             * Use a {@code ScopedValue} if the runtime supports it, otherwise a thread local.<br>
+             * {@code ScopedValue} is not available when compiling for Java 17, so it is accessed through method handles.
+             * @return The scope
+             */
+            static Scope create() {
+                try {
+                    Class<?> type = Class.forName("java.lang.ScopedValue");
+                    Class<?> carrier = Class.forName("java.lang.ScopedValue$Carrier");
+                    MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+                    Object key = lookup.findStatic(type, "newInstance", MethodType.methodType(type)).invoke();
+                    MethodHandle isBound = lookup.findVirtual(type, "isBound", MethodType.methodType(boolean.class)).bindTo(key);
+                    MethodHandle value = lookup.findVirtual(type, "get", MethodType.methodType(Object.class)).bindTo(key);
+                    MethodHandle where = MethodHandles.insertArguments(lookup.findStatic(type, "where", MethodType.methodType(carrier, type, Object.class)), 0, key);
+                    MethodHandle run = lookup.findVirtual(carrier, "run", MethodType.methodType(void.class, Runnable.class));
+
+                    // Exercise both the bind and the read path: preview versions refuse to run without --enable-preview,
+                    // and the read path differs between versions (the final orElse rejects null)
+                    Object probe = new Object();
+                    Object[] read = new Object[1];
+                    if ((boolean) isBound.invoke()) {
+                        throw new IllegalStateException("ScopedValue bound outside of a scope");
+                    }
+                    run.invoke(where.invoke(probe), (Runnable) () -> {
+                        try {
+                            read[0] = (boolean) isBound.invoke() ? value.invoke() : null;
+                        } catch (Throwable e) {
+                            throw new IllegalStateException(e);
                         }
+                    });
+                    if (read[0] != probe) {
+                        throw new IllegalStateException("ScopedValue did not read back its binding");
                     }
+
+                    return new Scope() {
+                        @Override
+                        public DecreeSender get() {
+                            try {
+                                return (boolean) isBound.invoke() ? (DecreeSender) value.invoke() : null;
+                            } catch (Throwable e) {
+                                throw new IllegalStateException(e);
+                            }
+                        }
+
+                        @Override
+                        public void run(DecreeSender sender, Runnable task) {
+                            try {
+                                run.invoke(where.invoke(sender), task);
+                            } catch (RuntimeException | Error e) {
+                                throw e;
+                            } catch (Throwable e) {
+                                throw new IllegalStateException(e);
+                            }
+                        }
+                    };
+                } catch (Throwable e) {
+                    ThreadLocal<DecreeSender> local = new ThreadLocal<>();
+                    return new Scope() {
+                        @Override
+                        public DecreeSender get() {
+                            return local.get();
+                        }
+
+                        @Override
+                        public void run(DecreeSender sender, Runnable task) {
+                            DecreeSender previous = local.get();
+                            local.set(sender);
+                            try {
+                                task.run();
+                            } finally {
+                                if (previous == null) {
+                                    local.remove();
+                                } else {
+                                    local.set(previous);
+                                }
+                            }
+                        }
+                    };
                 }
             }
         }
     }
 
+    /**
+     * Dispatch tracing.<br>
+     * Records structured events of the commands and tab completions of traced senders into a fixed set of ring buffers shared by all threads.
+     * Messages are only built when the events are dumped (see {@link #dump(UUID)}).<br>
+     * When nobody is traced, recording costs a single branch: check {@link #enabled} before calling {@link #record(Event, Object, Object, long)}.
+     */
+    public static class Trace {
+
+        /**
+         * Whether any sender is traced
+         */
+        public static volatile boolean enabled = false;
+
+        /**
+         * The identifier used for the console (and other non-player senders)
+         */
+        public static final UUID CONSOLE = new UUID(0, 0);
+
+        /**
+         * The amount of events kept per ring
+         */
+        private static final int CAPACITY = 256;
+
+        /**
+         * The amount of rings (a power of two). Threads are spread over them, so recording on many threads at once rarely contends.
+         */
+        private static final int STRIPES = Integer.highestOneBit(Math.max(1, Math.min(16, Runtime.getRuntime().availableProcessors())) * 2 - 1);
+
+        private static final Set<UUID> traced = ConcurrentHashMap.newKeySet();
+        private static final Ring[] rings = new Ring[STRIPES];
+        static {
+            for (int i = 0; i < STRIPES; i++) {
+                rings[i] = new Ring();
+            }
+        }
+        private static final ThreadLocal<UUID> current = new ThreadLocal<>();
+
+        /**
+         * The kinds of traced events
+         */
+        public enum Event {
+            /**
+             * A command or tab completion was received. Subject: the input
+             */
+            DISPATCH,
+            /**
+             * A node was matched. Subject: the {@link Decreed}, detail: the input, value: the tier
+             */
+            MATCH,
+            /**
+             * A node was hidden from the sender. Subject: the {@link Decreed}, detail: the reason
+             */
+            MISMATCH,
+            /**
+             * A parameter was bound. Subject: the parameter, detail: the value
+             */
+            BIND,
+            /**
+             * A value could not be parsed into a parameter. Subject: the parameter, detail: the failure message
+             */
+            PARSE_FAILURE,
+            /**
+             * A dispatch finished. Subject: a description, value: the time it took in nanoseconds
+             */
+            TIMING
+        }
+
+        /**
+         * Start tracing a sender
+         * @param id The {@link UUID} of the player, or {@link #CONSOLE}
+         */
+        public static void start(UUID id) {
+            traced.add(id);
+            enabled = true;
+        }
+
+        /**
+         * Stop tracing a sender and drop its events
+         * @param id The {@link UUID} of the player, or {@link #CONSOLE}
+         */
+        public static void stop(UUID id) {
+            traced.remove(id);
+            enabled = !traced.isEmpty();
+            for (Ring r : rings) {
+                r.clear(id);
+            }
+        }
+
+        /**
+         * @param id The {@link UUID} of the player, or {@link #CONSOLE}
+         * @return Whether the sender is traced
+         */
+        public static boolean isTraced(UUID id) {
+            return traced.contains(id);
+        }
+
+        /**
+         * Get the trace identifier of a sender
+         * @param sender The sender
+         * @return The {@link UUID} of the player, or {@link #CONSOLE}
+         */
+        public static UUID id(DecreeSender sender) {
+            return sender.isPlayer() ? sender.player().getUniqueId() : CONSOLE;
+        }
+
+        /**
+         * Start recording events on this thread for a sender, if it is traced
+         * @param sender The sender of the dispatch
+         * @param input The input of the dispatch
+         * @return The {@link System#nanoTime()} at which the dispatch started, to pass to {@link #end(String, long)}
+         */
+        public static long begin(DecreeSender sender, String input) {
+            UUID id = id(sender);
+            if (traced.contains(id)) {
+                current.set(id);
+                record(Event.DISPATCH, input, null, 0);
+            } else {
+                current.remove();
+            }
+            return System.nanoTime();
+        }
+
+        /**
+         * Stop recording events on this thread. Call this in a finally block after every dispatch (even if {@link #enabled} is false),
+         * so a pooled thread does not keep recording for the sender.
+         * @param description A description of the dispatch
+         * @param start The {@link System#nanoTime()} at which the dispatch started
+         */
+        public static void end(String description, long start) {
+            if (current.get() != null) {
+                try {
+                    record(Event.TIMING, description, null, System.nanoTime() - start);
+                } finally {
+                    current.remove();
+                }
+            }
+        }
+
+        /**
+         * @return The identifier of the sender this thread is recording events for, or null
+         */
+        private static UUID current() {
+            return current.get();
+        }
+
+        /**
+         * Run a task recording events for a sender (carried over from another thread by {@link Context#wrap(Runnable)}).
+         * What this thread recorded for before is restored afterwards.
+         * @param id The identifier of the sender, or null to record nothing
+         * @param task The task
+         */
+        private static void resume(UUID id, Runnable task) {
+            UUID previous = current.get();
+            if (id == null || !traced.contains(id)) {
+                current.remove();
+            } else {
+                current.set(id);
+            }
+            try {
+                task.run();
+            } finally {
+                if (previous == null) {
+                    current.remove();
+                } else {
+                    current.set(previous);
+                }
+            }
+        }
+
+        /**
+         * Record an event for the sender this thread is dispatching for (if it is traced)
+         * @param event The kind of event
+         * @param subject The subject of the event
+         * @param detail The detail of the event
+         * @param value The value of the event
+         */
+        public static void record(Event event, Object subject, Object detail, long value) {
+            UUID id = current.get();
+            if (id != null) {
+                rings[System.identityHashCode(Thread.currentThread()) & (STRIPES - 1)].add(id, event, subject, detail, value);
+            }
+        }
+
+        /**
+         * Build the messages of the recorded events of a sender, oldest first
+         * @param id The {@link UUID} of the player, or {@link #CONSOLE}
+         * @return The messages
+         */
+        public static KList<String> dump(UUID id) {
+            KList<long[]> order = new KList<>();
+            KList<String> messages = new KList<>();
+            for (Ring r : rings) {
+                r.collect(id, order, messages);
+            }
+            Integer[] indices = new Integer[order.size()];
+            for (int i = 0; i < indices.length; i++) {
+                indices[i] = i;
+            }
+            Arrays.sort(indices, Comparator.comparingLong(i -> order.get(i)[0]));
+            KList<String> sorted = new KList<>();
+            long first = indices.length == 0 ? 0 : order.get(indices[0])[0];
+            for (Integer i : indices) {
+                sorted.add(C.GRAY + "+" + Form.f((order.get(i)[0] - first) / 1_000_000D, 2) + "ms " + messages.get(i));
+            }
+            return sorted;
+        }
+
+        /**
+         * Fixed-size buffer of events, shared by the threads of its stripe
+         */
+        private static final class Ring {
+            private final long[] times = new long[CAPACITY];
+            private final UUID[] senders = new UUID[CAPACITY];
+            private final Event[] events = new Event[CAPACITY];
+            private final Object[] subjects = new Object[CAPACITY];
+            private final Object[] details = new Object[CAPACITY];
+            private final long[] values = new long[CAPACITY];
+            private int head = 0;
+
+            private synchronized void add(UUID sender, Event event, Object subject, Object detail, long value) {
+                times[head] = System.nanoTime();
+                senders[head] = sender;
+                events[head] = event;
+                subjects[head] = subject;
+                details[head] = detail;
+                values[head] = value;
+                head = (head + 1) % CAPACITY;
+            }
+
+            private synchronized void clear(UUID sender) {
+                for (int i = 0; i < CAPACITY; i++) {
+                    if (sender.equals(senders[i])) {
+                        senders[i] = null;
+                        subjects[i] = null;
+                        details[i] = null;
+                    }
+                }
+            }
+
+            private synchronized void collect(UUID sender, KList<long[]> order, KList<String> messages) {
+                for (int i = 0; i < CAPACITY; i++) {
+                    if (sender.equals(senders[i])) {
+                        order.add(new long[]{times[i]});
+                        messages.add(message(events[i], subjects[i], details[i], values[i]));
+                    }
+                }
+            }
+
+            private static String message(Event event, Object subject, Object detail, long value) {
+                return switch (event) {
+                    case DISPATCH -> C.GREEN + "Dispatch: " + C.GOLD + subject;
+                    case MATCH -> C.GREEN + "Matched " + C.GOLD + ((Decreed) subject).getPath() + C.GREEN + " with " + C.GOLD + detail + C.GREEN + ": " + (value == 0 ? C.RED + "NO MATCH - 0" : "tier " + value);
+                    case MISMATCH -> C.RED + "Hid " + C.GOLD + ((Decreed) subject).getPath() + C.RED + " because of " + C.GOLD + detail;
+                    case BIND -> C.GREEN + "Bound " + C.GOLD + subject + C.GREEN + " → " + C.GOLD + detail;
+                    case PARSE_FAILURE -> C.RED + "Could not parse into " + C.GOLD + subject + C.RED + ": " + C.GOLD + detail;
+                    case TIMING -> C.GREEN + String.valueOf(subject) + " took " + C.GOLD + Form.f(value / 1_000_000D, 3) + "ms";
+                };
+            }
+        }
+    }
+
+    /**
+     * Registry of {@link DecreeSender}s.<br>
+     * Shares a single {@link BukkitAudiences} and keeps one sender per online player (and one for the console),
+     * so senders are not rebuilt for every command, tab completion and debug message.
+     */
+    public static class Senders {
+
+        /**
+         * The audience provider for the plugin
+         */
+        private final BukkitAudiences audiences;
+
+        /**
+         * Cached senders of online players
+         */
+        private final ConcurrentHashMap<UUID, DecreeSender> players = new ConcurrentHashMap<>();
+
+        /**
+         * Players that are quitting. They still count as online until the end of the tick they quit in, so they are not cached until then.
+         */
+        private final Set<UUID> leaving = ConcurrentHashMap.newKeySet();
+
+        /**
+         * The sender of the console
+         */
+        private final DecreeSender console;
+
+        /**
+         * The plugin to schedule tasks for
+         */
+        private final Plugin plugin;
+
+        private Senders(Plugin plugin) {
+            this.plugin = plugin;
+            audiences = BukkitAudiences.create(plugin);
+            console = new DecreeSender(Bukkit.getConsoleSender(), "", audiences.console());
+        }
+
+        /**
+         * Get the {@link DecreeSender} of a command sender
+         * @param sender The command sender
+         * @return The cached sender for online players and the console, a new sender for others (like command blocks)
+         */
+        public DecreeSender get(CommandSender sender) {
+            if (sender instanceof Player player && player.isOnline()) {
+                UUID id = player.getUniqueId();
+                DecreeSender cached = players.get(id);
+                if (cached != null) {
+                    return cached;
+                }
+                DecreeSender created = new DecreeSender(player, "", audiences.player(player));
+                if (leaving.contains(id)) {
+                    return created;
+                }
+                cached = players.putIfAbsent(id, created);
+                if (cached != null) {
+                    return cached;
+                }
+                // The player may have quit while this was cached (by a command or completion in flight), do not keep it
+                if (leaving.contains(id) || !player.isOnline()) {
+                    players.remove(id, created);
+                }
+                return created;
+            }
+            if (sender instanceof ConsoleCommandSender) {
+                return console;
+            }
+            return new DecreeSender(sender, "", audiences.sender(sender));
+        }
+
+        /**
+         * @return The {@link DecreeSender} of the console
+         */
+        public DecreeSender console() {
+            return console;
+        }
+
+        /**
+         * Evict the cached sender of a player that quits. It is not cached again until the next tick, when they no longer count as online.
+         * @param player The player
+         */
+        public void remove(Player player) {
+            UUID id = player.getUniqueId();
+            leaving.add(id);
+            players.remove(id);
+            if (plugin.isEnabled()) {
+                Bukkit.getScheduler().runTask(plugin, () -> leaving.remove(id));
+            } else {
+                leaving.remove(id);
+            }
+        }
+
+        /**
+         * Clear the cache and close the audience provider
+         */
+        private void close() {
+            players.clear();
+            leaving.clear();
+            audiences.close();
+        }
+    }
+
+    /**
+     * Snapshot service of the server state.<br>
+     * The main thread captures a new {@link ServerSnapshot} every tick (and on join, quit, world load and world unload),
+     * and publishes it through a volatile reference. Parsing and tab completion run off the main thread, so they read the snapshot
+     * instead of calling into Bukkit.
+     */
+    public static class Server {
+
+        /**
+         * The latest snapshot
+         */
+        private static volatile ServerSnapshot snapshot = ServerSnapshot.EMPTY;
+
+        /**
+         * The plugin the refresh is scheduled for
+         */
+        private static Plugin plugin;
+
+        /**
+         * The task refreshing the snapshot every tick
+         */
+        private static BukkitTask task;
+
+        /**
+         * @return The latest snapshot
+         */
+        public static ServerSnapshot get() {
+            return snapshot;
+        }
+
+        /**
+         * Capture a new snapshot. Must run on the main thread.
+         * @param leaving A player that is leaving (but still online), or null
+         * @param unloading A world that is unloading (but still loaded), or null
+         */
+        public static void refresh(@Nullable Player leaving, @Nullable World unloading) {
+            snapshot = ServerSnapshot.capture(snapshot, leaving, unloading);
+        }
+
+        /**
+         * Run something that must run on the main thread, and wait for it.
+         * Use this for the (rare) lookups the snapshot does not cover, like the block a player looks at.
+         * @param callable What to run
+         * @param <T> The type of the result
+         * @return The result, or null if it failed or did not run within a second
+         */
+        public static <T> @Nullable T sync(Callable<T> callable) {
+            try {
+                if (Bukkit.isPrimaryThread()) {
+                    return callable.call();
+                }
+                Plugin p = plugin;
+                return p == null ? null : Bukkit.getScheduler().callSyncMethod(p, Context.wrap(callable)).get(1, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            } catch (Exception e) {
+                return null;
+            }
+        }
+
+        /**
+         * Start refreshing the snapshot every tick. Does nothing if it is already running. Must run on the main thread.
+         * @param plugin The plugin to schedule the refresh for
+         */
+        private static synchronized void start(Plugin plugin) {
+            if (task == null) {
+                Server.plugin = plugin;
+                refresh(null, null);
+                task = Bukkit.getScheduler().runTaskTimer(plugin, () -> refresh(null, null), 1, 1);
+            }
+        }
+
+        /**
+         * Stop refreshing the snapshot
+         */
+        private static synchronized void stop() {
+            if (task != null) {
+                task.cancel();
+                task = null;
+                plugin = null;
+            }
+        }
+    }
+
+    /**
+     * Command execution engine.<br>
+     * Commands run on threads owned by the system, not on the shared Bukkit async pool: a fixed pool of {@link DecreeSettings#commandThreads} threads,
+     * or a virtual thread per command if that is 0 (on Java 21+, falling back to a pool otherwise).<br>
+     * Commands of the same sender run one at a time, in the order they were sent. Commands of different senders run in parallel.
+     * A sender may have at most {@link DecreeSettings#commandQueue} commands waiting (counting the one running), further commands are refused.<br>
+     * Commands may {@link #defer(CompletionStage) suspend} (ex: while the sender picks an option), which holds the next commands of the sender, but not a thread.
+     */
+    public static class Commands {
+
+        /**
+         * The system to run commands for
+         */
+        private final DecreeSystem system;
+
+        /**
+         * The threads running commands
+         */
+        private final ExecutorService executor;
+
+        /**
+         * Whether {@link #executor} creates a virtual thread per command
+         */
+        @Getter
+        private final boolean virtual;
+
+        /**
+         * The commands of each sender with commands waiting or running. The first command is the one that is running (or about to).
+         */
+        private final ConcurrentHashMap<CommandSender, ArrayDeque<Runnable>> lanes = new ConcurrentHashMap<>();
+
+        private final AtomicInteger queued = new AtomicInteger();
+        private final AtomicInteger active = new AtomicInteger();
+
+        /**
+         * Runs the continuations of suspended commands (ex: after the sender picked an option) on {@link #executor}
+         */
+        @Getter
+        private final Executor continuations;
+
+        /**
+         * The work the running command of the current thread suspended (see {@link #defer(CompletionStage)})
+         */
+        private static final ThreadLocal<KList<CompletableFuture<?>>> deferred = new ThreadLocal<>();
+
+        /**
+         * The suspended work of all commands that did not finish yet, cancelled by {@link #close()}
+         */
+        private final Set<CompletableFuture<?>> suspended = ConcurrentHashMap.newKeySet();
+
+        private Commands(DecreeSystem system) {
+            this.system = system;
+            ExecutorService virtualExecutor = settings.commandThreads <= 0 ? newVirtualExecutor() : null;
+            this.virtual = virtualExecutor != null;
+            this.executor = virtual ? virtualExecutor : Executors.newFixedThreadPool(Math.max(1, settings.commandThreads <= 0 ? Runtime.getRuntime().availableProcessors() : settings.commandThreads), r -> {
+                Thread thread = new Thread(r, "Decree Command Executor");
+                thread.setDaemon(true);
+                return thread;
+            });
+            this.continuations = task -> {
+                try {
+                    executor.execute(() -> {
+                        active.incrementAndGet();
+                        try {
+                            task.run();
+                        } finally {
+                            active.decrementAndGet();
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    // Stopped: the suspended command was already cancelled by close(), drop its continuation
+                }
+            };
+            system.debug(C.GREEN + "Running commands on " + (virtual ? "virtual threads" : "a pool of platform threads"));
+        }
+
+        /**
+         * Create an executor that runs each task on a new virtual thread. Looked up at runtime, so this also compiles and runs on Java 17.
+         * @return The executor, or null if virtual threads are not available
+         */
+        private ExecutorService newVirtualExecutor() {
+            try {
+                return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            } catch (ReflectiveOperationException e) {
+                system.debug(C.YELLOW + "Virtual threads are not available (Java 21+ required), using a pool of platform threads");
+                return null;
+            }
+        }
+
+        /**
+         * Run a command after the earlier commands of its sender
+         * @param sender The sender of the command
+         * @param command The command
+         * @return True if the command was queued, false if the sender has too many commands waiting or the system is stopped
+         */
+        public boolean submit(CommandSender sender, Runnable command) {
+            if (executor.isShutdown()) {
+                system.getSenders().get(sender).sendMessage(C.RED + "Commands are not accepted right now, the command system is stopped.");
+                return false;
+            }
+            boolean[] start = new boolean[1];
+            boolean[] full = new boolean[1];
+            lanes.compute(sender, (s, lane) -> {
+                if (lane == null) {
+                    lane = new ArrayDeque<>();
+                    start[0] = true;
+                } else if (lane.size() >= settings.commandQueue) {
+                    full[0] = true;
+                    return lane;
+                }
+                lane.add(command);
+                return lane;
+            });
+            if (full[0]) {
+                system.getSenders().get(sender).sendMessage(C.RED + "You are sending commands faster than they can run. Please wait a moment.");
+                return false;
+            }
+            queued.incrementAndGet();
+            if (start[0]) {
+                schedule(sender);
+            }
+            return true;
+        }
+
+        /**
+         * @return The amount of commands waiting to run
+         */
+        public int getQueued() {
+            return queued.get();
+        }
+
+        /**
+         * @return The amount of commands running
+         */
+        public int getActive() {
+            return active.get();
+        }
+
+        /**
+         * @return The amount of senders with commands waiting or running
+         */
+        public int getSenders() {
+            return lanes.size();
+        }
+
+        /**
+         * Run the first command of a sender on the executor
+         * @param sender The sender
+         */
+        private void schedule(CommandSender sender) {
+            try {
+                executor.execute(() -> runNext(sender));
+            } catch (RejectedExecutionException e) {
+                // Stopped, drop the commands of the sender
+                ArrayDeque<Runnable> dropped = lanes.remove(sender);
+                if (dropped != null) {
+                    queued.addAndGet(-dropped.size());
+                }
+            }
+        }
+
+        /**
+         * Run the first command of a sender, then schedule the next one (if any).<br>
+         * Scheduling instead of looping lets other senders take turns on a pool.
+         * @param sender The sender
+         */
+        private void runNext(CommandSender sender) {
+            Runnable[] command = new Runnable[1];
+            lanes.computeIfPresent(sender, (s, lane) -> {
+                command[0] = lane.peek();
+                return lane;
+            });
+            if (command[0] == null) {
+                return;
+            }
+
+            queued.decrementAndGet();
+            active.incrementAndGet();
+            KList<CompletableFuture<?>> work = new KList<>();
+            deferred.set(work);
+            try {
+                command[0].run();
+            } catch (Throwable e) {
+                system.debug(C.RED + "Command of " + C.GOLD + sender.getName() + C.RED + " failed: " + e);
+                e.printStackTrace();
+            } finally {
+                deferred.remove();
+                active.decrementAndGet();
+            }
+
+            if (work.isEmpty()) {
+                advance(sender);
+            } else {
+                // Hold the next commands of the sender (but no thread) until the suspended work is done
+                for (CompletableFuture<?> future : work) {
+                    suspended.add(future);
+                    future.whenComplete((ignored, e) -> suspended.remove(future));
+                }
+                if (executor.isShutdown()) {
+                    // Stopped while the command ran, close() may have missed this work
+                    work.forEach(future -> future.cancel(false));
+                }
+                CompletableFuture.allOf(work.toArray(new CompletableFuture<?>[0])).whenComplete((ignored, e) -> advance(sender));
+            }
+        }
+
+        /**
+         * Suspend the running command until some work is done: the next command of its sender only runs after it.<br>
+         * Use this for work that waits without a thread, like asking the sender to pick an option.
+         * Does nothing if the current thread is not running a command.
+         * @param work The work
+         */
+        public static void defer(CompletionStage<?> work) {
+            KList<CompletableFuture<?>> suspended = deferred.get();
+            if (suspended != null) {
+                suspended.add(work.toCompletableFuture());
+            }
+        }
+
+        /**
+         * Drop the first command of a sender, and run the next one (if any)
+         * @param sender The sender
+         */
+        private void advance(CommandSender sender) {
+            boolean[] more = new boolean[1];
+            lanes.computeIfPresent(sender, (s, lane) -> {
+                lane.poll();
+                more[0] = !lane.isEmpty();
+                return more[0] ? lane : null;
+            });
+            if (more[0]) {
+                schedule(sender);
+            }
+        }
+
+        /**
+         * Stop running commands. Commands that are waiting are dropped, and suspended commands (ex: waiting for the sender to pick an option) are cancelled.
+         */
+        private void close() {
+            executor.shutdownNow();
+            for (CompletableFuture<?> future : suspended) {
+                future.cancel(false);
+            }
+            suspended.clear();
+            lanes.clear();
+            queued.set(0);
+        }
+    }
+
+    /**
+     * Tab completion engine.<br>
+     * Completions are computed on worker threads, never on the main thread. The caller waits at most {@link DecreeSettings#tabDeadline}
+     * milliseconds, after which the completion is cancelled.<br>
+     * Requests are coalesced per sender: at most one completion of a sender runs at a time, and completions of a sender start at least
+     * {@link DecreeSettings#tabInterval} milliseconds apart. Requests waiting for that are queued, and a newer request replaces the queued one.
+     * Replaced, cancelled and failed requests are answered with the last completions of the sender (narrowed to what they entered),
+     * if those were for the same argument of the same command.<br>
+     * On Paper, completions are answered from the {@code AsyncTabCompleteEvent} (off the main thread),
+     * so the synchronous {@link #onTabComplete(CommandSender, Command, String[])} is not even called.
+     */
+    public static class Tabs {
+
+        private static final String PAPER_EVENT = "com.destroystokyo.paper.event.server.AsyncTabCompleteEvent";
+
+        /**
+         * The system to complete for
+         */
+        private final DecreeSystem system;
+
+        /**
+         * The worker threads
+         */
+        private final ScheduledExecutorService workers;
+
+        /**
+         * The completion lane of each sender
+         */
+        private final ConcurrentHashMap<CommandSender, Lane> lanes = new ConcurrentHashMap<>();
+
+        /**
+         * The completion caches
+         */
+        private final TabCache cache;
+
+        private Tabs(DecreeSystem system, Plugin plugin) {
+            this.system = system;
+            this.cache = new TabCache(system.getRoots().values());
+            this.workers = Executors.newScheduledThreadPool(Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 2)), r -> {
+                Thread thread = new Thread(r, "Decree Tab Completion");
+                thread.setDaemon(true);
+                return thread;
+            });
+            if (PaperLib.isPaper()) {
+                hookPaper(plugin);
+            }
+        }
+
+        /**
+         * Tab complete a command on a worker thread, and wait for it at most {@link DecreeSettings#tabDeadline} milliseconds
+         * @param commandSender The sender
+         * @param command The name of the root command
+         * @param arguments The arguments
+         * @return The completions, or the last completions of the sender for the same argument if the completion was replaced by a newer one, too slow or failed
+         */
+        public KList<String> complete(CommandSender commandSender, String command, String[] arguments) {
+            Lane lane = lanes.computeIfAbsent(commandSender, s -> new Lane());
+            Request request = new Request(commandSender, command, arguments);
+            synchronized (lane) {
+                if (lane.queued != null) {
+                    // Replaced before it started
+                    lane.queued.answer.complete(null);
+                }
+                lane.queued = request;
+                pump(lane);
+            }
+
+            KList<String> completions = null;
+            try {
+                completions = request.answer.get(DecreeSystem.settings.tabDeadline, TimeUnit.MILLISECONDS);
+                if (completions == null) {
+                    system.debug(C.YELLOW + "Tab completion of " + C.GOLD + command + " " + String.join(" ", arguments) + C.YELLOW + " was replaced by a newer one");
+                }
+            } catch (TimeoutException e) {
+                cancel(lane, request);
+                system.debug(C.YELLOW + "Tab completion of " + C.GOLD + command + " " + String.join(" ", arguments) + C.YELLOW + " took longer than " + DecreeSystem.settings.tabDeadline + "ms");
+            } catch (ExecutionException e) {
+                system.debug(C.RED + "Tab completion of " + C.GOLD + command + " " + String.join(" ", arguments) + C.RED + " failed: " + e.getCause());
+            } catch (InterruptedException e) {
+                cancel(lane, request);
+                Thread.currentThread().interrupt();
+            }
+            return completions == null ? lane.last(request) : completions;
+        }
+
+        /**
+         * Start the queued request of a lane, if none is running and the {@link DecreeSettings#tabInterval interval} passed.
+         * If it did not pass yet, check again once it does. Must hold the lock of the lane.
+         * @param lane The lane
+         */
+        private void pump(Lane lane) {
+            if (lane.running != null || lane.queued == null || lane.waking) {
+                return;
+            }
+            Request request = lane.queued;
+            try {
+                long wait = lane.started + DecreeSystem.settings.tabInterval - System.currentTimeMillis();
+                if (wait > 0) {
+                    lane.waking = true;
+                    workers.schedule(() -> {
+                        synchronized (lane) {
+                            lane.waking = false;
+                            pump(lane);
+                        }
+                    }, wait, TimeUnit.MILLISECONDS);
+                    return;
+                }
+                lane.queued = null;
+                lane.running = request;
+                lane.started = System.currentTimeMillis();
+                workers.execute(() -> run(lane, request));
+            } catch (RejectedExecutionException e) {
+                // Shutting down
+                lane.queued = null;
+                lane.running = null;
+                lane.waking = false;
+                request.answer.complete(null);
+            }
+        }
+
+        /**
+         * Run a request of a lane, then start the next one
+         * @param lane The lane
+         * @param request The request
+         */
+        private void run(Lane lane, Request request) {
+            synchronized (lane) {
+                if (request.cancelled) {
+                    lane.running = null;
+                    pump(lane);
+                    return;
+                }
+                request.worker = Thread.currentThread();
+            }
+            try {
+                KList<String> completions = system.tab(request.sender, request.command, request.arguments);
+                if (!Thread.currentThread().isInterrupted()) {
+                    lane.last = new Last(request.path, completions);
+                }
+                request.answer.complete(completions);
+            } catch (Throwable e) {
+                request.answer.completeExceptionally(e);
+            } finally {
+                synchronized (lane) {
+                    request.worker = null;
+                    Thread.interrupted();
+                    lane.running = null;
+                    pump(lane);
+                }
+            }
+        }
+
+        /**
+         * Cancel a request that is no longer waited for: drop it if it is queued, interrupt it if it is running
+         * @param lane The lane of the request
+         * @param request The request
+         */
+        private void cancel(Lane lane, Request request) {
+            synchronized (lane) {
+                request.cancelled = true;
+                if (lane.queued == request) {
+                    lane.queued = null;
+                } else if (request.worker != null) {
+                    request.worker.interrupt();
+                }
+            }
+        }
+
+        /**
+         * Recalculate what a sender may see in completions. Call this after their permissions changed.
+         * @param sender The sender
+         */
+        public void invalidate(CommandSender sender) {
+            cache.invalidate(sender);
+        }
+
+        /**
+         * Forget a sender (ex: when they leave)
+         * @param sender The sender
+         */
+        private void forget(CommandSender sender) {
+            lanes.remove(sender);
+            cache.invalidate(sender);
+        }
+
+        /**
+         * Drop all cached completions. Call this after changing the possibilities of handlers.
+         */
+        public void invalidateAll() {
+            cache.invalidateAll();
+        }
+
+        /**
+         * Answer Paper's asynchronous tab completion event for the commands of the system.<br>
+         * Paper is not a compile-time dependency, so the event is accessed through method handles.
+         * @param plugin The plugin to register the listener for
+         */
+        private void hookPaper(Plugin plugin) {
+            try {
+                Class<? extends Event> type = Class.forName(PAPER_EVENT).asSubclass(Event.class);
+                MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+                MethodHandle isCommand = lookup.findVirtual(type, "isCommand", MethodType.methodType(boolean.class));
+                MethodHandle isHandled = lookup.findVirtual(type, "isHandled", MethodType.methodType(boolean.class));
+                MethodHandle getBuffer = lookup.findVirtual(type, "getBuffer", MethodType.methodType(String.class));
+                MethodHandle getSender = lookup.findVirtual(type, "getSender", MethodType.methodType(CommandSender.class));
+                MethodHandle setCompletions = lookup.findVirtual(type, "setCompletions", MethodType.methodType(void.class, List.class));
+                MethodHandle setHandled = lookup.findVirtual(type, "setHandled", MethodType.methodType(void.class, boolean.class));
+
+                Bukkit.getPluginManager().registerEvent(type, system, EventPriority.NORMAL, (listener, event) -> {
+                    if (!type.isInstance(event)) {
+                        return;
+                    }
+                    try {
+                        if (!(boolean) isCommand.invoke(event) || (boolean) isHandled.invoke(event)) {
+                            return;
+                        }
+                        String buffer = (String) getBuffer.invoke(event);
+                        int space = buffer.indexOf(' ');
+                        if (space < 0) {
+                            // Completing the command itself
+                            return;
+                        }
+                        String label = buffer.substring(buffer.startsWith("/") ? 1 : 0, space);
+                        label = label.substring(label.indexOf(':') + 1);
+                        if (!system.getRoots().containsKey(label)) {
+                            return;
+                        }
+                        String[] arguments = buffer.substring(space + 1).split(" ", -1);
+                        setCompletions.invoke(event, complete((CommandSender) getSender.invoke(event), label, arguments));
+                        setHandled.invoke(event, true);
+                    } catch (Throwable e) {
+                        system.debug(C.RED + "Asynchronous tab completion failed: " + e);
+                    }
+                }, plugin);
+                system.debug(C.GREEN + "Using asynchronous tab completion");
+            } catch (ClassNotFoundException | NoSuchMethodException | IllegalAccessException e) {
+                system.debug(C.YELLOW + "Asynchronous tab completion is not available: " + e);
+            }
+        }
+
+        /**
+         * Stop the worker threads
+         */
+        private void close() {
+            workers.shutdownNow();
+            lanes.clear();
+        }
+
+        /**
+         * The completion requests of a sender. Guarded by its own lock.
+         */
+        private static final class Lane {
+            private Request queued;
+            private Request running;
+            private boolean waking;
+            private long started;
+
+            /**
+             * The last completions computed for the sender
+             */
+            private volatile Last last;
+
+            /**
+             * The last completions, if they were for the same argument as a request, narrowed to what was entered
+             * @param request The request
+             * @return The completions starting with the argument being entered, or none if the last completions were for another argument
+             */
+            private KList<String> last(Request request) {
+                Last known = last;
+                if (known == null || !known.path.equals(request.path)) {
+                    return new KList<>();
+                }
+                Completions completions = new Completions(request.current(), DecreeSystem.settings.tabLimit);
+                completions.offerAll(known.completions);
+                return completions.toList();
+            }
+        }
+
+        /**
+         * Completions for an argument
+         * @param path The command and the arguments before the completed argument (see {@link Request#path})
+         * @param completions The completions
+         */
+        private record Last(String path, KList<String> completions) {}
+
+        /**
+         * A request for completions
+         */
+        private static final class Request {
+            private final CommandSender sender;
+            private final String command;
+            private final String[] arguments;
+
+            /**
+             * The command and the (folded) arguments before the one being entered. Identifies which argument is completed.
+             */
+            private final String path;
+            private final CompletableFuture<KList<String>> answer = new CompletableFuture<>();
+            private boolean cancelled;
+            private Thread worker;
+
+            private Request(CommandSender sender, String command, String[] arguments) {
+                this.sender = sender;
+                this.command = command;
+                this.arguments = arguments;
+                StringBuilder path = new StringBuilder(command);
+                for (int i = 0; i < arguments.length - 1; i++) {
+                    path.append(' ').append(NameTrie.fold(arguments[i]));
+                }
+                this.path = path.toString();
+            }
+
+            /**
+             * @return The argument being entered
+             */
+            private String current() {
+                return arguments.length == 0 ? "" : arguments[arguments.length - 1];
+            }
+        }
+    }
+
     private static class Roots extends ConcurrentHashMap<String, KList<DecreeCategory>> {
 
         private Roots(KList<DecreeCommandExecutor> roots, DecreeSystem system) {
@@ -401,15 +1970,15 @@ public class DecreeSystem implements Listener {
             }
 
             roots.forEach(r -> {
-                if (r.getClass().isAnnotationPresent(Decree.class)) {
+                // Get decree (generated registration if present), names, and category representation for root instance
+                Decree decree = DecreeRegistration.decreeOf(r.getClass());
+                if (decree != null) {
                     rootInstancesSuccess.add(r);
                 } else {
                     rootInstancesFailed.add(r);
                     return;
                 }
 
-                // Get decree, names, and category representation for root instance
-                Decree decree = r.getClass().getDeclaredAnnotation(Decree.class);
                 KList<String> names = new KList<>(decree.name()).qAddAll(Arrays.asList(decree.aliases()));
                 DecreeCategory root = new DecreeCategory(null, r, decree, system);
 
@@ -1,6 +1,8 @@
 package nl.codevs.decree.context;
 
+import nl.codevs.decree.DecreeSystem;
 import nl.codevs.decree.util.DecreeSender;
+import nl.codevs.decree.util.ServerSnapshot;
 import org.bukkit.World;
 
 public class WorldContextHandler implements DecreeContextHandler<World> {
@@ -11,7 +13,12 @@ public class WorldContextHandler implements DecreeContextHandler<World> {
 
     @Override
     public World handle(DecreeSender sender) {
-        return sender.isPlayer() ? sender.player().getWorld() : null;
+        if (!sender.isPlayer()) {
+            return null;
+        }
+        ServerSnapshot server = DecreeSystem.Server.get();
+        ServerSnapshot.PlayerState state = server.player(sender.player().getUniqueId());
+        return state == null ? sender.player().getWorld() : server.world(state.world());
     }
 
     @Override
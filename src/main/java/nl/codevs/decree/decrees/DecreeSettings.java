@@ -2,29 +2,49 @@ package nl.codevs.decree.decrees;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
 import nl.codevs.decree.DecreeSystem;
 import nl.codevs.decree.util.C;
 import nl.codevs.decree.util.DecreeSender;
+import nl.codevs.decree.util.KList;
 import nl.codevs.decree.util.Maths;
 import nl.codevs.decree.virtual.Decree;
 import nl.codevs.decree.virtual.Param;
 import org.apache.logging.log4j.util.TriConsumer;
-import org.bukkit.Bukkit;
 import org.bukkit.Sound;
-import org.bukkit.plugin.Plugin;
+import org.bukkit.entity.Player;
 
 import java.io.File;
-import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.UUID;
 import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 
+/**
+ * Decree settings, and the commands to change them.<br>
+ * The instance in {@link DecreeSystem#settings} is a snapshot: it is replaced (never modified) when the settings change,
+ * either through these commands or because the config file changed on disk (see {@link #watch(File)}).
+ */
 @Decree(name = "decree", aliases = {"dec", "dc"}, description = "Native Decree Commands", permission = "decree")
 public class DecreeSettings implements DecreeCommandExecutor {
 
     private static final Gson gson = new GsonBuilder().setPrettyPrinting().create();
-    private static long lastChanged;
+    /**
+     * The contents of the config file when it was last read or written. Compared instead of the modification time,
+     * which some filesystems only keep to the second (so a quick second edit would look unchanged).
+     */
+    private static volatile String lastContent;
     private static File file;
+    private static Watcher watcher;
 
     @Decree(description = "When entering arguments, should people be allowed to enter 'null'?")
     public void allowNullInput(
@@ -34,9 +54,8 @@ public class DecreeSettings implements DecreeCommandExecutor {
             )
                     Boolean enable
     ){
-        DecreeSystem.settings.allowNullInput = enable == null ? !DecreeSystem.settings.allowNullInput : enable;
+        update(s -> s.allowNullInput = enable == null ? !s.allowNullInput : enable);
         sender().sendMessage(C.GREEN + "Set " + C.GOLD + "allow null input " + C.GREEN + "to: " + C.GOLD + DecreeSystem.settings.allowNullInput);
-        save();
     }
     public boolean allowNullInput = false;
 
@@ -48,9 +67,8 @@ public class DecreeSettings implements DecreeCommandExecutor {
             )
                     Boolean enable
     ){
-        DecreeSystem.settings.commandSound = enable == null ? !DecreeSystem.settings.commandSound : enable;
+        update(s -> s.commandSound = enable == null ? !s.commandSound : enable);
         sender().sendMessage(C.GREEN + "Set " + C.GOLD + "command sound " + C.GREEN + "to: " + C.GOLD + DecreeSystem.settings.commandSound);
-        save();
     }
     public boolean commandSound = true;
 
@@ -62,9 +80,8 @@ public class DecreeSettings implements DecreeCommandExecutor {
             )
                     Boolean enable
     ){
-        DecreeSystem.settings.debug = enable == null ? !DecreeSystem.settings.debug : enable;
+        update(s -> s.debug = enable == null ? !s.debug : enable);
         sender().sendMessage(C.GREEN + "Set " + C.GOLD + "debug " + C.GREEN + "to: " + C.GOLD + DecreeSystem.settings.debug);
-        save();
     }
     public boolean debug = false;
 
@@ -76,9 +93,8 @@ public class DecreeSettings implements DecreeCommandExecutor {
             )
                     Boolean enable
     ){
-        DecreeSystem.settings.debugRuntime = enable == null ? !DecreeSystem.settings.debugRuntime : enable;
+        update(s -> s.debugRuntime = enable == null ? !s.debugRuntime : enable);
         sender().sendMessage(C.GREEN + "Set " + C.GOLD + "debugRuntime " + C.GREEN + "to: " + C.GOLD + DecreeSystem.settings.debugRuntime);
-        save();
     }
     public boolean debugRuntime;
 
@@ -90,11 +106,10 @@ public class DecreeSettings implements DecreeCommandExecutor {
             )
                     Boolean enable
     ){
-        DecreeSystem.settings.debugMatching = enable == null ? !DecreeSystem.settings.debugMatching : enable;
+        update(s -> s.debugMatching = enable == null ? !s.debugMatching : enable);
         sender().sendMessage(C.GREEN + "Set " + C.GOLD + "debug matching " + C.GREEN + "to: " + C.GOLD + DecreeSystem.settings.debugMatching);
-        save();
     }
-    public boolean debugMatching = true;
+    public boolean debugMatching = false;
 
     @Decree(description = "The maximal number of same-named root commands")
     public void maxRoots(
@@ -103,12 +118,71 @@ public class DecreeSettings implements DecreeCommandExecutor {
                     defaultValue = "10"
             )
                     Integer roots){
-        DecreeSystem.settings.maxRoots = roots;
+        update(s -> s.maxRoots = roots);
         sender().sendMessage(C.GREEN + "Set " + C.GOLD + "max roots " + C.GREEN + "to: " + C.GOLD + DecreeSystem.settings.maxRoots);
-        save();
     }
     public int maxRoots = 10;
 
+    @Decree(description = "The maximal time tab completion may take, in milliseconds. Slower completions are dropped.")
+    public void tabDeadline(
+            @Param(
+                    description = "The deadline in milliseconds",
+                    defaultValue = "50"
+            )
+                    Integer milliseconds){
+        update(s -> s.tabDeadline = milliseconds);
+        sender().sendMessage(C.GREEN + "Set " + C.GOLD + "tab deadline " + C.GREEN + "to: " + C.GOLD + DecreeSystem.settings.tabDeadline + "ms");
+    }
+    public int tabDeadline = 50;
+
+    @Decree(description = "The maximal number of tab completions shown, best matches first")
+    public void tabLimit(
+            @Param(
+                    description = "The maximal amount of completions",
+                    defaultValue = "50"
+            )
+                    Integer completions){
+        update(s -> s.tabLimit = completions);
+        sender().sendMessage(C.GREEN + "Set " + C.GOLD + "tab limit " + C.GREEN + "to: " + C.GOLD + DecreeSystem.settings.tabLimit);
+    }
+    public int tabLimit = 50;
+
+    @Decree(description = "The minimal time between two tab completions of the same sender, in milliseconds. Requests in between are merged.")
+    public void tabInterval(
+            @Param(
+                    description = "The interval in milliseconds",
+                    defaultValue = "20"
+            )
+                    Integer milliseconds){
+        update(s -> s.tabInterval = milliseconds);
+        sender().sendMessage(C.GREEN + "Set " + C.GOLD + "tab interval " + C.GREEN + "to: " + C.GOLD + DecreeSystem.settings.tabInterval + "ms");
+    }
+    public int tabInterval = 20;
+
+    @Decree(description = "The amount of threads running commands. 0 runs every command on its own virtual thread (Java 21+). Takes effect after a restart.")
+    public void commandThreads(
+            @Param(
+                    description = "The amount of threads",
+                    defaultValue = "4"
+            )
+                    Integer threads){
+        update(s -> s.commandThreads = threads);
+        sender().sendMessage(C.GREEN + "Set " + C.GOLD + "command threads " + C.GREEN + "to: " + C.GOLD + DecreeSystem.settings.commandThreads + C.GREEN + " (after a restart)");
+    }
+    public int commandThreads = 4;
+
+    @Decree(description = "The maximal amount of commands of one sender waiting to run. Further commands are refused.")
+    public void commandQueue(
+            @Param(
+                    description = "The maximal amount of waiting commands",
+                    defaultValue = "16"
+            )
+                    Integer commands){
+        update(s -> s.commandQueue = commands);
+        sender().sendMessage(C.GREEN + "Set " + C.GOLD + "command queue " + C.GREEN + "to: " + C.GOLD + DecreeSystem.settings.commandQueue);
+    }
+    public int commandQueue = 16;
+
     @Decree(description = "On argument parsing fail, pass 'null' instead. Can break argument parsing, best to leave 'false'", permission = "settings")
     public void nullOnFailure(
             @Param(
@@ -117,9 +191,8 @@ public class DecreeSettings implements DecreeCommandExecutor {
             )
             Boolean enable
     ){
-        DecreeSystem.settings.nullOnFailure = enable == null ? !DecreeSystem.settings.nullOnFailure : enable;
+        update(s -> s.nullOnFailure = enable == null ? !s.nullOnFailure : enable);
         sender().sendMessage(C.GREEN + "Set " + C.GOLD + "null on failure " + C.GREEN + "to: " + C.GOLD + DecreeSystem.settings.nullOnFailure);
-        save();
     }
     public boolean nullOnFailure = false;
 
@@ -131,9 +204,8 @@ public class DecreeSettings implements DecreeCommandExecutor {
             )
                     Boolean enable
     ){
-        DecreeSystem.settings.pickFirstOnMultiple = enable == null ? !DecreeSystem.settings.pickFirstOnMultiple : enable;
+        update(s -> s.pickFirstOnMultiple = enable == null ? !s.pickFirstOnMultiple : enable);
         sender().sendMessage(C.GREEN + "Set " + C.GOLD + "pick first on multiple " + C.GREEN + "to: " + C.GOLD + DecreeSystem.settings.pickFirstOnMultiple);
-        save();
     }
     public boolean pickFirstOnMultiple = false;
 
@@ -145,16 +217,50 @@ public class DecreeSettings implements DecreeCommandExecutor {
             )
                     String prefix
     ){
-        DecreeSystem.settings.prefix = prefix;
+        update(s -> s.prefix = prefix);
         sender().sendMessage(C.GREEN + "Set " + C.GOLD + "decree prefix " + C.GREEN + "to: " + DecreeSystem.settings.prefix + C.RESET + " ");
-        save();
     }
     public String prefix = C.RED + "[" + C.GREEN + "Decree" + C.RED + "]" + C.RESET;
 
+    @Decree(description = "Show the traced commands and tab completions of a player, and start tracing them if they are not traced yet")
+    public void trace(
+            @Param(
+                    description = "The player to trace",
+                    contextual = true
+            )
+                    Player player
+    ){
+        UUID id = player.getUniqueId();
+        if (!DecreeSystem.Trace.isTraced(id)) {
+            DecreeSystem.Trace.start(id);
+            sender().sendMessage(C.GREEN + "Started tracing " + C.GOLD + player.getName() + C.GREEN + ". Run this again to see what was traced.");
+            return;
+        }
+        KList<String> events = DecreeSystem.Trace.dump(id);
+        sender().sendHeader("Trace of " + player.getName());
+        if (events.isEmpty()) {
+            sender().sendMessage(C.YELLOW + "Nothing was traced yet");
+        } else {
+            events.forEach(e -> sender().sendMessage(e));
+        }
+    }
+
+    @Decree(description = "Stop tracing a player")
+    public void untrace(
+            @Param(
+                    description = "The player to stop tracing",
+                    contextual = true
+            )
+                    Player player
+    ){
+        DecreeSystem.Trace.stop(player.getUniqueId());
+        sender().sendMessage(C.GREEN + "Stopped tracing " + C.GOLD + player.getName());
+    }
+
     /**
      * "What to do with debug messages. Best not to touch. To disable debug, set 'debug' to false."
      */
-    public static BiConsumer<String, Plugin> onDebug = (message, instance) -> new DecreeSender(Bukkit.getConsoleSender(), instance).sendMessage(DecreeSystem.settings.prefix.trim() + C.RESET + " " + message);
+    public static BiConsumer<String, DecreeSender> onDebug = (message, console) -> console.sendMessage(DecreeSystem.settings.prefix.trim() + C.RESET + " " + message);
 
     /**
      * "What to do with sound effects. Best not to touch. To disable sounds, set 'commandSounds' to false."
@@ -189,10 +295,21 @@ public class DecreeSettings implements DecreeCommandExecutor {
     };
 
     /**
-     * Save the config to the file location stored
+     * Apply a change to a copy of the current settings, publish it to {@link DecreeSystem#settings} and save it
+     * @param change The change to apply
+     */
+    private static synchronized void update(Consumer<DecreeSettings> change) {
+        DecreeSettings next = DecreeSystem.settings.copy();
+        change.accept(next);
+        DecreeSystem.settings = next;
+        next.saveToConfig(file);
+    }
+
+    /**
+     * @return A copy of these settings
      */
-    private void save() {
-        saveToConfig(file);
+    public DecreeSettings copy() {
+        return gson.fromJson(gson.toJsonTree(this), DecreeSettings.class);
     }
 
     /**
@@ -202,55 +319,150 @@ public class DecreeSettings implements DecreeCommandExecutor {
      */
     public static DecreeSettings fromConfigJson(File file) {
         DecreeSettings.file = file;
-        DecreeSettings.lastChanged = file.lastModified();
         try {
             if (!file.exists() || file.length() == 0) {
                 file.getParentFile().mkdirs();
                 DecreeSettings new_ = new DecreeSettings();
-                FileWriter f = new FileWriter(file);
-                gson.toJson(new_, DecreeSettings.class, f);
-                f.close();
+                new_.saveToConfig(file);
                 System.out.println(C.GREEN + "Made new Decree config (" + C.YELLOW + file.getParent().replace("\\", "/")  + "/" + file.getName() + C.GREEN + ")");
                 return new_;
             }
+            DecreeSettings loaded = read(file);
             System.out.println(C.GREEN + "Loaded existing Decree config (" + C.YELLOW + file.getParent().replace("\\", "/") + "/" + file.getName() + C.GREEN + ")");
-            return new Gson().fromJson(new FileReader(file), DecreeSettings.class);
-        } catch (IOException e) {
+            return loaded;
+        } catch (IOException | JsonParseException e) {
             e.printStackTrace();
             return null;
         }
     }
 
+    /**
+     * Read settings from a file
+     * @param file The file to read json from
+     * @return The read {@link DecreeSettings}, or null if the file is empty
+     * @throws IOException If the file cannot be read
+     * @throws JsonParseException If the file does not contain valid settings
+     */
+    private static DecreeSettings read(File file) throws IOException, JsonParseException {
+        String content = new String(Files.readAllBytes(file.toPath()), Charset.defaultCharset());
+        DecreeSettings read = gson.fromJson(content, DecreeSettings.class);
+        lastContent = content;
+        return read;
+    }
+
     /**
      * Save the config to
      * @param file a file (path)
      */
     public void saveToConfig(File file) {
+        String content = gson.toJson(this, DecreeSettings.class);
+        try (FileWriter f = new FileWriter(file)) {
+            f.write(content);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return;
+        }
+        System.out.println(C.GREEN + "Saved Decree Decrees");
+        lastContent = content;
+    }
+
+    /**
+     * Watch the config file on a background thread.<br>
+     * When it is changed on disk, it is parsed once and published to {@link DecreeSystem#settings},
+     * so commands and tab completions never have to read the file themselves.<br>
+     * Replaces any previously started watcher.
+     * @param file The config file to watch
+     */
+    public static synchronized void watch(File file) {
+        stopWatching();
         try {
-            FileWriter f = new FileWriter(file);
-            gson.toJson(this, DecreeSettings.class, f);
-            f.close();
-            System.out.println(C.GREEN + "Saved Decree Decrees");
-            lastChanged = file.lastModified();
+            watcher = new Watcher(file);
+            watcher.start();
         } catch (IOException e) {
+            System.out.println(C.RED + "Could not watch the Decree config for changes, it will not be hotloaded");
             e.printStackTrace();
         }
     }
 
     /**
-     * Hotload settings from file
+     * Stop watching the config file
+     */
+    public static synchronized void stopWatching() {
+        if (watcher != null) {
+            watcher.close();
+            watcher = null;
+        }
+    }
+
+    /**
+     * Reload the settings from the file if its contents changed since it was last read or written
+     * @param file The config file
+     */
+    private static synchronized void reload(File file) {
+        if (!file.exists()) {
+            return;
+        }
+        try {
+            String content = new String(Files.readAllBytes(file.toPath()), Charset.defaultCharset());
+            if (content.equals(lastContent)) {
+                return;
+            }
+            DecreeSettings loaded = gson.fromJson(content, DecreeSettings.class);
+            lastContent = content;
+            if (loaded != null) {
+                DecreeSystem.settings = loaded;
+                System.out.println(C.GREEN + "Hotloaded Decree Settings");
+            }
+        } catch (IOException | JsonParseException e) {
+            // Possibly read while being written, the next change event will try again
+        }
+    }
+
+    /**
+     * Background thread that reloads the settings when the config file changes
      */
-    public DecreeSettings hotload() {
-        DecreeSettings fileSettings = fromConfigJson(file);
-        assert fileSettings != null;
-        if (lastChanged != file.lastModified()) {
-            lastChanged = file.lastModified();
-            System.out.println(C.GREEN + "Hotloaded Decree Settings");
-            return fileSettings;
+    private static final class Watcher extends Thread {
+        private final File file;
+        private final WatchService service;
+
+        private Watcher(File file) throws IOException {
+            super("Decree Settings Watcher");
+            setDaemon(true);
+            this.file = file.getAbsoluteFile();
+            this.service = FileSystems.getDefault().newWatchService();
+            this.file.getParentFile().toPath().register(service, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
         }
-        if (!fileSettings.equals(this)) {
-            saveToConfig(file);
+
+        @Override
+        public void run() {
+            try {
+                while (!isInterrupted()) {
+                    WatchKey key = service.take();
+                    boolean changed = false;
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        changed |= event.kind() == StandardWatchEventKinds.OVERFLOW || file.getName().equals(String.valueOf(event.context()));
+                    }
+                    if (!key.reset()) {
+                        return;
+                    }
+                    if (changed) {
+                        // Let the writer finish, and coalesce the burst of events most editors cause
+                        Thread.sleep(100);
+                        reload(file);
+                    }
+                }
+            } catch (InterruptedException | ClosedWatchServiceException ignored) {
+                // Stopped
+            }
+        }
+
+        private void close() {
+            interrupt();
+            try {
+                service.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
         }
-        return this;
     }
 }
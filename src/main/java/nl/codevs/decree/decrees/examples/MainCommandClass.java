@@ -32,7 +32,7 @@ public class MainCommandClass implements DecreeCommandExecutor { // Categories m
             @Param(
                     description = "The world to say hello in",
                     contextual = true // Set to true to auto-import the world the person sending the command is in
-                    // Note: This requires a custom context-handler in DecreeSystem.Context#getHandlers. Context handlers implement DecreeContextHandler
+                    // Note: This requires a custom context-handler, registered with DecreeSystem.Context#addHandler. Context handlers implement DecreeContextHandler
             )
                     World world, // The names of these variables are used in the command unless "name" is specified in the annotation
                        // These are not translated where 'CaPs' is replaced by 'ca-ps', like we saw before
@@ -1,8 +1,12 @@
 package nl.codevs.decree.exceptions;
 
+/**
+ * Thrown when the decree system is misconfigured (ex: missing handlers)<br>
+ * Stackless, the message says all there is to say.
+ */
 public class DecreeException extends Exception {
 
     public DecreeException(String cause) {
-        super(cause);
+        super(cause, null, false, false);
     }
 }
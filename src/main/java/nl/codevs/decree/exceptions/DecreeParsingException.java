@@ -4,7 +4,8 @@ import lombok.Getter;
 import nl.codevs.decree.util.C;
 
 /**
- * Thrown when a decree parameter is parsed, but parsing fails
+ * Thrown when a decree parameter is parsed, but parsing fails<br>
+ * Stackless, this is control flow and not a bug.
  */
 @Getter
 public class DecreeParsingException extends Exception {
@@ -17,7 +18,7 @@ public class DecreeParsingException extends Exception {
         this(type, input, reason.getClass().getSimpleName() + " - " + reason.getMessage());
     }
     public DecreeParsingException(Class<?> type, String input, String reason) {
-        super();
+        super(null, null, false, false);
         this.type = type;
         this.input = input;
         this.reason = reason;
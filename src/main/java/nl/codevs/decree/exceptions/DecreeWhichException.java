@@ -5,13 +5,18 @@ import nl.codevs.decree.util.KList;
 
 /**
  * Thrown when more than one option is available for a singular mapping<br>
- * Like having a hashmap where one input maps to two outputs.
+ * Like having a hashmap where one input maps to two outputs.<br>
+ * Stackless, this is control flow and not a bug.
  */
+@Getter
 public class DecreeWhichException extends Exception {
-    @Getter
+    private final Class<?> type;
+    private final String input;
     private final KList<?> options;
     public DecreeWhichException(Class<?> type, String input, KList<?> options) {
-        super("Cannot parse \"" + input + "\" into type " + type.getSimpleName() + " because of multiple options");
+        super("Cannot parse \"" + input + "\" into type " + type.getSimpleName() + " because of multiple options", null, false, false);
+        this.type = type;
+        this.input = input;
         this.options = options;
     }
 }
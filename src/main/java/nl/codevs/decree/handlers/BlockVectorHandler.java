@@ -8,22 +8,23 @@ import nl.codevs.decree.util.DecreeSender;
 import nl.codevs.decree.util.Form;
 import nl.codevs.decree.util.KList;
 import nl.codevs.decree.util.Maths;
+import nl.codevs.decree.util.Numbers;
+import nl.codevs.decree.util.ServerSnapshot;
 import org.bukkit.FluidCollisionMode;
 import org.bukkit.block.Block;
 import org.bukkit.entity.Player;
 import org.bukkit.util.BlockVector;
 import org.jetbrains.annotations.NotNull;
 
-import java.security.InvalidParameterException;
-
 public class BlockVectorHandler implements DecreeParameterHandler<BlockVector> {
     @Override
     public @NotNull KList<BlockVector> getPossibilities() {
         KList<BlockVector> vx = new KList<>();
         DecreeSender s = DecreeSystem.Context.get();
 
-        if (s.isPlayer()) {
-            vx.add(s.player().getLocation().toVector().toBlockVector());
+        ServerSnapshot.PlayerState state = s.isPlayer() ? DecreeSystem.Server.get().player(s.player().getUniqueId()) : null;
+        if (state != null) {
+            vx.add(state.toBlockVector());
         }
 
         return vx;
@@ -38,59 +39,125 @@ public class BlockVectorHandler implements DecreeParameterHandler<BlockVector> {
         return Form.f(v.getBlockX(), 2) + "," + Form.f(v.getBlockY(), 2) + "," + Form.f(v.getBlockZ(), 2);
     }
 
-    @SuppressWarnings({"RedundantThrows", "SpellCheckingInspection"})
     @Override
-    public @NotNull BlockVector parse(String in, boolean force) throws DecreeParsingException, DecreeWhichException {
-        try {
-            if (in.contains(",")) {
-                String[] comp = in.split("\\Q,\\E");
-
-                if (comp.length == 2) {
-                    return new BlockVector(Integer.parseInt(comp[0].trim()), 0, Integer.parseInt(comp[1].trim()));
-                } else if (comp.length == 3) {
-                    return new BlockVector(Integer.parseInt(comp[0].trim()),
-                            Integer.parseInt(comp[1].trim()),
-                            Integer.parseInt(comp[2].trim()));
-                } else {
-                    throw new IllegalArgumentException("Too many components, you have " + comp.length + ". Expected 2 or 3.");
-                }
-            } else if (in.equalsIgnoreCase("here") || in.equalsIgnoreCase("me") || in.equalsIgnoreCase("self")) {
-                if (!DecreeSystem.Context.get().isPlayer()) {
-                    throw new DecreeParsingException(BlockVector.class, in, "You cannot specify me,self,here as a console.");
-                }
+    public BlockVector parse(String in, boolean force) throws DecreeParsingException, DecreeWhichException {
+        return tryParse(in, force).get();
+    }
 
-                return DecreeSystem.Context.get().player().getLocation().toVector().toBlockVector();
-            } else if (in.equalsIgnoreCase("look") || in.equalsIgnoreCase("cursor") || in.equalsIgnoreCase("crosshair")) {
-                if (!DecreeSystem.Context.get().isPlayer()) {
-                    throw new DecreeParsingException(BlockVector.class, in, "You cannot specify look, cursor, crosshair as a console.");
+    @Override
+    public ParseResult<BlockVector> tryParse(String in, boolean force) {
+        return tryParse(in, 0, in.length(), force);
+    }
+
+    @SuppressWarnings("SpellCheckingInspection")
+    @Override
+    public ParseResult<BlockVector> tryParse(CharSequence line, int start, int end, boolean force) {
+        while (start < end && line.charAt(start) == ' ') {
+            start++;
+        }
+        while (end > start && line.charAt(end - 1) == ' ') {
+            end--;
+        }
+
+        int commas = 0;
+        for (int i = start; i < end; i++) {
+            if (line.charAt(i) == ',') {
+                commas++;
+            }
+        }
+
+        if (commas > 0) {
+            if (commas > 2) {
+                return failure(line, start, end, "Too many components, you have " + (commas + 1) + ". Expected 2 or 3.");
+            }
+            long[] values = new long[commas + 1];
+            int from = start;
+            for (int c = 0; c < values.length; c++) {
+                int to = from;
+                while (to < end && line.charAt(to) != ',') {
+                    to++;
+                }
+                int componentStart = from;
+                int componentEnd = to;
+                while (componentStart < componentEnd && line.charAt(componentStart) == ' ') {
+                    componentStart++;
                 }
-                Block target = DecreeSystem.Context.get().player().getTargetBlockExact(256, FluidCollisionMode.NEVER);
-                if (target == null) {
-                    throw new InvalidParameterException(in + " is invalid because the targeted location is null");
+                while (componentEnd > componentStart && line.charAt(componentEnd - 1) == ' ') {
+                    componentEnd--;
                 }
-                return target.getLocation().toVector().toBlockVector();
-            } else if (in.equalsIgnoreCase("random")) {
-                return new BlockVector(Maths.frand(-30_000_000, 30_000_000), Maths.frand(0, 256), Maths.frand(-30_000_000, 30_000_000));
-            } else if (in.trim().toLowerCase().startsWith("player:")) {
-                String v = in.trim().split("\\Q:\\E")[1];
-
-                KList<?> px = DecreeSystem.Handler.get(Player.class).getPossibilities(v);
-
-                if (px != null && px.isNotEmpty()) {
-                    return ((Player) px.get(0)).getLocation().toVector().toBlockVector();
-                } else {
-                    throw new DecreeParsingException(BlockVector.class, in, "Cannot find player: " + v);
+                int status = Numbers.parseLong(line, componentStart, componentEnd, Integer.MIN_VALUE, Integer.MAX_VALUE, values, c);
+                if (status != Numbers.OK) {
+                    return failure(line, start, end, "Component " + line.subSequence(componentStart, componentEnd) + ": " + Numbers.reason(status, false));
                 }
+                from = to + 1;
+            }
+            return ParseResult.success(values.length == 2
+                    ? new BlockVector(values[0], 0, values[1])
+                    : new BlockVector(values[0], values[1], values[2]));
+        } else if (is(line, start, end, "here") || is(line, start, end, "me") || is(line, start, end, "self")) {
+            if (!DecreeSystem.Context.get().isPlayer()) {
+                return failure(line, start, end, "You cannot specify me,self,here as a console.");
+            }
+
+            ServerSnapshot.PlayerState state = DecreeSystem.Server.get().player(DecreeSystem.Context.get().player().getUniqueId());
+            if (state == null) {
+                return failure(line, start, end, "Your location is not known yet, try again");
+            }
+            return ParseResult.success(state.toBlockVector());
+        } else if (is(line, start, end, "look") || is(line, start, end, "cursor") || is(line, start, end, "crosshair")) {
+            if (!DecreeSystem.Context.get().isPlayer()) {
+                return failure(line, start, end, "You cannot specify look, cursor, crosshair as a console.");
+            }
+            Player player = DecreeSystem.Context.get().player();
+            Block target = DecreeSystem.Server.sync(() -> player.getTargetBlockExact(256, FluidCollisionMode.NEVER));
+            if (target == null) {
+                return failure(line, start, end, line.subSequence(start, end) + " is invalid because the targeted location is null");
+            }
+            return ParseResult.success(target.getLocation().toVector().toBlockVector());
+        } else if (is(line, start, end, "random")) {
+            return ParseResult.success(new BlockVector(Maths.frand(-30_000_000, 30_000_000), Maths.frand(0, 256), Maths.frand(-30_000_000, 30_000_000)));
+        } else if (end - start > PLAYER.length() && is(line, start, start + PLAYER.length(), PLAYER)) {
+            String v = line.subSequence(start + PLAYER.length(), end).toString();
+
+            KList<?> px;
+            try {
+                px = DecreeSystem.Handler.get(Player.class).getPossibilities(v);
+            } catch (DecreeException e) {
+                return failure(line, start, end, e.getMessage());
+            }
+
+            ServerSnapshot.PlayerState state = px == null || px.isEmpty() ? null : DecreeSystem.Server.get().player(((Player) px.get(0)).getUniqueId());
+            if (state != null) {
+                return ParseResult.success(state.toBlockVector());
             } else {
-                throw new InvalidParameterException("Invalid because it has no ',' - BlockVectors are written as (number,number)");
+                return failure(line, start, end, "Cannot find player: " + v);
             }
-        } catch (DecreeParsingException e) {
-            throw e;
-        } catch (Throwable e) {
-            throw new DecreeParsingException(BlockVector.class, in, e);
+        } else {
+            return failure(line, start, end, "Invalid because it has no ',' - BlockVectors are written as (number,number)");
         }
     }
 
+    private static final String PLAYER = "player:";
+
+    /**
+     * Check whether part of a line equals a keyword, ignoring case
+     */
+    private static boolean is(CharSequence line, int start, int end, String keyword) {
+        if (end - start != keyword.length()) {
+            return false;
+        }
+        for (int i = 0; i < keyword.length(); i++) {
+            if (Character.toLowerCase(line.charAt(start + i)) != keyword.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static ParseResult<BlockVector> failure(CharSequence line, int start, int end, String reason) {
+        return ParseResult.failure(BlockVector.class, line.subSequence(start, end).toString(), reason);
+    }
+
     @Override
     public boolean supports(Class<?> type) {
         return type.equals(BlockVector.class);
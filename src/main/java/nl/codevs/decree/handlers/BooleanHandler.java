@@ -2,6 +2,7 @@ package nl.codevs.decree.handlers;
 
 
 import nl.codevs.decree.exceptions.DecreeParsingException;
+import nl.codevs.decree.exceptions.DecreeWhichException;
 import nl.codevs.decree.util.KList;
 import nl.codevs.decree.util.Maths;
 import org.jetbrains.annotations.NotNull;
@@ -18,15 +19,16 @@ public class BooleanHandler implements DecreeParameterHandler<Boolean> {
     }
 
     @Override
-    public Boolean parse(String in, boolean force) throws DecreeParsingException {
+    public Boolean parse(String in, boolean force) throws DecreeParsingException, DecreeWhichException {
+        return tryParse(in, force).get();
+    }
+
+    @Override
+    public ParseResult<Boolean> tryParse(String in, boolean force) {
         if (in.equalsIgnoreCase("null") || in.equalsIgnoreCase("other") || in.equalsIgnoreCase("flip") || in.equalsIgnoreCase("toggle")) {
-            return null;
-        }
-        try {
-            return Boolean.parseBoolean(in);
-        } catch (Throwable e) {
-            throw new DecreeParsingException(Boolean.class, in, e);
+            return ParseResult.success(null);
         }
+        return ParseResult.success(Boolean.parseBoolean(in));
     }
 
     @Override
@@ -1,12 +1,11 @@
 package nl.codevs.decree.handlers;
 
 
-import nl.codevs.decree.exceptions.DecreeParsingException;
 import nl.codevs.decree.util.KList;
 import nl.codevs.decree.util.Maths;
-import org.jetbrains.annotations.NotNull;
+import nl.codevs.decree.util.Numbers;
 
-public class ByteHandler implements DecreeParameterHandler<Byte> {
+public class ByteHandler implements NumberHandler<Byte> {
 
     @Override
     public KList<Byte> getPossibilities() {
@@ -19,12 +18,18 @@ public class ByteHandler implements DecreeParameterHandler<Byte> {
     }
 
     @Override
-    public @NotNull Byte parse(String in, boolean force) throws DecreeParsingException {
-        try {
-            return Byte.parseByte(in);
-        } catch (Throwable e) {
-            throw new DecreeParsingException(Byte.class, in, e);
-        }
+    public int parse(CharSequence line, int start, int end, long[] out, int index) {
+        return Numbers.parseLong(line, start, end, Byte.MIN_VALUE, Byte.MAX_VALUE, out, index);
+    }
+
+    @Override
+    public Byte box(long value) {
+        return (byte) value;
+    }
+
+    @Override
+    public Class<Byte> type() {
+        return Byte.class;
     }
 
     @Override
@@ -3,8 +3,11 @@ package nl.codevs.decree.handlers;
 
 import nl.codevs.decree.exceptions.DecreeParsingException;
 import nl.codevs.decree.exceptions.DecreeWhichException;
+import nl.codevs.decree.util.Completions;
 import nl.codevs.decree.util.KList;
-import org.jetbrains.annotations.NotNull;
+import nl.codevs.decree.util.NameTrie;
+import nl.codevs.decree.util.Numbers;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.List;
 import java.util.concurrent.atomic.AtomicReference;
@@ -33,7 +36,48 @@ public interface DecreeParameterHandler<T> {
     String toString(T t);
 
     /**
-     * Should parse a String into the designated type
+     * Should parse a String into the designated type, without throwing.<br>
+     * This is what the decree system calls. Override this to parse without throwing.<br>
+     * The default implementation adapts {@link #parse(String, boolean)} (for handlers written against the exception-based API).
+     * @param in The string to parse
+     * @param force Force an option instead of returning {@link ParseResult#multiple(Class, String, KList) multiple} if possible
+     * @return A {@link ParseResult} with the value, the reason parsing failed, or the possible options
+     */
+    default ParseResult<T> tryParse(String in, boolean force) {
+        try {
+            return ParseResult.success(parse(in, force));
+        } catch (DecreeParsingException e) {
+            return ParseResult.of(e);
+        } catch (DecreeWhichException e) {
+            return ParseResult.of(e);
+        }
+    }
+
+    /**
+     * Parse an input string to a {@link ParseResult} of the assigned type, without throwing
+     * @param in The input string
+     * @return A {@link ParseResult} with the value, the reason parsing failed, or the possible options
+     */
+    default ParseResult<T> tryParse(String in) {
+        return tryParse(in, false);
+    }
+
+    /**
+     * Parse part of a line (ex: a value in {@link nl.codevs.decree.util.DecreeArguments}) into the designated type, without throwing.<br>
+     * Override this to parse without creating a substring first. The default implementation creates one and calls {@link #tryParse(String, boolean)}.
+     * @param line The line containing the input
+     * @param start The start of the input in the line
+     * @param end The end (exclusive) of the input in the line
+     * @param force Force an option instead of returning {@link ParseResult#multiple(Class, String, KList) multiple} if possible
+     * @return A {@link ParseResult} with the value, the reason parsing failed, or the possible options
+     */
+    default ParseResult<T> tryParse(CharSequence line, int start, int end, boolean force) {
+        return tryParse(line.subSequence(start, end).toString(), force);
+    }
+
+    /**
+     * Should parse a String into the designated type<br>
+     * Handlers that override {@link #tryParse(String, boolean)} can implement this by unwrapping it: {@code return tryParse(in, force).get();}
      * @param in The string to parse
      * @param force Force an option instead of throwing a {@link DecreeWhichException} if possible (can allow it throwing!)
      * @return The value extracted from the string, of the designated type
@@ -61,6 +105,16 @@ public interface DecreeParameterHandler<T> {
      */
     KList<T> getPossibilities();
 
+    /**
+     * An index over the possibilities of this handler, to search them without converting and comparing each one.<br>
+     * Return one for large or changing sets of possibilities (see {@link PossibilityIndex}).
+     * {@link #getPossibilities(String)} and {@link #getCompletions(String, int)} use it when present.
+     * @return The index, or null (the default) to search {@link #getPossibilities()}
+     */
+    default @Nullable PossibilityIndex<T> getPossibilityIndex() {
+        return null;
+    }
+
     /**
      * The possible entries for the inputted string (support for autocomplete on partial entries)
      *
@@ -68,39 +122,67 @@ public interface DecreeParameterHandler<T> {
      * @return A {@link List} of possibilities
      */
     default KList<T> getPossibilities(String input) {
-        if (input.trim().isEmpty()) {
-            KList<T> f = getPossibilities();
-            return f == null ? new KList<>() : f;
+        input = input.trim();
+        PossibilityIndex<T> index = getPossibilityIndex();
+        if (index != null) {
+            return input.isEmpty() ? index.all() : index.matching(input);
         }
 
-        input = input.trim();
         KList<T> possible = getPossibilities();
-        KList<T> matches = new KList<>();
-
-        if (possible == null || possible.isEmpty()) {
-            return matches;
+        if (possible == null) {
+            return new KList<>();
         }
-
         if (input.isEmpty()) {
-            return getPossibilities();
+            return possible;
         }
 
-        List<String> converted = possible.convert(v -> toString(v).trim());
-
-        for (int i = 0; i < converted.size(); i++) {
-            String g = converted.get(i);
+        String folded = NameTrie.fold(input);
+        KList<T> matches = new KList<>();
+        for (T option : possible) {
+            String g = NameTrie.fold(toString(option).trim());
             // if
             // G == I or
             // I in G or
             // G in I
-            if (g.equalsIgnoreCase(input) || g.toLowerCase().contains(input.toLowerCase()) || input.toLowerCase().contains(g.toLowerCase())) {
-                matches.add(possible.get(i));
+            if (g.contains(folded) || folded.contains(g)) {
+                matches.add(option);
             }
         }
 
         return matches;
     }
 
+    /**
+     * The completions for a partially entered value: the string forms of the possibilities starting with it (ignoring case)
+     * @param prefix The partially entered value
+     * @return The completions
+     */
+    default KList<String> getCompletions(String prefix) {
+        return getCompletions(prefix, Integer.MAX_VALUE);
+    }
+
+    /**
+     * The best completions for a partially entered value, ranked like {@link Completions}
+     * @param prefix The partially entered value
+     * @param limit The maximal amount of completions
+     * @return The completions, best first
+     */
+    default KList<String> getCompletions(String prefix, int limit) {
+        PossibilityIndex<T> index = getPossibilityIndex();
+        if (index != null) {
+            return index.keysStartingWith(prefix, limit);
+        }
+
+        Completions completions = new Completions(prefix, limit);
+        KList<T> possible = getPossibilities();
+        if (possible != null) {
+            for (T option : possible) {
+                completions.offer(toString(option).trim());
+            }
+        }
+        return completions.toList();
+    }
+
     /**
      * Forces conversion to the designated type before converting to a string using {@link #toString(T t)}
      *
@@ -120,41 +202,15 @@ public interface DecreeParameterHandler<T> {
      * - r > 512<br>
      * - h > 100<br>
      * - c > 16<br>
-     * ! This does not return the actual value, just the multiplier!
-     * @param value The inputted value
+     * ! This does not return the actual value, just the multiplier!<br>
+     * Prefer {@link Numbers}, which parses numbers with multipliers without creating strings.
+     * @param value The inputted value, which is set to the value without the multiplier suffixes
      * @return The multiplier
      */
     default int getMultiplier(AtomicReference<String> value) {
-        int multiplier = 1;
         String in = value.get();
-        boolean valid = true;
-        while (valid) {
-            boolean trim = false;
-            if (in.toLowerCase().endsWith("k")) {
-                multiplier *= 1000;
-                trim = true;
-            } else if (in.toLowerCase().endsWith("m")) {
-                multiplier *= 1000000;
-                trim = true;
-            } else if (in.toLowerCase().endsWith("h")) {
-                multiplier *= 100;
-                trim = true;
-            } else if (in.toLowerCase().endsWith("c")) {
-                multiplier *= 16;
-                trim = true;
-            } else if (in.toLowerCase().endsWith("r")) {
-                multiplier *= (16 * 32);
-                trim = true;
-            } else {
-                valid = false;
-            }
-
-            if (trim) {
-                in = in.substring(0, in.length() - 1);
-            }
-        }
-
-        value.set(in);
-        return multiplier;
+        int suffixStart = Numbers.suffixStart(in, 0, in.length());
+        value.set(in.substring(0, suffixStart));
+        return (int) Numbers.multiplier(in, suffixStart, in.length());
     }
 }
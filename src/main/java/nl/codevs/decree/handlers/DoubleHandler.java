@@ -1,29 +1,35 @@
 package nl.codevs.decree.handlers;
 
 
-import nl.codevs.decree.exceptions.DecreeParsingException;
 import nl.codevs.decree.util.Form;
 import nl.codevs.decree.util.KList;
 import nl.codevs.decree.util.Maths;
-import org.jetbrains.annotations.NotNull;
+import nl.codevs.decree.util.Numbers;
 
-import java.util.concurrent.atomic.AtomicReference;
-
-public class DoubleHandler implements DecreeParameterHandler<Double> {
+public class DoubleHandler implements NumberHandler<Double> {
     @Override
     public KList<Double> getPossibilities() {
         return null;
     }
 
     @Override
-    public @NotNull Double parse(String in, boolean force) throws DecreeParsingException {
-        try {
-            AtomicReference<String> r = new AtomicReference<>(in);
-            double m = getMultiplier(r);
-            return Double.parseDouble(r.get()) * m;
-        } catch (Throwable e) {
-            throw new DecreeParsingException(Double.class, in, e);
-        }
+    public int parse(CharSequence line, int start, int end, long[] out, int index) {
+        return Numbers.parseDouble(line, start, end, Double.MAX_VALUE, out, index);
+    }
+
+    @Override
+    public Double box(long value) {
+        return Double.longBitsToDouble(value);
+    }
+
+    @Override
+    public Class<Double> type() {
+        return Double.class;
+    }
+
+    @Override
+    public boolean decimal() {
+        return true;
     }
 
     @Override
@@ -1,29 +1,35 @@
 package nl.codevs.decree.handlers;
 
 
-import nl.codevs.decree.exceptions.DecreeParsingException;
 import nl.codevs.decree.util.Form;
 import nl.codevs.decree.util.KList;
 import nl.codevs.decree.util.Maths;
-import org.jetbrains.annotations.NotNull;
+import nl.codevs.decree.util.Numbers;
 
-import java.util.concurrent.atomic.AtomicReference;
-
-public class FloatHandler implements DecreeParameterHandler<Float> {
+public class FloatHandler implements NumberHandler<Float> {
     @Override
     public KList<Float> getPossibilities() {
         return null;
     }
 
     @Override
-    public @NotNull Float parse(String in, boolean force) throws DecreeParsingException {
-        try {
-            AtomicReference<String> r = new AtomicReference<>(in);
-            double m = getMultiplier(r);
-            return (float) (Float.parseFloat(r.get()) * m);
-        } catch (Throwable e) {
-            throw new DecreeParsingException(Float.class, in, e);
-        }
+    public int parse(CharSequence line, int start, int end, long[] out, int index) {
+        return Numbers.parseDouble(line, start, end, Float.MAX_VALUE, out, index);
+    }
+
+    @Override
+    public Float box(long value) {
+        return (float) Double.longBitsToDouble(value);
+    }
+
+    @Override
+    public Class<Float> type() {
+        return Float.class;
+    }
+
+    @Override
+    public boolean decimal() {
+        return true;
     }
 
     @Override
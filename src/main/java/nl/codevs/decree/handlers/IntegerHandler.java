@@ -1,28 +1,29 @@
 package nl.codevs.decree.handlers;
 
 
-import nl.codevs.decree.exceptions.DecreeParsingException;
 import nl.codevs.decree.util.KList;
 import nl.codevs.decree.util.Maths;
-import org.jetbrains.annotations.NotNull;
+import nl.codevs.decree.util.Numbers;
 
-import java.util.concurrent.atomic.AtomicReference;
-
-public class IntegerHandler implements DecreeParameterHandler<Integer> {
+public class IntegerHandler implements NumberHandler<Integer> {
     @Override
     public KList<Integer> getPossibilities() {
         return null;
     }
 
     @Override
-    public @NotNull Integer parse(String in, boolean force) throws DecreeParsingException {
-        try {
-            AtomicReference<String> r = new AtomicReference<>(in);
-            double m = getMultiplier(r);
-            return (int) (Integer.valueOf(r.get()).doubleValue() * m);
-        } catch (Throwable e) {
-            throw new DecreeParsingException(Integer.class, in, e);
-        }
+    public int parse(CharSequence line, int start, int end, long[] out, int index) {
+        return Numbers.parseLong(line, start, end, Integer.MIN_VALUE, Integer.MAX_VALUE, out, index);
+    }
+
+    @Override
+    public Integer box(long value) {
+        return (int) value;
+    }
+
+    @Override
+    public Class<Integer> type() {
+        return Integer.class;
     }
 
     @Override
@@ -1,28 +1,29 @@
 package nl.codevs.decree.handlers;
 
 
-import nl.codevs.decree.exceptions.DecreeParsingException;
 import nl.codevs.decree.util.KList;
 import nl.codevs.decree.util.Maths;
-import org.jetbrains.annotations.NotNull;
+import nl.codevs.decree.util.Numbers;
 
-import java.util.concurrent.atomic.AtomicReference;
-
-public class LongHandler implements DecreeParameterHandler<Long> {
+public class LongHandler implements NumberHandler<Long> {
     @Override
     public KList<Long> getPossibilities() {
         return null;
     }
 
     @Override
-    public @NotNull Long parse(String in, boolean force) throws DecreeParsingException {
-        try {
-            AtomicReference<String> r = new AtomicReference<>(in);
-            double m = getMultiplier(r);
-            return (long) (Long.valueOf(r.get()).doubleValue() * m);
-        } catch (Throwable e) {
-            throw new DecreeParsingException(Long.class, in, e);
-        }
+    public int parse(CharSequence line, int start, int end, long[] out, int index) {
+        return Numbers.parseLong(line, start, end, Long.MIN_VALUE, Long.MAX_VALUE, out, index);
+    }
+
+    @Override
+    public Long box(long value) {
+        return value;
+    }
+
+    @Override
+    public Class<Long> type() {
+        return Long.class;
     }
 
     @Override
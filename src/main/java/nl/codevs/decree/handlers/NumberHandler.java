@@ -0,0 +1,64 @@
+package nl.codevs.decree.handlers;
+
+import nl.codevs.decree.exceptions.DecreeParsingException;
+import nl.codevs.decree.exceptions.DecreeWhichException;
+import nl.codevs.decree.util.Numbers;
+
+/**
+ * A {@link DecreeParameterHandler} for a number type, that can parse into a primitive without boxing.<br>
+ * Parameters of primitive number types (byte, short, int, long, float, double) are parsed with {@link #parse(CharSequence, int, int, long[], int)},
+ * and reach the command method without ever being boxed.
+ * @param <T> The (boxed) number type
+ */
+public interface NumberHandler<T extends Number> extends DecreeParameterHandler<T> {
+
+    /**
+     * Parse part of a line into a primitive
+     * @param line The line containing the input
+     * @param start The start of the input in the line
+     * @param end The end (exclusive) of the input in the line
+     * @param out The array to write the value into. Whole numbers are written as is, decimals as {@link Double#doubleToRawLongBits(double)}.
+     * @param index The index in the array to write the value to
+     * @return {@link Numbers#OK}, or the reason parsing failed ({@link Numbers#NOT_A_NUMBER} or {@link Numbers#OUT_OF_RANGE})
+     */
+    int parse(CharSequence line, int start, int end, long[] out, int index);
+
+    /**
+     * Box a value written by {@link #parse(CharSequence, int, int, long[], int)}
+     * @param value The value
+     * @return The boxed value
+     */
+    T box(long value);
+
+    /**
+     * @return The (boxed) type this handler parses into
+     */
+    Class<T> type();
+
+    /**
+     * @return True if this handler parses decimals (written as {@link Double#doubleToRawLongBits(double)})
+     */
+    default boolean decimal() {
+        return false;
+    }
+
+    @Override
+    default ParseResult<T> tryParse(String in, boolean force) {
+        return tryParse(in, 0, in.length(), force);
+    }
+
+    @Override
+    default T parse(String in, boolean force) throws DecreeParsingException, DecreeWhichException {
+        return tryParse(in, force).get();
+    }
+
+    @Override
+    default ParseResult<T> tryParse(CharSequence line, int start, int end, boolean force) {
+        long[] out = new long[1];
+        int status = parse(line, start, end, out, 0);
+        if (status != Numbers.OK) {
+            return ParseResult.failure(type(), line.subSequence(start, end).toString(), Numbers.reason(status, decimal()));
+        }
+        return ParseResult.success(box(out[0]));
+    }
+}
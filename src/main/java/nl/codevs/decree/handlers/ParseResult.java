@@ -0,0 +1,150 @@
+package nl.codevs.decree.handlers;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import nl.codevs.decree.exceptions.DecreeParsingException;
+import nl.codevs.decree.exceptions.DecreeWhichException;
+import nl.codevs.decree.util.C;
+import nl.codevs.decree.util.KList;
+
+/**
+ * The result of {@link DecreeParameterHandler#tryParse(String, boolean)}.<br>
+ * Either a success (with a value, which may be null), a failure (with a reason) or multiple options.<br>
+ * Unlike {@link DecreeParsingException} and {@link DecreeWhichException}, creating a result is cheap,
+ * so handlers can fail on every argument they are tried against without penalty.
+ * @param <T> The type of the parsed value
+ */
+@Getter
+public final class ParseResult<T> {
+
+    private static final ParseResult<?> NULL = new ParseResult<>(Kind.SUCCESS, null, null, null, null, null);
+
+    private enum Kind {
+        SUCCESS,
+        FAILURE,
+        MULTIPLE
+    }
+
+    @Getter(AccessLevel.NONE)
+    private final Kind kind;
+    private final T value;
+    private final KList<T> options;
+    private final Class<?> type;
+    private final String input;
+    private final String reason;
+
+    private ParseResult(Kind kind, T value, KList<T> options, Class<?> type, String input, String reason) {
+        this.kind = kind;
+        this.value = value;
+        this.options = options;
+        this.type = type;
+        this.input = input;
+        this.reason = reason;
+    }
+
+    /**
+     * A successful result
+     * @param value The parsed value (may be null, ex: "toggle" for booleans)
+     * @return The result
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> ParseResult<T> success(T value) {
+        return value == null ? (ParseResult<T>) NULL : new ParseResult<>(Kind.SUCCESS, value, null, null, null, null);
+    }
+
+    /**
+     * A failed result
+     * @param type The type that was being parsed into
+     * @param input The input that could not be parsed
+     * @param reason The reason parsing failed
+     * @return The result
+     */
+    public static <T> ParseResult<T> failure(Class<?> type, String input, String reason) {
+        return new ParseResult<>(Kind.FAILURE, null, null, type, input, reason);
+    }
+
+    /**
+     * A result with multiple possible values
+     * @param type The type that was being parsed into
+     * @param input The input that maps to multiple values
+     * @param options The possible values
+     * @return The result
+     */
+    public static <T> ParseResult<T> multiple(Class<?> type, String input, KList<T> options) {
+        return new ParseResult<>(Kind.MULTIPLE, null, options, type, input, null);
+    }
+
+    /**
+     * Convert a {@link DecreeParsingException} to a failed result
+     * @param e The exception
+     * @return The result
+     */
+    public static <T> ParseResult<T> of(DecreeParsingException e) {
+        return failure(e.getType(), e.getInput(), e.getReason());
+    }
+
+    /**
+     * Convert a {@link DecreeWhichException} to a result with multiple options
+     * @param e The exception
+     * @return The result
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> ParseResult<T> of(DecreeWhichException e) {
+        return multiple(e.getType(), e.getInput(), (KList<T>) e.getOptions());
+    }
+
+    /**
+     * @return True if parsing succeeded
+     */
+    public boolean isSuccess() {
+        return kind == Kind.SUCCESS;
+    }
+
+    /**
+     * @return True if parsing failed
+     */
+    public boolean isFailure() {
+        return kind == Kind.FAILURE;
+    }
+
+    /**
+     * @return True if multiple options are possible
+     */
+    public boolean isMultiple() {
+        return kind == Kind.MULTIPLE;
+    }
+
+    /**
+     * Get the value, or throw the exception equivalent of this result
+     * @return The value
+     * @throws DecreeParsingException When this is a failure
+     * @throws DecreeWhichException When this has multiple options
+     */
+    public T get() throws DecreeParsingException, DecreeWhichException {
+        return switch (kind) {
+            case SUCCESS -> value;
+            case FAILURE -> throw new DecreeParsingException(type, input, reason);
+            case MULTIPLE -> throw new DecreeWhichException(type, input, options);
+        };
+    }
+
+    /**
+     * The message of a failure, formatted the same way as {@link DecreeParsingException#getMessage()}
+     * @return The message, or null if this is not a failure
+     */
+    public String getMessage() {
+        if (kind != Kind.FAILURE) {
+            return null;
+        }
+        return C.RED + "Could not parse " + C.GOLD + input + C.RED + " (" + C.GOLD + type.getSimpleName() + C.RED + ") because of: " + C.GOLD + reason;
+    }
+
+    @Override
+    public String toString() {
+        return switch (kind) {
+            case SUCCESS -> String.valueOf(value);
+            case FAILURE -> getMessage();
+            case MULTIPLE -> "Multiple options: " + options;
+        };
+    }
+}
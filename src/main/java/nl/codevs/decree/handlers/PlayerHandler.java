@@ -4,17 +4,29 @@ import nl.codevs.decree.DecreeSystem;
 import nl.codevs.decree.exceptions.DecreeParsingException;
 import nl.codevs.decree.exceptions.DecreeWhichException;
 import nl.codevs.decree.util.KList;
-import org.bukkit.Bukkit;
-import org.bukkit.entity.HumanEntity;
+import nl.codevs.decree.util.PlayerIndex;
+import nl.codevs.decree.util.ServerSnapshot;
 import org.bukkit.entity.Player;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.ArrayList;
-
 public class PlayerHandler implements DecreeParameterHandler<Player> {
     @Override
     public @NotNull KList<Player> getPossibilities() {
-        return new KList<>(new ArrayList<>(Bukkit.getOnlinePlayers()));
+        return DecreeSystem.Server.get().index().all();
+    }
+
+    @Override
+    public KList<Player> getPossibilities(String input) {
+        input = input.trim();
+        if (input.isEmpty()) {
+            return getPossibilities();
+        }
+        return DecreeSystem.Server.get().index().matching(input);
+    }
+
+    @Override
+    public KList<String> getCompletions(String prefix, int limit) {
+        return DecreeSystem.Server.get().index().namesStartingWith(prefix, limit);
     }
 
     @Override
@@ -22,63 +34,42 @@ public class PlayerHandler implements DecreeParameterHandler<Player> {
         return player.getName();
     }
 
-    @SuppressWarnings("RedundantThrows")
     @Override
-    public @NotNull Player parse(String in, boolean force) throws DecreeParsingException, DecreeWhichException {
-        try {
-            KList<Player> options = getPossibilities(in);
-            KList<String> names = getPossibilities().convert(HumanEntity::getName);
+    public Player parse(String in, boolean force) throws DecreeParsingException, DecreeWhichException {
+        return tryParse(in, force).get();
+    }
 
-            if (!names.contains("self") && in.equalsIgnoreCase("self") && DecreeSystem.Context.get().isPlayer()) {
-                return DecreeSystem.Context.get().player();
-            }
-            if (!names.contains("me") && in.equalsIgnoreCase("me") && DecreeSystem.Context.get().isPlayer()) {
-                return DecreeSystem.Context.get().player();
+    @Override
+    public ParseResult<Player> tryParse(String in, boolean force) {
+        ServerSnapshot server = DecreeSystem.Server.get();
+        PlayerIndex players = server.index();
+
+        // Keywords, unless a player has that name
+        if (players.exact(in) == null) {
+            if ((in.equalsIgnoreCase("self") || in.equalsIgnoreCase("me")) && DecreeSystem.Context.get().isPlayer()) {
+                return ParseResult.success(DecreeSystem.Context.get().player());
             }
-            if (!names.contains("random") && in.equalsIgnoreCase("random")) {
-                return options.getRandom();
+            if (in.equalsIgnoreCase("random")) {
+                return ParseResult.success(players.random());
             }
-            if (!names.contains("closest") && in.equalsIgnoreCase("closest") && DecreeSystem.Context.get().isPlayer()) {
-                Player closest = null;
-                double distance = -1;
-                for (Player option : options) {
-                    if (option.getLocation().getWorld() == DecreeSystem.Context.get().player().getWorld()) {
-
-                        if (closest == null) {
-                            closest = option;
-                            distance = option.getLocation().distance(DecreeSystem.Context.get().player().getLocation());
-                            continue;
-                        }
-
-                        double d = option.getLocation().distance(DecreeSystem.Context.get().player().getLocation());
-                        if (d < distance) {
-                            closest = option;
-                            distance = d;
-                        }
-                    }
-                }
-                if (closest == null) {
-                    return options.getRandom();
-                } else {
-                    return closest;
-                }
+            if (in.equalsIgnoreCase("closest") && DecreeSystem.Context.get().isPlayer()) {
+                ServerSnapshot.PlayerState self = server.player(DecreeSystem.Context.get().player().getUniqueId());
+                Player closest = self == null ? null : server.grid().nearest(self);
+                return ParseResult.success(closest == null ? players.random() : closest);
             }
+        }
 
-            if (options.isEmpty()) {
-                throw new DecreeParsingException(Byte.class, in, "No players match that input");
-            } else if (options.size() > 1) {
-                if (force) {
-                    return options.getRandom();
-                }
-                throw new DecreeWhichException(Player.class, in, options);
+        KList<Player> options = in.trim().isEmpty() ? players.all() : players.matching(in.trim());
+        if (options.isEmpty()) {
+            return ParseResult.failure(Player.class, in, "No players match that input");
+        } else if (options.size() > 1) {
+            if (force) {
+                return ParseResult.success(options.getRandom());
             }
-
-            return options.get(0);
-        } catch (DecreeParsingException | DecreeWhichException e) {
-            throw e;
-        } catch (Throwable e) {
-            throw new DecreeParsingException(Player.class, in, e);
+            return ParseResult.multiple(Player.class, in, options);
         }
+
+        return ParseResult.success(options.get(0));
     }
 
     @Override
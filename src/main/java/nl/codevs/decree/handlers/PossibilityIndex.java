@@ -0,0 +1,360 @@
+package nl.codevs.decree.handlers;
+
+import nl.codevs.decree.util.Completions;
+import nl.codevs.decree.util.KList;
+import nl.codevs.decree.util.NameTrie;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.IntPredicate;
+import java.util.function.Supplier;
+
+/**
+ * Searchable index of the possibilities of a {@link DecreeParameterHandler}, by their (case-folded) string form.<br>
+ * Return one from {@link DecreeParameterHandler#getPossibilityIndex()} to make {@link DecreeParameterHandler#getPossibilities(String)}
+ * and {@link DecreeParameterHandler#getCompletions(String, int)} answer from it, instead of converting and comparing every possibility on every call.<br>
+ * <br>
+ * Possibilities are compiled into a {@link NameTrie}. Additions and removals after that are kept next to the trie
+ * (a small list of additions, and a set of removed entries), and are compiled in once there are enough of them,
+ * so lookups stay sub-linear and updates do not recompile everything.<br>
+ * Changes are copy-on-write: lookups never lock and never see half of a change. Every change increments the {@link #version()}.<br>
+ * For possibilities that come from a versioned source, {@link #refresh(long, Supplier)} rebuilds the index only when that version changes.
+ * @param <T> The type of possibility
+ */
+public final class PossibilityIndex<T> {
+
+    private final Function<? super T, String> key;
+    private final Object lock = new Object();
+    private volatile Snapshot snapshot;
+
+    /**
+     * The version of the source the possibilities were last {@link #refresh(long, Supplier) refreshed} from
+     */
+    private volatile long source = Long.MIN_VALUE;
+
+    /**
+     * Create an empty index
+     * @param key The string form of a possibility (like {@link DecreeParameterHandler#toString(Object)})
+     */
+    public PossibilityIndex(Function<? super T, String> key) {
+        this.key = key;
+        this.snapshot = compile(new Object[0], 0);
+    }
+
+    /**
+     * Create an index
+     * @param key The string form of a possibility (like {@link DecreeParameterHandler#toString(Object)})
+     * @param possibilities The possibilities
+     */
+    public PossibilityIndex(Function<? super T, String> key, Collection<? extends T> possibilities) {
+        this.key = key;
+        this.snapshot = compile(possibilities.toArray(), 0);
+    }
+
+    /**
+     * The version of the index. Changes every time the possibilities change.
+     * @return The version
+     */
+    public int version() {
+        return snapshot.version;
+    }
+
+    /**
+     * @return The amount of possibilities
+     */
+    public int size() {
+        Snapshot s = snapshot;
+        return s.base.length - s.removed.cardinality() + s.added.length;
+    }
+
+    /**
+     * @return A copy of the possibilities
+     */
+    public KList<T> all() {
+        Snapshot s = snapshot;
+        KList<T> all = new KList<>();
+        for (int i = s.removed.nextClearBit(0); i < s.base.length; i = s.removed.nextClearBit(i + 1)) {
+            all.add(s.value(i));
+        }
+        for (Object value : s.added) {
+            all.add(cast(value));
+        }
+        return all;
+    }
+
+    /**
+     * Possibilities of which the string form equals the input (ignoring case)
+     * @param in The input
+     * @return The possibilities
+     */
+    public KList<T> exact(CharSequence in) {
+        Snapshot s = snapshot;
+        return s.collect(s.trie.exact(in), i -> NameTrie.tier(s.addedKeys[i], in) == 3);
+    }
+
+    /**
+     * Possibilities of which the string form starts with the input (ignoring case)
+     * @param in The input
+     * @return The possibilities
+     */
+    public KList<T> startingWith(CharSequence in) {
+        Snapshot s = snapshot;
+        String prefix = NameTrie.fold(in.toString());
+        return s.collect(s.trie.startingWith(in), i -> s.addedKeys[i][0].startsWith(prefix));
+    }
+
+    /**
+     * Possibilities of which the string form contains the input (ignoring case)
+     * @param in The input
+     * @return The possibilities
+     */
+    public KList<T> containing(CharSequence in) {
+        Snapshot s = snapshot;
+        return s.collect(s.trie.containing(in), i -> NameTrie.tier(s.addedKeys[i], in) >= 2);
+    }
+
+    /**
+     * Possibilities matching the input (ignoring case), like {@link DecreeParameterHandler#getPossibilities(String)}:
+     * the string form equals the input, the string form contains the input, or the input contains the string form.
+     * @param in The input
+     * @return The possibilities
+     */
+    public KList<T> matching(CharSequence in) {
+        Snapshot s = snapshot;
+        BitSet found = new BitSet(s.base.length);
+        for (int entry : s.trie.containing(in)) {
+            found.set(entry);
+        }
+        s.trie.containedIn(in, found::set);
+        int[] entries = found.stream().toArray();
+        return s.collect(entries, i -> NameTrie.tier(s.addedKeys[i], in) > 0);
+    }
+
+    /**
+     * The string forms of the possibilities starting with a prefix (ignoring case), for completions
+     * @param prefix The prefix
+     * @return The string forms, as given by the key function
+     */
+    public KList<String> keysStartingWith(CharSequence prefix) {
+        return startingWith(prefix).convert(v -> key.apply(v).trim());
+    }
+
+    /**
+     * The best string forms of the possibilities starting with a prefix (ignoring case), ranked like {@link Completions}.<br>
+     * Only the string forms are created, not a list of the matching possibilities.
+     * @param prefix The prefix
+     * @param limit The maximal amount of string forms
+     * @return The string forms, best first
+     */
+    public KList<String> keysStartingWith(CharSequence prefix, int limit) {
+        Snapshot s = snapshot;
+        Completions completions = new Completions(prefix, limit);
+        for (int entry : s.trie.startingWith(prefix)) {
+            if (!s.removed.get(entry)) {
+                completions.offer(key.apply(s.value(entry)).trim());
+            }
+        }
+        for (Object value : s.added) {
+            completions.offer(key.apply(cast(value)).trim());
+        }
+        return completions.toList();
+    }
+
+    /**
+     * Add a possibility
+     * @param possibility The possibility
+     * @return True if it is new, false if it was already in the index
+     */
+    public boolean add(T possibility) {
+        synchronized (lock) {
+            Snapshot s = snapshot;
+            Integer index = s.indices.get(possibility);
+            if (index != null) {
+                if (!s.removed.get(index)) {
+                    return false;
+                }
+                BitSet removed = (BitSet) s.removed.clone();
+                removed.clear(index);
+                snapshot = new Snapshot(s, removed, s.added, s.addedKeys);
+                return true;
+            }
+            for (Object value : s.added) {
+                if (value.equals(possibility)) {
+                    return false;
+                }
+            }
+
+            Object[] added = new Object[s.added.length + 1];
+            String[][] addedKeys = new String[added.length][];
+            System.arraycopy(s.added, 0, added, 0, s.added.length);
+            System.arraycopy(s.addedKeys, 0, addedKeys, 0, s.added.length);
+            added[s.added.length] = possibility;
+            addedKeys[s.added.length] = new String[]{fold(possibility)};
+            publish(new Snapshot(s, s.removed, added, addedKeys));
+            return true;
+        }
+    }
+
+    /**
+     * Remove a possibility
+     * @param possibility The possibility
+     * @return True if it was in the index
+     */
+    public boolean remove(T possibility) {
+        synchronized (lock) {
+            Snapshot s = snapshot;
+            Integer index = s.indices.get(possibility);
+            if (index != null) {
+                if (s.removed.get(index)) {
+                    return false;
+                }
+                BitSet removed = (BitSet) s.removed.clone();
+                removed.set(index);
+                publish(new Snapshot(s, removed, s.added, s.addedKeys));
+                return true;
+            }
+            for (int i = 0; i < s.added.length; i++) {
+                if (s.added[i].equals(possibility)) {
+                    Object[] added = new Object[s.added.length - 1];
+                    String[][] addedKeys = new String[added.length][];
+                    System.arraycopy(s.added, 0, added, 0, i);
+                    System.arraycopy(s.added, i + 1, added, i, added.length - i);
+                    System.arraycopy(s.addedKeys, 0, addedKeys, 0, i);
+                    System.arraycopy(s.addedKeys, i + 1, addedKeys, i, added.length - i);
+                    snapshot = new Snapshot(s, s.removed, added, addedKeys);
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Replace all possibilities
+     * @param possibilities The new possibilities
+     */
+    public void set(Collection<? extends T> possibilities) {
+        synchronized (lock) {
+            snapshot = compile(possibilities.toArray(), snapshot.version + 1);
+        }
+    }
+
+    /**
+     * Replace all possibilities, if the source they come from changed since the last refresh
+     * @param sourceVersion The version of the source
+     * @param possibilities The possibilities in the source (only called if the version changed)
+     * @return True if the possibilities were replaced
+     */
+    public boolean refresh(long sourceVersion, Supplier<? extends Collection<? extends T>> possibilities) {
+        if (source == sourceVersion) {
+            return false;
+        }
+        synchronized (lock) {
+            if (source == sourceVersion) {
+                return false;
+            }
+            set(possibilities.get());
+            source = sourceVersion;
+            return true;
+        }
+    }
+
+    /**
+     * Publish a changed snapshot, compiling the pending changes into the trie if there are enough of them.<br>
+     * Additions are searched linearly, so they are compiled in once there are more than the square root of the compiled possibilities
+     * (which keeps both lookups and the compilation cost per change sub-linear).
+     * Removed possibilities are compiled out once they are more than a quarter of the compiled possibilities.
+     * @param s The changed snapshot
+     */
+    private void publish(Snapshot s) {
+        int maxAdded = Math.max(32, (int) Math.sqrt(s.base.length));
+        if (s.added.length > maxAdded || s.removed.cardinality() > s.base.length / 4) {
+            Object[] all = new Object[s.base.length - s.removed.cardinality() + s.added.length];
+            int count = 0;
+            for (int i = s.removed.nextClearBit(0); i < s.base.length; i = s.removed.nextClearBit(i + 1)) {
+                all[count++] = s.base[i];
+            }
+            System.arraycopy(s.added, 0, all, count, s.added.length);
+            s = compile(all, s.version);
+        }
+        snapshot = s;
+    }
+
+    private Snapshot compile(Object[] possibilities, int version) {
+        KList<List<String>> names = new KList<>();
+        Map<Object, Integer> indices = new HashMap<>(possibilities.length * 2);
+        for (int i = 0; i < possibilities.length; i++) {
+            names.add(List.of(key.apply(cast(possibilities[i])).trim()));
+            indices.putIfAbsent(possibilities[i], i);
+        }
+        return new Snapshot(possibilities, new NameTrie(names), indices, new BitSet(), new Object[0], new String[0][], version);
+    }
+
+    private String fold(T possibility) {
+        return NameTrie.fold(key.apply(possibility).trim());
+    }
+
+    @SuppressWarnings("unchecked")
+    private T cast(Object value) {
+        return (T) value;
+    }
+
+    /**
+     * Immutable state of the index: compiled possibilities, and the changes since they were compiled
+     */
+    private final class Snapshot {
+        private final Object[] base;
+        private final NameTrie trie;
+        private final Map<Object, Integer> indices;
+        private final BitSet removed;
+        private final Object[] added;
+        private final String[][] addedKeys;
+        private final int version;
+
+        private Snapshot(Object[] base, NameTrie trie, Map<Object, Integer> indices, BitSet removed, Object[] added, String[][] addedKeys, int version) {
+            this.base = base;
+            this.trie = trie;
+            this.indices = indices;
+            this.removed = removed;
+            this.added = added;
+            this.addedKeys = addedKeys;
+            this.version = version;
+        }
+
+        /**
+         * A changed copy of a snapshot, with the next version
+         */
+        private Snapshot(Snapshot from, BitSet removed, Object[] added, String[][] addedKeys) {
+            this(from.base, from.trie, from.indices, removed, added, addedKeys, from.version + 1);
+        }
+
+        private T value(int index) {
+            return cast(base[index]);
+        }
+
+        /**
+         * Collect the compiled entries that are not removed, and the additions that match
+         * @param entries Sorted compiled entry indices
+         * @param matches Whether an addition (by index) matches
+         * @return The possibilities
+         */
+        private KList<T> collect(int[] entries, IntPredicate matches) {
+            KList<T> found = new KList<>();
+            for (int entry : entries) {
+                if (!removed.get(entry)) {
+                    found.add(value(entry));
+                }
+            }
+            for (int i = 0; i < added.length; i++) {
+                if (matches.test(i)) {
+                    found.add(cast(added[i]));
+                }
+            }
+            return found;
+        }
+    }
+}
@@ -1,28 +1,29 @@
 package nl.codevs.decree.handlers;
 
 
-import nl.codevs.decree.exceptions.DecreeParsingException;
 import nl.codevs.decree.util.KList;
 import nl.codevs.decree.util.Maths;
-import org.jetbrains.annotations.NotNull;
+import nl.codevs.decree.util.Numbers;
 
-import java.util.concurrent.atomic.AtomicReference;
-
-public class ShortHandler implements DecreeParameterHandler<Short> {
+public class ShortHandler implements NumberHandler<Short> {
     @Override
     public KList<Short> getPossibilities() {
         return null;
     }
 
     @Override
-    public @NotNull Short parse(String in, boolean force) throws DecreeParsingException {
-        try {
-            AtomicReference<String> r = new AtomicReference<>(in);
-            double m = getMultiplier(r);
-            return (short) (Short.valueOf(r.get()).doubleValue() * m);
-        } catch (Throwable e) {
-            throw new DecreeParsingException(Short.class, in, e);
-        }
+    public int parse(CharSequence line, int start, int end, long[] out, int index) {
+        return Numbers.parseLong(line, start, end, Short.MIN_VALUE, Short.MAX_VALUE, out, index);
+    }
+
+    @Override
+    public Short box(long value) {
+        return (short) value;
+    }
+
+    @Override
+    public Class<Short> type() {
+        return Short.class;
     }
 
     @Override
@@ -2,8 +2,8 @@ package nl.codevs.decree.handlers;
 
 
 import nl.codevs.decree.exceptions.DecreeParsingException;
+import nl.codevs.decree.exceptions.DecreeWhichException;
 import nl.codevs.decree.util.KList;
-import org.jetbrains.annotations.NotNull;
 
 /**
  * Abstraction can sometimes breed stupidity
@@ -19,10 +19,14 @@ public class StringHandler implements DecreeParameterHandler<String> {
         return s;
     }
 
-    @SuppressWarnings("RedundantThrows")
     @Override
-    public @NotNull String parse(String in, boolean force) throws DecreeParsingException {
-        return in;
+    public String parse(String in, boolean force) throws DecreeParsingException, DecreeWhichException {
+        return tryParse(in, force).get();
+    }
+
+    @Override
+    public ParseResult<String> tryParse(String in, boolean force) {
+        return ParseResult.success(in);
     }
 
     @Override
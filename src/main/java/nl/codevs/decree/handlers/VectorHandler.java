@@ -6,10 +6,11 @@ import nl.codevs.decree.exceptions.DecreeWhichException;
 import nl.codevs.decree.util.Form;
 import nl.codevs.decree.util.KList;
 import org.bukkit.util.Vector;
-import org.jetbrains.annotations.NotNull;
 
 public class VectorHandler implements DecreeParameterHandler<Vector> {
 
+    private static final BlockVectorHandler BLOCK_VECTORS = new BlockVectorHandler();
+
     private static final KList<String> randoms = new KList<>(
             "here",
             "0,0,0",
@@ -33,8 +34,20 @@ public class VectorHandler implements DecreeParameterHandler<Vector> {
     }
 
     @Override
-    public @NotNull Vector parse(String in, boolean force) throws DecreeParsingException, DecreeWhichException {
-        return new BlockVectorHandler().parse(in, force);
+    public Vector parse(String in, boolean force) throws DecreeParsingException, DecreeWhichException {
+        return tryParse(in, force).get();
+    }
+
+    @Override
+    public ParseResult<Vector> tryParse(String in, boolean force) {
+        return tryParse(in, 0, in.length(), force);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public ParseResult<Vector> tryParse(CharSequence line, int start, int end, boolean force) {
+        ParseResult<?> result = BLOCK_VECTORS.tryParse(line, start, end, force);
+        return result.isFailure() ? ParseResult.failure(Vector.class, result.getInput(), result.getReason()) : (ParseResult<Vector>) result;
     }
 
     @Override
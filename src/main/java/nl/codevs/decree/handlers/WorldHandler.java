@@ -1,16 +1,16 @@
 package nl.codevs.decree.handlers;
 
+import nl.codevs.decree.DecreeSystem;
 import nl.codevs.decree.exceptions.DecreeParsingException;
 import nl.codevs.decree.exceptions.DecreeWhichException;
 import nl.codevs.decree.util.KList;
-import org.bukkit.Bukkit;
 import org.bukkit.World;
 import org.jetbrains.annotations.NotNull;
 
 public class WorldHandler implements DecreeParameterHandler<World> {
     @Override
     public @NotNull KList<World> getPossibilities() {
-        return new KList<>(Bukkit.getWorlds());
+        return DecreeSystem.Server.get().worlds();
     }
 
     @Override
@@ -19,28 +19,27 @@ public class WorldHandler implements DecreeParameterHandler<World> {
     }
 
     @Override
-    public @NotNull World parse(String in, boolean force) throws DecreeParsingException, DecreeWhichException {
-        try {
-            KList<World> options = getPossibilities(in);
+    public World parse(String in, boolean force) throws DecreeParsingException, DecreeWhichException {
+        return tryParse(in, force).get();
+    }
 
-            if (options.stream().noneMatch(w -> w.getName().equalsIgnoreCase("random")) && in.equalsIgnoreCase("random")) {
-                return options.getRandom();
-            }
+    @Override
+    public ParseResult<World> tryParse(String in, boolean force) {
+        KList<World> options = getPossibilities(in);
+
+        if (options.stream().noneMatch(w -> w.getName().equalsIgnoreCase("random")) && in.equalsIgnoreCase("random")) {
+            return ParseResult.success(getPossibilities().getRandom());
+        }
 
-            if (options.isEmpty()) {
-                throw new DecreeParsingException(World.class, in, "No worlds match that input");
-            } else if (options.size() > 1) {
-                if (force) {
-                    return options.getRandom();
-                }
-                throw new DecreeWhichException(World.class, in, options);
+        if (options.isEmpty()) {
+            return ParseResult.failure(World.class, in, "No worlds match that input");
+        } else if (options.size() > 1) {
+            if (force) {
+                return ParseResult.success(options.getRandom());
             }
-            return options.get(0);
-        } catch (DecreeWhichException | DecreeParsingException e) {
-            throw e;
-        } catch (Throwable e) {
-            throw new DecreeParsingException(World.class, in, e);
+            return ParseResult.multiple(World.class, in, options);
         }
+        return ParseResult.success(options.get(0));
     }
 
     @Override
@@ -0,0 +1,115 @@
+package nl.codevs.decree.util;
+
+import java.util.Comparator;
+import java.util.PriorityQueue;
+
+/**
+ * Bounded collector of the best tab completions for a partially entered argument.<br>
+ * Completions that do not start with the entered prefix (ignoring case) are rejected. Of the others, only the best {@code limit} are kept,
+ * so completing from a large set of possibilities takes memory in the limit, not in the amount of possibilities.<br>
+ * Ranked by match tier, then by length, then alphabetically:<br>
+ * 1. The completion equals the prefix (ignoring case)<br>
+ * 2. The completion starts with the prefix<br>
+ * 3. The completion starts with the prefix, ignoring case
+ */
+public final class Completions {
+
+    private static final Comparator<Ranked> BEST_FIRST = Comparator.comparingInt(Ranked::tier)
+            .thenComparingInt(r -> r.completion.length())
+            .thenComparing(Ranked::completion);
+
+    private final String prefix;
+    private final int limit;
+
+    /**
+     * The kept completions, worst first
+     */
+    private final PriorityQueue<Ranked> kept = new PriorityQueue<>(BEST_FIRST.reversed());
+
+    private int matched;
+
+    /**
+     * Create a collector
+     * @param prefix The partially entered argument
+     * @param limit The maximal amount of completions to keep
+     */
+    public Completions(CharSequence prefix, int limit) {
+        this.prefix = prefix.toString();
+        this.limit = Math.max(1, limit);
+    }
+
+    /**
+     * Offer a completion
+     * @param completion The completion
+     * @return True if it starts with the prefix (whether it is kept or not)
+     */
+    public boolean offer(String completion) {
+        int tier = tier(completion);
+        if (tier < 0) {
+            return false;
+        }
+        matched++;
+        Ranked ranked = new Ranked(completion, tier);
+        if (kept.size() < limit) {
+            kept.add(ranked);
+        } else if (BEST_FIRST.compare(ranked, kept.peek()) < 0) {
+            kept.poll();
+            kept.add(ranked);
+        }
+        return true;
+    }
+
+    /**
+     * Offer completions
+     * @param completions The completions
+     */
+    public void offerAll(Iterable<String> completions) {
+        for (String completion : completions) {
+            offer(completion);
+        }
+    }
+
+    /**
+     * @return Whether completions starting with the prefix were dropped because of the limit
+     */
+    public boolean isTruncated() {
+        return matched > kept.size();
+    }
+
+    /**
+     * @return The kept completions, best first
+     */
+    public KList<String> toList() {
+        KList<Ranked> sorted = new KList<>(kept);
+        sorted.sort(BEST_FIRST);
+        return sorted.convert(Ranked::completion);
+    }
+
+    /**
+     * Rank a completion
+     * @param completion The completion
+     * @return The tier (0 is best), or -1 if it does not start with the prefix
+     */
+    private int tier(String completion) {
+        if (completion.length() < prefix.length()) {
+            return -1;
+        }
+        boolean exactCase = true;
+        for (int i = 0; i < prefix.length(); i++) {
+            char c = completion.charAt(i);
+            char p = prefix.charAt(i);
+            if (c != p) {
+                if (NameTrie.fold(c) != NameTrie.fold(p)) {
+                    return -1;
+                }
+                exactCase = false;
+            }
+        }
+        if (completion.length() == prefix.length()) {
+            return 0;
+        }
+        return exactCase ? 1 : 2;
+    }
+
+    private record Ranked(String completion, int tier) {}
+}
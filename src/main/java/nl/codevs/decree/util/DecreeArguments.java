@@ -0,0 +1,338 @@
+package nl.codevs.decree.util;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Tokenized command arguments.<br>
+ * The raw command line is scanned once. Each argument is stored as offsets into that line, no substrings are made.<br>
+ * Arguments are split on spaces, except inside double quotes ({@code name="some value"} or {@code "some value"}).<br>
+ * Each argument is one of:<br>
+ * - {@link Kind#KEYLESS} a value on its own<br>
+ * - {@link Kind#KEYED} key=value (a run of '=', like key==value, counts as one)<br>
+ * - {@link Kind#FLAG} -key (a '-' followed by a number is a keyless negative number)<br>
+ * - {@link Kind#BAD} an argument with more than one '=' separator<br>
+ * Views from some argument onward ({@link #from(int)}) share the tokens of the original.
+ */
+public final class DecreeArguments {
+
+    /**
+     * The kind of argument
+     */
+    public enum Kind {
+        KEYLESS,
+        KEYED,
+        FLAG,
+        BAD
+    }
+
+    private static final int STRIDE = 6;
+    private static final int START = 0;
+    private static final int END = 1;
+    private static final int KEY_START = 2;
+    private static final int KEY_END = 3;
+    private static final int VALUE_START = 4;
+    private static final int VALUE_END = 5;
+
+    private final CharSequence line;
+    private final Kind[] kinds;
+    private final int[] bounds;
+    private final int count;
+    private final int offset;
+
+    private DecreeArguments(CharSequence line, Kind[] kinds, int[] bounds, int count, int offset) {
+        this.line = line;
+        this.kinds = kinds;
+        this.bounds = bounds;
+        this.count = count;
+        this.offset = offset;
+    }
+
+    /**
+     * Tokenize arguments as passed by Bukkit (already split on spaces)
+     * @param arguments The arguments
+     * @return The tokenized arguments
+     */
+    public static DecreeArguments of(String[] arguments) {
+        return of(String.join(" ", arguments));
+    }
+
+    /**
+     * Tokenize a raw command line (without the command itself)
+     * @param line The line
+     * @return The tokenized arguments
+     */
+    public static DecreeArguments of(CharSequence line) {
+        int n = line.length();
+        Kind[] kinds = new Kind[n / 2 + 1];
+        int[] bounds = new int[kinds.length * STRIDE];
+        int count = 0;
+
+        int i = 0;
+        while (i < n) {
+            if (line.charAt(i) == ' ') {
+                i++;
+                continue;
+            }
+
+            int start = i;
+            int separatorStart = -1;
+            int separatorEnd = -1;
+            int quoteStart = -1;
+            int quoteEnd = -1;
+            boolean bad = false;
+
+            while (i < n) {
+                char c = line.charAt(i);
+                if (c == ' ') {
+                    break;
+                }
+                if (c == '"') {
+                    int close = i + 1;
+                    while (close < n && line.charAt(close) != '"') {
+                        close++;
+                    }
+                    if (i == start || i == separatorEnd) {
+                        quoteStart = i + 1;
+                        quoteEnd = close;
+                    }
+                    i = Math.min(close + 1, n);
+                    continue;
+                }
+                if (c == '=') {
+                    int run = i;
+                    while (i < n && line.charAt(i) == '=') {
+                        i++;
+                    }
+                    if (separatorStart < 0) {
+                        separatorStart = run;
+                        separatorEnd = i;
+                    } else {
+                        bad = true;
+                    }
+                    continue;
+                }
+                i++;
+            }
+
+            int end = i;
+            boolean unquoted = quoteStart >= 0 && (quoteEnd + 1 >= end);
+            int b = count * STRIDE;
+            bounds[b + START] = start;
+            bounds[b + END] = end;
+            bounds[b + KEY_START] = start;
+            bounds[b + KEY_END] = start;
+            bounds[b + VALUE_START] = start;
+            bounds[b + VALUE_END] = end;
+
+            if (bad) {
+                kinds[count] = Kind.BAD;
+            } else if (separatorStart >= 0) {
+                kinds[count] = Kind.KEYED;
+                bounds[b + KEY_END] = separatorStart;
+                bounds[b + VALUE_START] = separatorEnd;
+                if (unquoted && quoteStart == separatorEnd + 1) {
+                    bounds[b + VALUE_START] = quoteStart;
+                    bounds[b + VALUE_END] = quoteEnd;
+                }
+            } else if (line.charAt(start) == '-' && end - start > 1 && !isNumeric(line.charAt(start + 1))) {
+                kinds[count] = Kind.FLAG;
+                bounds[b + KEY_START] = start + 1;
+                bounds[b + KEY_END] = end;
+            } else {
+                kinds[count] = Kind.KEYLESS;
+                if (unquoted && quoteStart == start + 1) {
+                    bounds[b + VALUE_START] = quoteStart;
+                    bounds[b + VALUE_END] = quoteEnd;
+                }
+            }
+            count++;
+        }
+
+        return new DecreeArguments(line, kinds, bounds, count, 0);
+    }
+
+    private static boolean isNumeric(char c) {
+        return (c >= '0' && c <= '9') || c == '.';
+    }
+
+    /**
+     * @return The raw line all offsets point into
+     */
+    public CharSequence line() {
+        return line;
+    }
+
+    /**
+     * @return The amount of arguments in this view
+     */
+    public int size() {
+        return count - offset;
+    }
+
+    /**
+     * @return True if there are no arguments in this view
+     */
+    public boolean isEmpty() {
+        return size() <= 0;
+    }
+
+    /**
+     * Get a view of the arguments from an argument onward
+     * @param index The first argument of the view
+     * @return The view
+     */
+    public DecreeArguments from(int index) {
+        return new DecreeArguments(line, kinds, bounds, count, Math.min(count, offset + index));
+    }
+
+    /**
+     * @param index The argument
+     * @return The kind of argument
+     */
+    public Kind kind(int index) {
+        return kinds[offset + index];
+    }
+
+    /**
+     * @param index The argument
+     * @return The start of the full argument in the {@link #line()}
+     */
+    public int start(int index) {
+        return bound(index, START);
+    }
+
+    /**
+     * @param index The argument
+     * @return The end (exclusive) of the full argument in the {@link #line()}
+     */
+    public int end(int index) {
+        return bound(index, END);
+    }
+
+    /**
+     * @param index The argument
+     * @return The start of the key in the {@link #line()}. Only {@link Kind#KEYED} and {@link Kind#FLAG} arguments have a key.
+     */
+    public int keyStart(int index) {
+        return bound(index, KEY_START);
+    }
+
+    /**
+     * @param index The argument
+     * @return The end (exclusive) of the key in the {@link #line()}
+     */
+    public int keyEnd(int index) {
+        return bound(index, KEY_END);
+    }
+
+    /**
+     * @param index The argument
+     * @return The start of the value in the {@link #line()}, without quotes. {@link Kind#FLAG} arguments have no value.
+     */
+    public int valueStart(int index) {
+        return bound(index, VALUE_START);
+    }
+
+    /**
+     * @param index The argument
+     * @return The end (exclusive) of the value in the {@link #line()}, without quotes
+     */
+    public int valueEnd(int index) {
+        return bound(index, VALUE_END);
+    }
+
+    /**
+     * @param index The argument
+     * @return The full argument, as written
+     */
+    public CharSequence get(int index) {
+        return new Slice(line, start(index), end(index));
+    }
+
+    /**
+     * @param index The argument
+     * @return The key of the argument
+     */
+    public CharSequence key(int index) {
+        return new Slice(line, keyStart(index), keyEnd(index));
+    }
+
+    /**
+     * @param index The argument
+     * @return The value of the argument, without quotes
+     */
+    public CharSequence value(int index) {
+        return new Slice(line, valueStart(index), valueEnd(index));
+    }
+
+    /**
+     * Check whether the value of an argument equals a string, ignoring case
+     * @param index The argument
+     * @param string The string
+     * @return True if equal
+     */
+    public boolean valueEqualsIgnoreCase(int index, String string) {
+        int start = valueStart(index);
+        int length = valueEnd(index) - start;
+        if (length != string.length()) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (NameTrie.fold(line.charAt(start + i)) != NameTrie.fold(string.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Join the arguments of this view, as written
+     * @param separator The separator between arguments
+     * @return The joined arguments
+     */
+    public String toString(String separator) {
+        StringBuilder b = new StringBuilder();
+        for (int i = 0; i < size(); i++) {
+            if (i > 0) {
+                b.append(separator);
+            }
+            b.append(line, start(i), end(i));
+        }
+        return b.toString();
+    }
+
+    @Override
+    public String toString() {
+        return toString(" ");
+    }
+
+    private int bound(int index, int field) {
+        return bounds[(offset + index) * STRIDE + field];
+    }
+
+    /**
+     * A view on part of a {@link CharSequence}, without copying it
+     */
+    private record Slice(CharSequence line, int start, int end) implements CharSequence {
+
+        @Override
+        public int length() {
+            return end - start;
+        }
+
+        @Override
+        public char charAt(int index) {
+            return line.charAt(start + index);
+        }
+
+        @Override
+        public @NotNull CharSequence subSequence(int from, int to) {
+            return new Slice(line, start + from, start + to);
+        }
+
+        @Override
+        public @NotNull String toString() {
+            return line.subSequence(start, end).toString();
+        }
+    }
+}
@@ -21,7 +21,17 @@ public enum DecreeOrigin {
      * @return True if valid for this {@link DecreeOrigin}
      */
     public boolean validFor(DecreeSender sender) {
-        if (sender.isPlayer()) {
+        return validFor(sender.isPlayer());
+    }
+
+    /**
+     * Check if the {@link DecreeOrigin} is valid for a sender
+     *
+     * @param player Whether the sender is a player
+     * @return True if valid for this {@link DecreeOrigin}
+     */
+    public boolean validFor(boolean player) {
+        if (player) {
             return this.equals(PLAYER) || this.equals(BOTH);
         } else {
             return this.equals(CONSOLE) || this.equals(BOTH);
@@ -49,7 +49,18 @@ public class DecreeSender implements CommandSender {
     }
 
     public DecreeSender(CommandSender s, String tag, Plugin instance) {
-        this.audience = BukkitAudiences.create(instance).sender(s);
+        this(s, tag, BukkitAudiences.create(instance).sender(s));
+    }
+
+    /**
+     * Wrap a command sender with an existing audience
+     *
+     * @param s the command sender
+     * @param tag the command tag
+     * @param audience the audience of the command sender
+     */
+    public DecreeSender(CommandSender s, String tag, Audience audience) {
+        this.audience = audience;
         this.tag = tag;
         this.s = s;
     }
@@ -119,6 +130,35 @@ public class DecreeSender implements CommandSender {
         return MiniMessage.get().parse(t);
     }
 
+    /**
+     * Render a message to a component once, like {@link #sendMessageRaw(String)} would (without the tag)
+     *
+     * @param message the message to render
+     * @return the component
+     */
+    public static Component render(String message) {
+        String t = C.translateAlternateColorCodes('&', message);
+        try {
+            return MiniMessage.get().parse(t);
+        } catch (Throwable e) {
+            System.out.println("<NOMINI>Failure to parse " + t);
+            return Component.text(t);
+        }
+    }
+
+    /**
+     * Send a (pre-rendered) component
+     *
+     * @param message the component to send
+     */
+    public void sendMessageRaw(Component message) {
+        if (getTag().isEmpty()) {
+            audience.sendMessage(message);
+        } else {
+            audience.sendMessage(createComponentRaw("").append(message));
+        }
+    }
+
     public void sendMessageRaw(String message) {
         if (message.contains("<NOMINI>")) {
             s.sendMessage(message.replaceAll("\\Q<NOMINI>\\E", ""));
@@ -137,6 +177,17 @@ public class DecreeSender implements CommandSender {
     }
 
     public void sendHeader(String name, int overrideLength) {
+        sendMessageRaw(header(name, overrideLength));
+    }
+
+    /**
+     * Get the message of a header
+     *
+     * @param name the name in the header
+     * @param overrideLength the length of the header
+     * @return the header message
+     */
+    public static String header(String name, int overrideLength) {
         int h = name.length() + 2;
         String s = Form.repeat(" ", overrideLength - h - 4);
         String si = "(((";
@@ -145,9 +196,9 @@ public class DecreeSender implements CommandSender {
         String se = "]";
 
         if (name.trim().isEmpty()) {
-            sendMessageRaw("<font:minecraft:uniform><strikethrough><gradient:#34eb6b:#32bfad>" + sf + s + "<reset><font:minecraft:uniform><strikethrough><gradient:#32bfad:#34eb6b>" + s + se);
+            return "<font:minecraft:uniform><strikethrough><gradient:#34eb6b:#32bfad>" + sf + s + "<reset><font:minecraft:uniform><strikethrough><gradient:#32bfad:#34eb6b>" + s + se;
         } else {
-            sendMessageRaw("<font:minecraft:uniform><strikethrough><gradient:#34eb6b:#32bfad>" + sf + s + si + "<reset> <gradient:#3299bf:#323bbf>" + name + "<reset> <font:minecraft:uniform><strikethrough><gradient:#32bfad:#34eb6b>" + so + s + se);
+            return "<font:minecraft:uniform><strikethrough><gradient:#34eb6b:#32bfad>" + sf + s + si + "<reset> <gradient:#3299bf:#323bbf>" + name + "<reset> <font:minecraft:uniform><strikethrough><gradient:#32bfad:#34eb6b>" + so + s + se;
         }
     }
 
@@ -0,0 +1,186 @@
+package nl.codevs.decree.util;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Queue;
+import java.util.Set;
+import java.util.function.BiPredicate;
+
+/**
+ * Thread-safe registry of handlers which each support some types.<br>
+ * Changes are copy-on-write. Every change publishes a new immutable snapshot (with its own {@link ClassValue}),
+ * so lookups never lock and never see half of a change.<br>
+ * A lookup returns the first handler (in registration order) that supports the type itself,
+ * then tries the superclasses of the type, then its interfaces (breadth-first).
+ * The result is cached per type until the next change.
+ * @param <H> The type of handler
+ */
+public final class HandlerRegistry<H> {
+
+    private static final Object NONE = new Object();
+
+    private final BiPredicate<H, Class<?>> supports;
+    private final Object lock = new Object();
+    private volatile Snapshot snapshot;
+
+    /**
+     * Create a registry
+     * @param supports Whether a handler supports a type
+     * @param handlers The initial handlers
+     */
+    public HandlerRegistry(BiPredicate<H, Class<?>> supports, Collection<? extends H> handlers) {
+        this.supports = supports;
+        this.snapshot = new Snapshot(handlers.toArray(), 0);
+    }
+
+    /**
+     * Get the handler for a type
+     * @param type The type
+     * @return The handler, or null if no handler supports the type (or any of its supertypes)
+     */
+    @SuppressWarnings("unchecked")
+    public H get(Class<?> type) {
+        Object handler = snapshot.get(type);
+        return handler == NONE ? null : (H) handler;
+    }
+
+    /**
+     * The version of the registry. Changes every time the registry changes.
+     * @return The version
+     */
+    public int version() {
+        return snapshot.version;
+    }
+
+    /**
+     * @return A copy of the registered handlers, in registration order
+     */
+    @SuppressWarnings("unchecked")
+    public KList<H> all() {
+        KList<H> all = new KList<>();
+        for (Object handler : snapshot.handlers) {
+            all.add((H) handler);
+        }
+        return all;
+    }
+
+    /**
+     * Add a handler
+     * @param handler The handler to add
+     * @return True if the handler is new, false if it was already added.
+     */
+    public boolean add(H handler) {
+        synchronized (lock) {
+            Object[] handlers = snapshot.handlers;
+            for (Object h : handlers) {
+                if (h.equals(handler)) {
+                    return false;
+                }
+            }
+            Object[] added = new Object[handlers.length + 1];
+            System.arraycopy(handlers, 0, added, 0, handlers.length);
+            added[handlers.length] = handler;
+            publish(added);
+            return true;
+        }
+    }
+
+    /**
+     * Remove all handlers supporting a type
+     * @param type The type
+     * @return True if any existed
+     */
+    @SuppressWarnings("unchecked")
+    public boolean remove(Class<?> type) {
+        synchronized (lock) {
+            Object[] handlers = snapshot.handlers;
+            Object[] kept = new Object[handlers.length];
+            int count = 0;
+            for (Object h : handlers) {
+                if (!supports.test((H) h, type)) {
+                    kept[count++] = h;
+                }
+            }
+            if (count == handlers.length) {
+                return false;
+            }
+            Object[] trimmed = new Object[count];
+            System.arraycopy(kept, 0, trimmed, 0, count);
+            publish(trimmed);
+            return true;
+        }
+    }
+
+    /**
+     * Replace all handlers
+     * @param handlers The new handlers
+     */
+    public void set(Collection<? extends H> handlers) {
+        synchronized (lock) {
+            publish(handlers.toArray());
+        }
+    }
+
+    private void publish(Object[] handlers) {
+        snapshot = new Snapshot(handlers, snapshot.version + 1);
+    }
+
+    /**
+     * Immutable handlers, and the lookups made on them
+     */
+    private final class Snapshot extends ClassValue<Object> {
+        private final Object[] handlers;
+        private final int version;
+
+        private Snapshot(Object[] handlers, int version) {
+            this.handlers = handlers;
+            this.version = version;
+        }
+
+        @Override
+        protected Object computeValue(Class<?> type) {
+            Object handler = supporting(type);
+            if (handler != null) {
+                return handler;
+            }
+
+            for (Class<?> c = type.getSuperclass(); c != null; c = c.getSuperclass()) {
+                handler = supporting(c);
+                if (handler != null) {
+                    return handler;
+                }
+            }
+
+            Queue<Class<?>> queue = new ArrayDeque<>();
+            Set<Class<?>> seen = new HashSet<>();
+            for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+                Collections.addAll(queue, c.getInterfaces());
+            }
+            while (!queue.isEmpty()) {
+                Class<?> i = queue.poll();
+                if (!seen.add(i)) {
+                    continue;
+                }
+                handler = supporting(i);
+                if (handler != null) {
+                    return handler;
+                }
+                Collections.addAll(queue, i.getInterfaces());
+            }
+
+            return NONE;
+        }
+
+        @SuppressWarnings("unchecked")
+        private Object supporting(Class<?> type) {
+            for (Object handler : handlers) {
+                if (supports.test((H) handler, type)) {
+                    return handler;
+                }
+            }
+            return null;
+        }
+    }
+}
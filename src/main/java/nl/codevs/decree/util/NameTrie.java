@@ -0,0 +1,303 @@
+package nl.codevs.decree.util;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.IntConsumer;
+
+/**
+ * Immutable, case-folded trie over the names of a fixed set of entries.<br>
+ * Each entry may have multiple names (like a name and its aliases). Lookups return entry indices in ascending order.<br>
+ * Answers exact, prefix, contains and contained-in queries without allocating.<br>
+ * Arrays returned by lookups are shared, do not modify them.
+ */
+public final class NameTrie {
+    private static final int[] NONE = new int[0];
+
+    /**
+     * Folded names per entry, in the order they were given
+     */
+    private final String[][] names;
+
+    /**
+     * Trie of every full name
+     */
+    private final Node prefixes;
+
+    /**
+     * Trie of every suffix of every name
+     */
+    private final Node suffixes;
+
+    /**
+     * Compile a trie
+     * @param entries The names of each entry. The index in this list is the entry index returned by lookups.
+     */
+    public NameTrie(List<? extends List<String>> entries) {
+        Builder prefixBuilder = new Builder();
+        Builder suffixBuilder = new Builder();
+        names = new String[entries.size()][];
+
+        for (int entry = 0; entry < entries.size(); entry++) {
+            List<String> entryNames = entries.get(entry);
+            names[entry] = new String[entryNames.size()];
+            for (int i = 0; i < entryNames.size(); i++) {
+                String name = fold(entryNames.get(i));
+                names[entry][i] = name;
+                prefixBuilder.insert(name, 0, entry, true);
+                for (int start = 0; start < name.length(); start++) {
+                    suffixBuilder.insert(name, start, entry, false);
+                }
+            }
+        }
+
+        prefixes = prefixBuilder.freeze();
+        suffixes = suffixBuilder.freeze();
+    }
+
+    /**
+     * @return The amount of entries in this trie
+     */
+    public int size() {
+        return names.length;
+    }
+
+    /**
+     * Get the folded names of an entry
+     * @param entry The entry index
+     * @return The folded names, in the order they were given
+     */
+    public String[] names(int entry) {
+        return names[entry];
+    }
+
+    /**
+     * Entries with a name equal to the input (ignoring case)
+     * @param in The input
+     * @return Sorted entry indices
+     */
+    public int[] exact(CharSequence in) {
+        Node node = walk(prefixes, in);
+        return node == null ? NONE : node.terminals;
+    }
+
+    /**
+     * Entries with a name starting with the input (ignoring case)
+     * @param in The input
+     * @return Sorted entry indices
+     */
+    public int[] startingWith(CharSequence in) {
+        Node node = walk(prefixes, in);
+        return node == null ? NONE : node.below;
+    }
+
+    /**
+     * Entries with a name containing the input (ignoring case)
+     * @param in The input
+     * @return Sorted entry indices
+     */
+    public int[] containing(CharSequence in) {
+        Node node = walk(suffixes, in);
+        return node == null ? NONE : node.below;
+    }
+
+    /**
+     * Entries with a name that is contained in the input (ignoring case).<br>
+     * Entries may be passed to the consumer more than once.
+     * @param in The input
+     * @param consumer The consumer of entry indices
+     */
+    public void containedIn(CharSequence in, IntConsumer consumer) {
+        for (int start = 0; start < in.length(); start++) {
+            Node node = prefixes;
+            for (int i = start; i < in.length() && node != null; i++) {
+                node = node.child(fold(in.charAt(i)));
+                if (node != null) {
+                    for (int entry : node.terminals) {
+                        consumer.accept(entry);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Match an entry against an input, like {@link #tier(String[], CharSequence)}
+     * @param entry The entry index
+     * @param in The input
+     * @return The match tier (0-3)
+     */
+    public int tier(int entry, CharSequence in) {
+        return tier(names[entry], in);
+    }
+
+    /**
+     * Match folded names against an input. The first name (in order) that matches in any way determines the result.
+     * @param folded The folded names
+     * @param in The input
+     * @return
+     * 0 if no name matches<br>
+     * 1 if the input contains a name<br>
+     * 2 if a name contains the input<br>
+     * 3 if the input is a 1:1 match with a name (ignoring case)
+     */
+    public static int tier(String[] folded, CharSequence in) {
+        for (String name : folded) {
+            if (name.length() == in.length() && indexOf(name, in) == 0) {
+                return 3;
+            }
+            if (indexOf(name, in) >= 0) {
+                return 2;
+            }
+            if (indexOf(in, name) >= 0) {
+                return 1;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Find the first index of a (folded) needle in a haystack, ignoring case of the haystack
+     * @param haystack The string to search in
+     * @param needle The string to search for
+     * @return The index, or -1 if not found
+     */
+    private static int indexOf(CharSequence haystack, CharSequence needle) {
+        int max = haystack.length() - needle.length();
+        outer:
+        for (int start = 0; start <= max; start++) {
+            for (int i = 0; i < needle.length(); i++) {
+                if (fold(haystack.charAt(start + i)) != fold(needle.charAt(i))) {
+                    continue outer;
+                }
+            }
+            return start;
+        }
+        return -1;
+    }
+
+    /**
+     * Fold a string for case-insensitive comparison
+     * @param string The string to fold
+     * @return The folded string
+     */
+    public static String fold(String string) {
+        char[] chars = string.toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = fold(chars[i]);
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Fold a character for case-insensitive comparison (like {@link String#equalsIgnoreCase(String)})
+     * @param c The character to fold
+     * @return The folded character
+     */
+    public static char fold(char c) {
+        return Character.toLowerCase(Character.toUpperCase(c));
+    }
+
+    /**
+     * Walk the folded input down a trie
+     * @param root The root to start at
+     * @param in The input
+     * @return The node at the end of the input, or null if there is none
+     */
+    private static Node walk(Node root, CharSequence in) {
+        Node node = root;
+        for (int i = 0; i < in.length() && node != null; i++) {
+            node = node.child(fold(in.charAt(i)));
+        }
+        return node;
+    }
+
+    /**
+     * Frozen trie node. Children are sorted by character and searched with binary search.
+     */
+    private static final class Node {
+        private final char[] keys;
+        private final Node[] children;
+        private final int[] terminals;
+        private final int[] below;
+
+        private Node(char[] keys, Node[] children, int[] terminals, int[] below) {
+            this.keys = keys;
+            this.children = children;
+            this.terminals = terminals;
+            this.below = below;
+        }
+
+        private Node child(char c) {
+            int low = 0;
+            int high = keys.length - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                if (keys[mid] < c) {
+                    low = mid + 1;
+                } else if (keys[mid] > c) {
+                    high = mid - 1;
+                } else {
+                    return children[mid];
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Mutable trie node, used while compiling
+     */
+    private static final class Builder {
+        private final TreeMap<Character, Builder> children = new TreeMap<>();
+        private final KList<Integer> terminals = new KList<>();
+        private final KList<Integer> below = new KList<>();
+
+        /**
+         * Insert (part of) a name. Entries must be inserted in ascending order.
+         * @param name The folded name
+         * @param start The index to start inserting at
+         * @param entry The entry the name belongs to
+         * @param terminal Whether to mark the end of the name as a terminal
+         */
+        private void insert(String name, int start, int entry, boolean terminal) {
+            Builder node = this;
+            node.mark(entry);
+            for (int i = start; i < name.length(); i++) {
+                node = node.children.computeIfAbsent(name.charAt(i), c -> new Builder());
+                node.mark(entry);
+            }
+            if (terminal && (node.terminals.isEmpty() || node.terminals.getLast() != entry)) {
+                node.terminals.add(entry);
+            }
+        }
+
+        private void mark(int entry) {
+            if (below.isEmpty() || below.getLast() != entry) {
+                below.add(entry);
+            }
+        }
+
+        private Node freeze() {
+            char[] keys = new char[children.size()];
+            Node[] frozen = new Node[children.size()];
+            int i = 0;
+            for (Map.Entry<Character, Builder> child : children.entrySet()) {
+                keys[i] = child.getKey();
+                frozen[i++] = child.getValue().freeze();
+            }
+            return new Node(keys, frozen, toArray(terminals), toArray(below));
+        }
+
+        private static int[] toArray(KList<Integer> list) {
+            if (list.isEmpty()) {
+                return NONE;
+            }
+            int[] array = new int[list.size()];
+            for (int i = 0; i < array.length; i++) {
+                array[i] = list.get(i);
+            }
+            return array;
+        }
+    }
+}
@@ -0,0 +1,270 @@
+package nl.codevs.decree.util;
+
+/**
+ * Allocation-free number parsing.<br>
+ * Parses part of a {@link CharSequence} into a primitive, written into a long array, and returns a status instead of throwing.<br>
+ * Numbers may end in any combination of (case-insensitive) multiplier suffixes:<br>
+ * - k > 1.000<br>
+ * - m > 1.000.000<br>
+ * - h > 100<br>
+ * - c > 16<br>
+ * - r > 512<br>
+ * So {@code 2k} is 2000, and {@code 3ck} is 48000.<br>
+ * Decimals are stored as {@link Double#doubleToRawLongBits(double)}.
+ */
+public final class Numbers {
+
+    /**
+     * Parsed successfully
+     */
+    public static final int OK = 0;
+
+    /**
+     * The input is not a number
+     */
+    public static final int NOT_A_NUMBER = 1;
+
+    /**
+     * The input is a number, but out of range of the type
+     */
+    public static final int OUT_OF_RANGE = 2;
+
+    /**
+     * Powers of ten that are exactly representable as a double
+     */
+    private static final double[] POWERS = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private Numbers() {}
+
+    /**
+     * Get the multiplier of a suffix character
+     * @param c The character
+     * @return The multiplier, or 0 if the character is not a suffix
+     */
+    public static long suffix(char c) {
+        return switch (c) {
+            case 'k', 'K' -> 1000;
+            case 'm', 'M' -> 1000000;
+            case 'h', 'H' -> 100;
+            case 'c', 'C' -> 16;
+            case 'r', 'R' -> 16 * 32;
+            default -> 0;
+        };
+    }
+
+    /**
+     * Find where the suffixes of a number start
+     * @param in The input
+     * @param start The start of the number
+     * @param end The end (exclusive) of the number
+     * @return The index of the first suffix, or end if there are none
+     */
+    public static int suffixStart(CharSequence in, int start, int end) {
+        while (end > start && suffix(in.charAt(end - 1)) != 0) {
+            end--;
+        }
+        return end;
+    }
+
+    /**
+     * Multiply the suffixes of a number
+     * @param in The input
+     * @param start The start of the suffixes (see {@link #suffixStart(CharSequence, int, int)})
+     * @param end The end (exclusive) of the suffixes
+     * @return The multiplier, or -1 if it overflows a long
+     */
+    public static long multiplier(CharSequence in, int start, int end) {
+        long multiplier = 1;
+        for (int i = start; i < end; i++) {
+            long m = suffix(in.charAt(i));
+            if (multiplier > Long.MAX_VALUE / m) {
+                return -1;
+            }
+            multiplier *= m;
+        }
+        return multiplier;
+    }
+
+    /**
+     * Parse a whole number (with suffixes) in a range
+     * @param in The input
+     * @param start The start of the number
+     * @param end The end (exclusive) of the number
+     * @param min The minimum value (inclusive)
+     * @param max The maximum value (inclusive)
+     * @param out The array to write the value into
+     * @param index The index in the array to write the value to
+     * @return {@link #OK}, {@link #NOT_A_NUMBER} or {@link #OUT_OF_RANGE}
+     */
+    public static int parseLong(CharSequence in, int start, int end, long min, long max, long[] out, int index) {
+        int digitsEnd = suffixStart(in, start, end);
+        int i = start;
+        boolean negative = false;
+        if (i < digitsEnd && (in.charAt(i) == '-' || in.charAt(i) == '+')) {
+            negative = in.charAt(i) == '-';
+            i++;
+        }
+        if (i == digitsEnd) {
+            return NOT_A_NUMBER;
+        }
+
+        // Accumulate negatively, like Long#parseLong, so Long.MIN_VALUE fits
+        long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+        long multiplyLimit = limit / 10;
+        long value = 0;
+        boolean overflow = false;
+        for (; i < digitsEnd; i++) {
+            int digit = in.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return NOT_A_NUMBER;
+            }
+            if (overflow || value < multiplyLimit || value * 10 < limit + digit) {
+                overflow = true;
+            } else {
+                value = value * 10 - digit;
+            }
+        }
+        if (overflow) {
+            return OUT_OF_RANGE;
+        }
+
+        long multiplier = multiplier(in, digitsEnd, end);
+        if (multiplier < 0 || (multiplier > 1 && value < limit / multiplier)) {
+            return OUT_OF_RANGE;
+        }
+        value *= multiplier;
+        if (!negative) {
+            value = -value;
+        }
+
+        if (value < min || value > max) {
+            return OUT_OF_RANGE;
+        }
+        out[index] = value;
+        return OK;
+    }
+
+    /**
+     * Parse a decimal number (with suffixes), like {@code -1.5}, {@code .5k} or {@code 2e3}
+     * @param in The input
+     * @param start The start of the number
+     * @param end The end (exclusive) of the number
+     * @param max The maximum absolute value (inclusive), like {@link Double#MAX_VALUE} or {@link Float#MAX_VALUE}
+     * @param out The array to write the {@link Double#doubleToRawLongBits(double) raw bits} of the value into
+     * @param index The index in the array to write the value to
+     * @return {@link #OK}, {@link #NOT_A_NUMBER} or {@link #OUT_OF_RANGE}
+     */
+    public static int parseDouble(CharSequence in, int start, int end, double max, long[] out, int index) {
+        int numberEnd = suffixStart(in, start, end);
+        int i = start;
+        boolean negative = false;
+        if (i < numberEnd && (in.charAt(i) == '-' || in.charAt(i) == '+')) {
+            negative = in.charAt(i) == '-';
+            i++;
+        }
+
+        long mantissa = 0;
+        int digits = 0;
+        int significant = 0;
+        int exponent = 0;
+        boolean dot = false;
+        for (; i < numberEnd; i++) {
+            char c = in.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits++;
+                if (mantissa == 0 && c == '0') {
+                    if (dot) {
+                        exponent--;
+                    }
+                    continue;
+                }
+                if (significant < 18) {
+                    mantissa = mantissa * 10 + (c - '0');
+                    significant++;
+                    if (dot) {
+                        exponent--;
+                    }
+                } else if (!dot) {
+                    exponent++;
+                }
+            } else if (c == '.' && !dot) {
+                dot = true;
+            } else if ((c == 'e' || c == 'E') && digits > 0) {
+                break;
+            } else {
+                return NOT_A_NUMBER;
+            }
+        }
+        if (digits == 0) {
+            return NOT_A_NUMBER;
+        }
+
+        if (i < numberEnd) {
+            // Exponent
+            i++;
+            boolean negativeExponent = false;
+            if (i < numberEnd && (in.charAt(i) == '-' || in.charAt(i) == '+')) {
+                negativeExponent = in.charAt(i) == '-';
+                i++;
+            }
+            if (i == numberEnd) {
+                return NOT_A_NUMBER;
+            }
+            int e = 0;
+            for (; i < numberEnd; i++) {
+                int digit = in.charAt(i) - '0';
+                if (digit < 0 || digit > 9) {
+                    return NOT_A_NUMBER;
+                }
+                if (e < 100000) {
+                    e = e * 10 + digit;
+                }
+            }
+            exponent += negativeExponent ? -e : e;
+        }
+
+        double value;
+        if (mantissa == 0) {
+            value = 0;
+        } else if (mantissa < (1L << 53) && exponent >= -22 && exponent <= 22) {
+            // Both operands are exact, so the result is correctly rounded
+            value = exponent < 0 ? mantissa / POWERS[-exponent] : mantissa * POWERS[exponent];
+        } else {
+            // Rare, take the slow (and exact) path
+            value = Double.parseDouble(in.subSequence(start, numberEnd).toString());
+            negative = false;
+        }
+        if (negative) {
+            value = -value;
+        }
+
+        long multiplier = multiplier(in, numberEnd, end);
+        if (multiplier < 0) {
+            return OUT_OF_RANGE;
+        }
+        value *= multiplier;
+
+        if (Math.abs(value) > max) {
+            return OUT_OF_RANGE;
+        }
+        out[index] = Double.doubleToRawLongBits(value);
+        return OK;
+    }
+
+    /**
+     * Describe a failed status
+     * @param status The status
+     * @param decimal Whether the number should have been a decimal
+     * @return The reason
+     */
+    public static String reason(int status, boolean decimal) {
+        return switch (status) {
+            case OK -> "None";
+            case OUT_OF_RANGE -> "Out of range";
+            default -> decimal ? "Not a number" : "Not a whole number";
+        };
+    }
+}
@@ -0,0 +1,267 @@
+package nl.codevs.decree.util;
+
+import nl.codevs.decree.util.ServerSnapshot.PlayerState;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Immutable per-world spatial index of player positions.<br>
+ * Players are bucketed in a uniform grid of {@value #CELL} by {@value #CELL} block columns.
+ * Built from the player states of a {@link ServerSnapshot} (see {@link ServerSnapshot#grid()}),
+ * so queries are thread-safe, do not touch the players' locations, and only visit the cells around the query.
+ */
+public final class PlayerGrid {
+
+    /**
+     * The width (and length) of a cell, in blocks
+     */
+    public static final int CELL = 64;
+
+    private static final int SHIFT = Integer.numberOfTrailingZeros(CELL);
+
+    /**
+     * The grids per world, by world id
+     */
+    private final Map<UUID, Grid> grids = new HashMap<>();
+
+    /**
+     * Build a grid
+     * @param players The states of the players
+     */
+    public PlayerGrid(PlayerState[] players) {
+        Map<UUID, KList<PlayerState>> byWorld = new HashMap<>();
+        for (PlayerState player : players) {
+            byWorld.computeIfAbsent(player.world(), w -> new KList<>()).add(player);
+        }
+        byWorld.forEach((world, states) -> grids.put(world, new Grid(states)));
+    }
+
+    /**
+     * Get the player closest to another player
+     * @param of The state of the other player (who is skipped)
+     * @return The closest player in the same world, or null if there is none
+     */
+    public @Nullable Player nearest(PlayerState of) {
+        return nearest(of.world(), of.x(), of.y(), of.z(), of.player());
+    }
+
+    /**
+     * Get the player closest to a location
+     * @param location The location (in a world)
+     * @param exclude A player to skip (like the sender itself), or null
+     * @return The closest player in the same world, or null if there is none
+     */
+    public @Nullable Player nearest(Location location, @Nullable Player exclude) {
+        World world = location.getWorld();
+        return world == null ? null : nearest(world.getUID(), location.getX(), location.getY(), location.getZ(), exclude);
+    }
+
+    /**
+     * Get the player closest to a position
+     * @param world The unique id of the world
+     * @param x The x coordinate
+     * @param y The y coordinate
+     * @param z The z coordinate
+     * @param exclude A player to skip (like the sender itself), or null
+     * @return The closest player in the world, or null if there is none
+     */
+    public @Nullable Player nearest(UUID world, double x, double y, double z, @Nullable Player exclude) {
+        Grid grid = grids.get(world);
+        return grid == null ? null : grid.nearest(x, y, z, exclude);
+    }
+
+    /**
+     * Get the players within a radius of a location
+     * @param location The location (in a world)
+     * @param radius The radius, in blocks
+     * @return The players in the same world within the radius, in no particular order
+     */
+    public KList<Player> within(Location location, double radius) {
+        World world = location.getWorld();
+        return world == null ? new KList<>() : within(world.getUID(), location.getX(), location.getY(), location.getZ(), radius);
+    }
+
+    /**
+     * Get the players within a radius of a position
+     * @param world The unique id of the world
+     * @param x The x coordinate
+     * @param y The y coordinate
+     * @param z The z coordinate
+     * @param radius The radius, in blocks
+     * @return The players in the world within the radius, in no particular order
+     */
+    public KList<Player> within(UUID world, double x, double y, double z, double radius) {
+        KList<Player> found = new KList<>();
+        Grid grid = grids.get(world);
+        if (grid != null) {
+            grid.within(x, y, z, radius, found);
+        }
+        return found;
+    }
+
+    private static long key(int cellX, int cellZ) {
+        return ((long) cellX << 32) | (cellZ & 0xFFFFFFFFL);
+    }
+
+    private static int cell(double coordinate) {
+        return (int) Math.floor(coordinate) >> SHIFT;
+    }
+
+    /**
+     * Immutable grid of one world.<br>
+     * Players are sorted by cell. Occupied cells are sorted by key, and point to their first player.
+     */
+    private static final class Grid {
+        private final Player[] players;
+        private final double[] x;
+        private final double[] y;
+        private final double[] z;
+        private final long[] keys;
+        private final int[] starts;
+        private final int minX;
+        private final int maxX;
+        private final int minZ;
+        private final int maxZ;
+
+        private Grid(KList<PlayerState> states) {
+            int n = states.size();
+            long[] cellOf = new long[n];
+            Integer[] order = new Integer[n];
+            for (int i = 0; i < n; i++) {
+                cellOf[i] = key(cell(states.get(i).x()), cell(states.get(i).z()));
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> Long.compare(cellOf[a], cellOf[b]));
+
+            players = new Player[n];
+            x = new double[n];
+            y = new double[n];
+            z = new double[n];
+            long[] cellKeys = new long[n];
+            int[] cellStarts = new int[n + 1];
+            int cells = 0;
+            int lowX = Integer.MAX_VALUE, highX = Integer.MIN_VALUE, lowZ = Integer.MAX_VALUE, highZ = Integer.MIN_VALUE;
+            for (int i = 0; i < n; i++) {
+                int from = order[i];
+                PlayerState state = states.get(from);
+                players[i] = state.player();
+                x[i] = state.x();
+                y[i] = state.y();
+                z[i] = state.z();
+                if (cells == 0 || cellKeys[cells - 1] != cellOf[from]) {
+                    cellKeys[cells] = cellOf[from];
+                    cellStarts[cells++] = i;
+                }
+                lowX = Math.min(lowX, cell(x[i]));
+                highX = Math.max(highX, cell(x[i]));
+                lowZ = Math.min(lowZ, cell(z[i]));
+                highZ = Math.max(highZ, cell(z[i]));
+            }
+            cellStarts[cells] = n;
+            keys = Arrays.copyOf(cellKeys, cells);
+            starts = Arrays.copyOf(cellStarts, cells + 1);
+            minX = lowX;
+            maxX = highX;
+            minZ = lowZ;
+            maxZ = highZ;
+        }
+
+        private Player nearest(double qx, double qy, double qz, Player exclude) {
+            int cx = cell(qx);
+            int cz = cell(qz);
+            int rings = Math.max(Math.max(cx - minX, maxX - cx), Math.max(cz - minZ, maxZ - cz));
+            Player best = null;
+            double bestDistance = Double.MAX_VALUE;
+
+            for (int r = 0; r <= rings; r++) {
+                // When the rings cover more cells than are occupied, scanning everything is cheaper
+                if ((long) (2 * r + 1) * (2 * r + 1) > 4L * keys.length) {
+                    return nearestOfAll(qx, qy, qz, exclude, best, bestDistance);
+                }
+                for (int i = -r; i <= r; i++) {
+                    for (int j = -r; j <= r; j++) {
+                        if (Math.abs(i) != r && Math.abs(j) != r) {
+                            continue;
+                        }
+                        int c = Arrays.binarySearch(keys, key(cx + i, cz + j));
+                        if (c < 0) {
+                            continue;
+                        }
+                        for (int p = starts[c]; p < starts[c + 1]; p++) {
+                            double d = distance(p, qx, qy, qz);
+                            if (d < bestDistance && players[p] != exclude) {
+                                best = players[p];
+                                bestDistance = d;
+                            }
+                        }
+                    }
+                }
+                // Everything in the next ring is at least r cells away (horizontally)
+                double bound = (double) r * CELL;
+                if (best != null && bestDistance <= bound * bound) {
+                    return best;
+                }
+            }
+            return best;
+        }
+
+        private Player nearestOfAll(double qx, double qy, double qz, Player exclude, Player best, double bestDistance) {
+            for (int p = 0; p < players.length; p++) {
+                double d = distance(p, qx, qy, qz);
+                if (d < bestDistance && players[p] != exclude) {
+                    best = players[p];
+                    bestDistance = d;
+                }
+            }
+            return best;
+        }
+
+        private void within(double qx, double qy, double qz, double radius, KList<Player> found) {
+            double squared = radius * radius;
+            int lowX = Math.max(minX, cell(qx - radius));
+            int highX = Math.min(maxX, cell(qx + radius));
+            int lowZ = Math.max(minZ, cell(qz - radius));
+            int highZ = Math.min(maxZ, cell(qz + radius));
+            if (lowX > highX || lowZ > highZ) {
+                return;
+            }
+
+            if ((long) (highX - lowX + 1) * (highZ - lowZ + 1) > keys.length) {
+                for (int p = 0; p < players.length; p++) {
+                    if (distance(p, qx, qy, qz) <= squared) {
+                        found.add(players[p]);
+                    }
+                }
+                return;
+            }
+
+            for (int i = lowX; i <= highX; i++) {
+                for (int j = lowZ; j <= highZ; j++) {
+                    int c = Arrays.binarySearch(keys, key(i, j));
+                    if (c < 0) {
+                        continue;
+                    }
+                    for (int p = starts[c]; p < starts[c + 1]; p++) {
+                        if (distance(p, qx, qy, qz) <= squared) {
+                            found.add(players[p]);
+                        }
+                    }
+                }
+            }
+        }
+
+        private double distance(int p, double qx, double qy, double qz) {
+            double dx = x[p] - qx;
+            double dy = y[p] - qy;
+            double dz = z[p] - qz;
+            return dx * dx + dy * dy + dz * dz;
+        }
+    }
+}
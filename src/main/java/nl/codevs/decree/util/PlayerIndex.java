@@ -0,0 +1,150 @@
+package nl.codevs.decree.util;
+
+import org.bukkit.entity.Player;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Immutable index of a set of players, by name.<br>
+ * Part of a {@link ServerSnapshot}, and carried over to the next snapshot for as long as the same players are online,
+ * so the case-folded {@link NameTrie} over the names is only compiled (on the first lookup) when players join or quit.<br>
+ * Lookups are thread-safe, and take time in the length of the input and the amount of results, not in the amount of players.
+ */
+public final class PlayerIndex {
+
+    private final Player[] players;
+    private final String[] names;
+
+    /**
+     * The trie over the names, or null if it was not compiled yet
+     */
+    private volatile NameTrie trie;
+
+    /**
+     * Create an index. Must run on the main thread (it reads the names of the players).
+     * @param players The players, in the order lookups return them
+     */
+    public PlayerIndex(Player[] players) {
+        this.players = players;
+        this.names = new String[players.length];
+        for (int i = 0; i < players.length; i++) {
+            names[i] = players[i].getName();
+        }
+    }
+
+    /**
+     * Check whether this index is over exactly these players (in this order)
+     * @param players The players
+     * @return True if they are the same
+     */
+    public boolean isOf(Player[] players) {
+        if (players.length != this.players.length) {
+            return false;
+        }
+        for (int i = 0; i < players.length; i++) {
+            if (players[i] != this.players[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return The amount of players
+     */
+    public int size() {
+        return players.length;
+    }
+
+    /**
+     * @return A copy of the players
+     */
+    public KList<Player> all() {
+        return new KList<>(List.of(players));
+    }
+
+    /**
+     * @return A random player, or null if there are none
+     */
+    public Player random() {
+        return players.length == 0 ? null : players[ThreadLocalRandom.current().nextInt(players.length)];
+    }
+
+    /**
+     * Get the player with a name (ignoring case)
+     * @param name The name
+     * @return The player, or null if no player has that name
+     */
+    public Player exact(CharSequence name) {
+        int[] found = trie().exact(name);
+        return found.length == 0 ? null : players[found[0]];
+    }
+
+    /**
+     * Get the players matching an input (ignoring case), like {@link nl.codevs.decree.handlers.DecreeParameterHandler#getPossibilities(String)}:
+     * the name equals the input, the name contains the input, or the input contains the name.
+     * @param in The input
+     * @return The matching players
+     */
+    public KList<Player> matching(CharSequence in) {
+        NameTrie t = trie();
+        BitSet found = new BitSet(players.length);
+        for (int entry : t.containing(in)) {
+            found.set(entry);
+        }
+        t.containedIn(in, found::set);
+
+        KList<Player> matches = new KList<>();
+        for (int entry = found.nextSetBit(0); entry >= 0; entry = found.nextSetBit(entry + 1)) {
+            matches.add(players[entry]);
+        }
+        return matches;
+    }
+
+    /**
+     * Get the names of the players with a name starting with a prefix (ignoring case), for completions
+     * @param prefix The prefix
+     * @return The names
+     */
+    public KList<String> namesStartingWith(CharSequence prefix) {
+        KList<String> found = new KList<>();
+        for (int entry : trie().startingWith(prefix)) {
+            found.add(names[entry]);
+        }
+        return found;
+    }
+
+    /**
+     * Get the best names of the players with a name starting with a prefix (ignoring case), ranked like {@link Completions}
+     * @param prefix The prefix
+     * @param limit The maximal amount of names
+     * @return The names, best first
+     */
+    public KList<String> namesStartingWith(CharSequence prefix, int limit) {
+        Completions found = new Completions(prefix, limit);
+        for (int entry : trie().startingWith(prefix)) {
+            found.offer(names[entry]);
+        }
+        return found.toList();
+    }
+
+    /**
+     * Get the trie, compiling it if that was not done yet
+     * @return The trie
+     */
+    private NameTrie trie() {
+        NameTrie t = trie;
+        if (t == null) {
+            KList<List<String>> entries = new KList<>();
+            for (String name : names) {
+                entries.add(List.of(name));
+            }
+            // Compiling twice in a race is harmless, both tries are equal
+            t = new NameTrie(entries);
+            trie = t;
+        }
+        return t;
+    }
+}
@@ -0,0 +1,165 @@
+package nl.codevs.decree.util;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+import org.bukkit.util.BlockVector;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Immutable view of the server state that parsing and tab completion need: the online players (with their positions) and the loaded worlds.<br>
+ * Captured on the main thread (see {@link nl.codevs.decree.DecreeSystem.Server}), and safe to read from any thread,
+ * unlike {@link Bukkit#getOnlinePlayers()}, {@link Bukkit#getWorlds()} and {@link Player#getLocation()}.<br>
+ * The {@link #index() name index} and {@link #grid() spatial grid} are built on first use.
+ */
+public final class ServerSnapshot {
+
+    /**
+     * A snapshot without players or worlds
+     */
+    public static final ServerSnapshot EMPTY = new ServerSnapshot(0, new PlayerState[0], new World[0], new PlayerIndex(new Player[0]));
+
+    /**
+     * The state of a player at the time of the snapshot
+     * @param player The player
+     * @param name The name of the player
+     * @param id The unique id of the player
+     * @param world The unique id of the world the player is in
+     * @param x The x coordinate of the player
+     * @param y The y coordinate of the player
+     * @param z The z coordinate of the player
+     */
+    public record PlayerState(Player player, String name, UUID id, UUID world, double x, double y, double z) {
+
+        /**
+         * @return The position of the player, as a {@link BlockVector}
+         */
+        public BlockVector toBlockVector() {
+            return new BlockVector(Math.floor(x), Math.floor(y), Math.floor(z));
+        }
+    }
+
+    private final long version;
+    private final PlayerState[] players;
+    private final Map<UUID, PlayerState> byId;
+    private final World[] worlds;
+    private final Map<UUID, World> worldsById;
+    private final PlayerIndex index;
+    private volatile PlayerGrid grid;
+
+    private ServerSnapshot(long version, PlayerState[] players, World[] worlds, PlayerIndex index) {
+        this.version = version;
+        this.players = players;
+        this.worlds = worlds;
+        this.index = index;
+        this.byId = new HashMap<>(players.length * 2);
+        for (PlayerState state : players) {
+            byId.put(state.id(), state);
+        }
+        this.worldsById = new HashMap<>(worlds.length * 2);
+        for (World world : worlds) {
+            worldsById.put(world.getUID(), world);
+        }
+    }
+
+    /**
+     * Capture the state of the server. Must run on the main thread.
+     * @param previous The previous snapshot (its name index is reused if the same players are online)
+     * @param leaving A player that is leaving (but still online), or null
+     * @param unloading A world that is unloading (but still loaded), or null
+     * @return The new snapshot
+     */
+    public static ServerSnapshot capture(ServerSnapshot previous, @Nullable Player leaving, @Nullable World unloading) {
+        KList<Player> online = new KList<>();
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            if (player != leaving) {
+                online.add(player);
+            }
+        }
+
+        PlayerState[] states = new PlayerState[online.size()];
+        Player[] players = new Player[online.size()];
+        Location reuse = new Location(null, 0, 0, 0);
+        for (int i = 0; i < states.length; i++) {
+            Player player = online.get(i);
+            player.getLocation(reuse);
+            players[i] = player;
+            states[i] = new PlayerState(player, player.getName(), player.getUniqueId(), player.getWorld().getUID(), reuse.getX(), reuse.getY(), reuse.getZ());
+        }
+
+        KList<World> loaded = new KList<>();
+        for (World world : Bukkit.getWorlds()) {
+            if (world != unloading) {
+                loaded.add(world);
+            }
+        }
+
+        PlayerIndex index = previous.index.isOf(players) ? previous.index : new PlayerIndex(players);
+        return new ServerSnapshot(previous.version + 1, states, loaded.toArray(new World[0]), index);
+    }
+
+    /**
+     * @return The version of the snapshot. Every capture increments it.
+     */
+    public long version() {
+        return version;
+    }
+
+    /**
+     * @return The states of the online players
+     */
+    public KList<PlayerState> players() {
+        return new KList<>(List.of(players));
+    }
+
+    /**
+     * Get the state of a player
+     * @param id The unique id of the player
+     * @return The state, or null if the player was not online
+     */
+    public @Nullable PlayerState player(UUID id) {
+        return byId.get(id);
+    }
+
+    /**
+     * @return The loaded worlds
+     */
+    public KList<World> worlds() {
+        return new KList<>(List.of(worlds));
+    }
+
+    /**
+     * Get a loaded world
+     * @param id The unique id of the world
+     * @return The world, or null if it was not loaded
+     */
+    public @Nullable World world(UUID id) {
+        return worldsById.get(id);
+    }
+
+    /**
+     * @return The index of the online players by name
+     */
+    public PlayerIndex index() {
+        return index;
+    }
+
+    /**
+     * @return The spatial grid of the online players
+     */
+    public PlayerGrid grid() {
+        PlayerGrid g = grid;
+        if (g == null) {
+            // Building twice in a race is harmless, both grids are equal
+            g = new PlayerGrid(players);
+            grid = g;
+        }
+        return g;
+    }
+}
@@ -0,0 +1,33 @@
+package nl.codevs.decree.virtual;
+
+import java.lang.constant.ConstantDescs;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+
+/**
+ * Template of the {@link DecreeInvoker}s made by {@link Invokers}.<br>
+ * Never used directly: each command gets a hidden copy of this class, with its own handle as class data.
+ * Because the handle is in a static final field, the JIT treats it as a constant and inlines the command method into {@link #invoke(Object[], long[])}.
+ */
+final class ConstantInvoker implements DecreeInvoker {
+
+    /**
+     * The handle of type (Object[], long[])void, read from the class data of the hidden copy
+     */
+    private static final MethodHandle HANDLE = classData();
+
+    private ConstantInvoker() {}
+
+    @Override
+    public void invoke(Object[] params, long[] primitives) throws Throwable {
+        HANDLE.invokeExact(params, primitives);
+    }
+
+    private static MethodHandle classData() {
+        try {
+            return MethodHandles.classData(MethodHandles.lookup(), ConstantDescs.DEFAULT_NAME, MethodHandle.class);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
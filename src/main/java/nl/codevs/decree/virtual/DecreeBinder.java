@@ -0,0 +1,840 @@
+package nl.codevs.decree.virtual;
+
+import nl.codevs.decree.DecreeSystem;
+import nl.codevs.decree.context.DecreeContextHandler;
+import nl.codevs.decree.exceptions.DecreeException;
+import nl.codevs.decree.handlers.DecreeParameterHandler;
+import nl.codevs.decree.handlers.NumberHandler;
+import nl.codevs.decree.handlers.ParseResult;
+import nl.codevs.decree.util.C;
+import nl.codevs.decree.util.Completions;
+import nl.codevs.decree.util.DecreeArguments;
+import nl.codevs.decree.util.DecreeSender;
+import nl.codevs.decree.util.KList;
+import nl.codevs.decree.util.NameTrie;
+import nl.codevs.decree.util.Numbers;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Compiled parameter binder for a {@link DecreeCommand}.<br>
+ * Built once per command. Binds string arguments to parameter values using precomputed name tables,
+ * and writes the results into a flat slot array indexed by parameter (declaration) position.<br>
+ * Matching tiers, in order, for keyed (name=value) and null (name=null) arguments:<br>
+ * 1. A name equals the key<br>
+ * 2. A name equals the key, ignoring case<br>
+ * 3. A name contains the key<br>
+ * 4. The key contains a name<br>
+ * After that, -boolean arguments and keyless arguments are matched, and remaining parameters are filled with defaults or context.
+ */
+public final class DecreeBinder {
+
+    /**
+     * Slot value for parameters that are bound to null.
+     * Unbound slots are {@code null}.
+     */
+    public static final Object NULL = new Object();
+
+    /**
+     * Slot value for parameters of primitive number types, of which the value is in the primitive slots.
+     * See {@link DecreeInvoker#invoke(Object[], long[])}.
+     */
+    public static final Object PRIMITIVE = new Object();
+
+    /**
+     * Slot value for parameters of which the sender still has to pick the value
+     */
+    private static final Object PENDING = new Object();
+
+    /**
+     * Result of parsing straight into a primitive slot
+     */
+    private static final ParseResult<?> PARSED_PRIMITIVE = ParseResult.success(PRIMITIVE);
+
+    private final DecreeCommand command;
+
+    /**
+     * Parameters in matching order (required first, then contextual)
+     */
+    private final DecreeParameter[] parameters;
+
+    /**
+     * Declaration (slot) index of each parameter in {@link #parameters}
+     */
+    private final int[] slots;
+
+    /**
+     * Names of each parameter in {@link #parameters}
+     */
+    private final String[][] names;
+
+    /**
+     * Folded names of each parameter in {@link #parameters}
+     */
+    private final NameTrie trie;
+
+    /**
+     * Whether each parameter in {@link #parameters} is of a primitive number type (see {@link DecreeInvoker#isPrimitive(Class)})
+     */
+    private final boolean[] primitive;
+
+    /**
+     * Compile a binder
+     * @param command The command to compile the binder for
+     */
+    public DecreeBinder(DecreeCommand command) {
+        this.command = command;
+        KList<DecreeParameter> declared = command.getParameters(false);
+        KList<DecreeParameter> sorted = command.getParameters(true);
+        this.parameters = sorted.toArray(new DecreeParameter[0]);
+        this.slots = new int[parameters.length];
+        this.names = new String[parameters.length][];
+        this.primitive = new boolean[parameters.length];
+
+        for (int i = 0; i < parameters.length; i++) {
+            slots[i] = declared.indexOf(parameters[i]);
+            names[i] = parameters[i].getNames().toArray(new String[0]);
+            primitive[i] = DecreeInvoker.isPrimitive(parameters[i].getType());
+        }
+        this.trie = new NameTrie(sorted.convert(DecreeParameter::getNames));
+    }
+
+    /**
+     * @return The amount of parameters (and slots) of the command
+     */
+    public int size() {
+        return parameters.length;
+    }
+
+    /**
+     * Bind arguments to parameters.<br>
+     * If an input matches multiple options (and {@link nl.codevs.decree.decrees.DecreeSettings#pickFirstOnMultiple} is off), the sender is asked to pick one.
+     * The binding is then suspended until they did, without holding the calling thread, and the returned future completes later.
+     * @param args The arguments (parameters) to parse into the command
+     * @param sender The sender of the command
+     * @param primitives The primitive slot array to write primitive number values into (declaration order, size {@link #size()})
+     * @return A future with the slot array (declaration order, {@link #NULL} for null values, {@link #PRIMITIVE} for primitive number values), or with null if binding failed.
+     * Already completed if the sender did not have to pick anything.
+     */
+    public CompletableFuture<Object[]> bind(DecreeArguments args, DecreeSender sender, long[] primitives) {
+        Binding b = new Binding(args, primitives);
+
+        // Sort args into their corresponding kinds
+        for (int i = 0; i < args.size(); i++) {
+            sort(b, i);
+        }
+
+        // Keyed and null arguments, tier by tier
+        for (int tier = 0; tier < 4; tier++) {
+            for (int k = 0; k < b.keyedCount; k++) {
+                if (b.keyedDone[k]) {
+                    continue;
+                }
+                int option = find(b.remaining, tier, b.keys[k]);
+                if (option < 0) {
+                    continue;
+                }
+                if (parseInto(b, option, b.keyed[k], sender)) {
+                    b.remaining[option] = false;
+                    b.keyedDone[k] = true;
+                } else if (DecreeSystem.settings.nullOnFailure) {
+                    b.slots[slots[option]] = NULL;
+                }
+            }
+        }
+        for (int tier = 0; tier < 4; tier++) {
+            for (int k = 0; k < b.nullCount; k++) {
+                if (b.nullDone[k]) {
+                    continue;
+                }
+                int option = find(b.remaining, tier, b.nullKeys[k]);
+                if (option >= 0) {
+                    b.slots[slots[option]] = NULL;
+                    b.remaining[option] = false;
+                    b.nullDone[k] = true;
+                }
+            }
+        }
+
+        // Keyless arguments
+        boolean[] keylessOptions = b.remaining.clone();
+        looping: for (int option = 0; option < parameters.length; option++) {
+            if (!keylessOptions[option]) {
+                continue;
+            }
+            DecreeParameter parameter = parameters[option];
+
+            if (parameter.getHandler().supports(boolean.class)) {
+                for (int tier = 0; tier < 4; tier++) {
+                    for (int d = 0; d < b.dashCount; d++) {
+                        if (!b.dashDone[d] && matches(tier, option, b.dashes[d])) {
+                            b.slots[slots[option]] = true;
+                            b.dashDone[d] = true;
+                            b.remaining[option] = false;
+                        }
+                    }
+                }
+            }
+
+            for (int k = 0; k < b.keylessCount; k++) {
+                if (b.keylessDone[k]) {
+                    continue;
+                }
+                int keylessArg = b.keyless[k];
+
+                if (DecreeSystem.settings.allowNullInput && args.valueEqualsIgnoreCase(keylessArg, "null")) {
+                    command.debug("Null parameter added: " + C.GOLD + args.get(keylessArg), C.GREEN);
+                    b.slots[slots[option]] = NULL;
+                    continue looping;
+                }
+
+                try {
+                    ParseResult<?> result = parse(b, option, args.valueStart(keylessArg), args.valueEnd(keylessArg));
+                    if (result.isFailure()) {
+                        b.failures[option] = result;
+                        continue;
+                    }
+                    b.failures[option] = null;
+                    b.remaining[option] = false;
+                    b.keylessDone[k] = true;
+
+                    if (result.isSuccess()) {
+                        b.slots[slots[option]] = result.getValue() == null ? NULL : result.getValue();
+                        continue looping;
+                    } else if (DecreeSystem.settings.pickFirstOnMultiple) {
+                        b.slots[slots[option]] = result.getOptions().get(0);
+                    } else {
+                        pick(b, option, result.getOptions(), args.value(keylessArg).toString());
+                        continue looping;
+                    }
+                } catch (Throwable e) {
+                    // This exception is actually something that is broken
+                    command.debug("Parsing " + C.GOLD + args.get(keylessArg) + C.RED + " into " + C.GOLD + parameter.getName() + C.RED + " failed because of: " + C.GOLD + e.getMessage(), C.RED);
+                    e.printStackTrace();
+                    command.debug("If you see a handler in the stacktrace that we (" + C.DECREE + "Decree" + C.RED + ") wrote, please report this bug to us.", C.RED);
+                    command.debug("If you see a custom handler of your own, there is an issue with it.", C.RED);
+                }
+            }
+        }
+
+        // Remaining parameters
+        boolean[] remainingOptions = b.remaining.clone();
+        for (int option = 0; option < parameters.length; option++) {
+            if (!remainingOptions[option]) {
+                continue;
+            }
+            DecreeParameter parameter = parameters[option];
+
+            if (parameter.hasDefault()) {
+                b.failures[option] = null;
+                ParseResult<?> result = parameter.getDefaultValue();
+                if (result.isSuccess()) {
+                    b.slots[slots[option]] = result.getValue() == null ? NULL : result.getValue();
+                    b.remaining[option] = false;
+                } else if (result.isFailure()) {
+                    if (DecreeSystem.settings.nullOnFailure) {
+                        b.slots[slots[option]] = NULL;
+                        b.remaining[option] = false;
+                    } else if (DecreeSystem.settings.debug) {
+                        command.debug("Default value " + C.GOLD + parameter.getDefaultRaw() + C.RED + " could not be parsed to " + parameter.getType().getSimpleName(), C.RED);
+                        command.debug("Reason: " + C.GOLD + result.getMessage(), C.RED);
+                    }
+                } else {
+                    command.debug("Default value " + C.GOLD + parameter.getDefaultRaw() + C.RED + " returned multiple options", C.RED);
+                    b.remaining[option] = false;
+                    if (DecreeSystem.settings.pickFirstOnMultiple) {
+                        command.debug("Adding: " + C.GOLD + result.getOptions().get(0), C.GREEN);
+                        b.slots[slots[option]] = result.getOptions().get(0);
+                    } else {
+                        pick(b, option, result.getOptions(), parameter.getDefaultRaw());
+                    }
+                }
+            } else if (parameter.isContextual() && sender.isPlayer()) {
+                b.failures[option] = null;
+                DecreeContextHandler<?> handler;
+                try {
+                    handler = DecreeSystem.Context.getHandler(parameter.getType());
+                } catch (DecreeException e) {
+                    command.debug("Parameter " + parameter.getName() + " marked as contextual without available context handler (" + parameter.getType().getSimpleName() + ").", C.RED);
+                    sender.sendMessageRaw(C.RED + "Parameter " + C.GOLD + parameter.getHelp(sender, true) + C.RED + " marked as contextual without available context handler (" + parameter.getType().getSimpleName() + "). Please context your admin.");
+                    e.printStackTrace();
+                    continue;
+                }
+                Object contextValue = handler.handle(sender);
+                if (DecreeSystem.settings.debug) {
+                    command.debug("Context value for " + C.GOLD + parameter.getName() + C.GREEN + " set to: " + handler.handleToString(sender), C.GREEN);
+                }
+                b.slots[slots[option]] = contextValue == null ? NULL : contextValue;
+                b.remaining[option] = false;
+            } else if (b.failures[option] != null) {
+                command.debug("Parameter: " + C.GOLD + parameter.getName() + C.RED + " not fulfilled due to parse failure: " + b.failures[option].getMessage(), C.RED);
+            }
+        }
+
+        if (b.picks.isEmpty()) {
+            return CompletableFuture.completedFuture(finish(b, sender));
+        }
+
+        // Ask for the picks one after another, then finish
+        CompletableFuture<Void> picking = CompletableFuture.completedFuture(null);
+        for (Pick pick : b.picks) {
+            picking = picking.thenCompose(ignored -> command.pickValidOption(sender, pick.options(), parameters[pick.option()]).thenAccept(picked -> {
+                if (picked == null) {
+                    b.slots[slots[pick.option()]] = null;
+                    b.badArgs.add(pick.input());
+                } else {
+                    b.slots[slots[pick.option()]] = picked;
+                }
+            }));
+        }
+        return picking.thenApply(ignored -> finish(b, sender));
+    }
+
+    /**
+     * Leave the value of a parameter to the sender, who picks one of the options once binding is done
+     * @param b The binding
+     * @param option The position of the parameter
+     * @param options The options to pick from
+     * @param input The input that resulted in the options
+     */
+    private void pick(Binding b, int option, KList<?> options, String input) {
+        b.slots[slots[option]] = PENDING;
+        b.picks.add(new Pick(option, options, input));
+    }
+
+    /**
+     * Finish a binding once all values are known
+     * @param b The binding
+     * @param sender The sender of the command
+     * @return The slot array, or null if binding failed
+     */
+    private Object[] finish(Binding b, DecreeSender sender) {
+        lowerPrimitives(b);
+
+        if (DecreeSystem.Trace.enabled) {
+            traceResult(b);
+        }
+        if (DecreeSystem.settings.debug) {
+            debugResult(b);
+        }
+
+        return validate(b, sender) ? b.slots : null;
+    }
+
+    /**
+     * Complete the argument being entered.<br>
+     * Works out which parameters are still unbound from the arguments entered before it (matching keys and -booleans like {@link #bind(DecreeArguments, DecreeSender, long[])},
+     * and keyless arguments to the first remaining parameter that can parse them, without picking between options),
+     * then suggests the keys ({@code name=}) and -booleans of the remaining parameters, and values of the next parameter to bind.
+     * A keyed argument ({@code name=value}) is completed with values of that parameter.<br>
+     * Values come from {@link DecreeParameterHandler#getCompletions(String, int)}, so only the best are converted to strings.
+     * @param entered The arguments entered before the one being entered
+     * @param current The argument being entered
+     * @param limit The maximal amount of completions
+     * @return The completions (full arguments), best first
+     */
+    public KList<String> complete(DecreeArguments entered, String current, int limit) {
+        boolean[] remaining = new boolean[parameters.length];
+        Arrays.fill(remaining, true);
+        for (int arg = 0; arg < entered.size(); arg++) {
+            switch (entered.kind(arg)) {
+                case KEYED -> {
+                    int option = find(remaining, entered.key(arg));
+                    if (option >= 0) {
+                        remaining[option] = false;
+                    }
+                }
+                case FLAG -> {
+                    int option = findBoolean(remaining, entered.key(arg));
+                    if (option >= 0) {
+                        remaining[option] = false;
+                    }
+                }
+                case KEYLESS -> {
+                    int option = findParsing(remaining, entered, arg);
+                    if (option >= 0) {
+                        remaining[option] = false;
+                    }
+                }
+                default -> {}
+            }
+        }
+
+        Completions completions = new Completions(current, limit);
+        int separator = current.indexOf('=');
+        if (separator >= 0) {
+            int valueStart = separator;
+            while (valueStart < current.length() && current.charAt(valueStart) == '=') {
+                valueStart++;
+            }
+            String key = current.substring(0, separator);
+            int option = key.isEmpty() ? -1 : find(remaining, key);
+            if (option < 0 && !key.isEmpty()) {
+                // Entering a parameter again, complete it anyway
+                boolean[] all = new boolean[parameters.length];
+                Arrays.fill(all, true);
+                option = find(all, key);
+            }
+            if (option >= 0) {
+                String prefix = current.substring(0, valueStart);
+                for (String value : parameters[option].getHandler().getCompletions(current.substring(valueStart), limit)) {
+                    completions.offer(prefix + value);
+                }
+            }
+            return completions.toList();
+        }
+
+        int next = -1;
+        for (int option = 0; option < parameters.length; option++) {
+            if (!remaining[option]) {
+                continue;
+            }
+            if (next < 0) {
+                next = option;
+            }
+            boolean flag = parameters[option].getHandler().supports(boolean.class);
+            for (String name : names[option]) {
+                completions.offer(name + "=");
+                if (flag) {
+                    completions.offer("-" + name);
+                }
+            }
+        }
+        if (next >= 0) {
+            completions.offerAll(parameters[next].getHandler().getCompletions(current, limit));
+        }
+        return completions.toList();
+    }
+
+    /**
+     * Find the remaining parameter a key points to, trying the tiers in order
+     * @param remaining Whether each parameter is remaining
+     * @param key The key
+     * @return The position of the parameter, or -1 if none match
+     */
+    private int find(boolean[] remaining, CharSequence key) {
+        for (int tier = 0; tier < 4; tier++) {
+            int option = find(remaining, tier, key);
+            if (option >= 0) {
+                return option;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Find the remaining boolean parameter a -boolean argument points to, trying the tiers in order
+     * @param remaining Whether each parameter is remaining
+     * @param key The key (without the dash)
+     * @return The position of the parameter, or -1 if none match
+     */
+    private int findBoolean(boolean[] remaining, CharSequence key) {
+        for (int tier = 0; tier < 4; tier++) {
+            for (int option = 0; option < parameters.length; option++) {
+                if (remaining[option] && parameters[option].getHandler().supports(boolean.class) && matches(tier, option, key)) {
+                    return option;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Find the first remaining parameter that can parse the value of a keyless argument
+     * @param remaining Whether each parameter is remaining
+     * @param args The arguments
+     * @param arg The index of the keyless argument
+     * @return The position of the parameter, or -1 if none can parse it
+     */
+    private int findParsing(boolean[] remaining, DecreeArguments args, int arg) {
+        for (int option = 0; option < parameters.length; option++) {
+            if (!remaining[option]) {
+                continue;
+            }
+            try {
+                if (!parameters[option].getHandler().tryParse(args.line(), args.valueStart(arg), args.valueEnd(arg), false).isFailure()) {
+                    return option;
+                }
+            } catch (Throwable e) {
+                command.debug("Parsing " + C.GOLD + args.get(arg) + C.RED + " into " + C.GOLD + parameters[option].getName() + C.RED + " for completion failed because of: " + C.GOLD + e.getMessage(), C.RED);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Sort an argument into the keyed, null, -boolean, keyless or bad arguments of a binding
+     * @param b The binding to add the argument to
+     * @param arg The index of the argument
+     */
+    private void sort(Binding b, int arg) {
+        DecreeArguments args = b.args;
+        switch (args.kind(arg)) {
+            case FLAG -> b.dashes[b.dashCount++] = args.key(arg);
+            case KEYLESS -> b.keyless[b.keylessCount++] = arg;
+            case BAD -> {
+                command.debug("Parameter has multiple '=' separators (arg: " + C.GOLD + args.get(arg) + C.RED + ")", C.RED);
+                b.badArgs.add(args.get(arg).toString());
+            }
+            case KEYED -> {
+                if (args.valueStart(arg) - args.keyEnd(arg) > 1) {
+                    command.debug("Parameter fixed by treating '==' as '=' (arg: " + C.GOLD + args.get(arg) + C.RED + ")", C.RED);
+                }
+
+                if (DecreeSystem.settings.allowNullInput && args.valueEqualsIgnoreCase(arg, "null")) {
+                    command.debug("Null parameter added: " + C.GOLD + args.get(arg), C.GREEN);
+                    b.nullKeys[b.nullCount++] = args.key(arg);
+                    return;
+                }
+
+                if (args.keyStart(arg) == args.keyEnd(arg)) {
+                    command.debug("Parameter key has empty value (full arg: " + C.GOLD + args.get(arg) + C.RED + ")", C.RED);
+                    b.badArgs.add(args.get(arg).toString());
+                    return;
+                }
+
+                if (args.valueStart(arg) == args.valueEnd(arg)) {
+                    command.debug("Parameter key: " + C.GOLD + args.key(arg) + C.RED + " has empty value (full arg: " + C.GOLD + args.get(arg) + C.RED + ")", C.RED);
+                    b.badArgs.add(args.get(arg).toString());
+                    return;
+                }
+
+                b.keyed[b.keyedCount] = arg;
+                b.keys[b.keyedCount++] = args.key(arg);
+            }
+        }
+    }
+
+    /**
+     * Find the first remaining parameter matching a key in a tier
+     * @param remaining Whether each parameter is remaining
+     * @param tier The tier (0-3)
+     * @param key The key
+     * @return The position of the parameter, or -1 if none match
+     */
+    private int find(boolean[] remaining, int tier, CharSequence key) {
+        if (tier < 2) {
+            for (int option : trie.exact(key)) {
+                if (remaining[option] && (tier == 1 || matches(0, option, key))) {
+                    return option;
+                }
+            }
+            return -1;
+        }
+        for (int option = 0; option < parameters.length; option++) {
+            if (remaining[option] && matches(tier, option, key)) {
+                return option;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Check whether a key matches any name of a parameter in a tier
+     * @param tier The tier (0-3)
+     * @param option The position of the parameter
+     * @param key The key
+     * @return True if the key matches
+     */
+    private boolean matches(int tier, int option, CharSequence key) {
+        for (String name : names[option]) {
+            boolean match = switch (tier) {
+                case 0 -> name.contentEquals(key);
+                case 1 -> name.length() == key.length() && indexOf(name, key, true) == 0;
+                case 2 -> indexOf(name, key, false) >= 0;
+                default -> indexOf(key, name, false) >= 0;
+            };
+            if (match) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Find the first index of a needle in a haystack
+     * @param haystack The sequence to search in
+     * @param needle The sequence to search for
+     * @param ignoreCase Whether to ignore case
+     * @return The index, or -1 if not found
+     */
+    private static int indexOf(CharSequence haystack, CharSequence needle, boolean ignoreCase) {
+        int max = haystack.length() - needle.length();
+        outer:
+        for (int start = 0; start <= max; start++) {
+            for (int i = 0; i < needle.length(); i++) {
+                char h = haystack.charAt(start + i);
+                char n = needle.charAt(i);
+                if (h != n && (!ignoreCase || NameTrie.fold(h) != NameTrie.fold(n))) {
+                    continue outer;
+                }
+            }
+            return start;
+        }
+        return -1;
+    }
+
+    /**
+     * Parse the value of an argument into the slot of a parameter
+     * @param b The binding
+     * @param option The position of the parameter
+     * @param arg The index of the argument with the value to parse
+     * @return True if successful, false if not. Nothing is bound on parsing failure.
+     */
+    private boolean parseInto(Binding b, int option, int arg, DecreeSender sender) {
+        DecreeParameter parameter = parameters[option];
+        DecreeArguments args = b.args;
+        try {
+            ParseResult<?> result = parse(b, option, args.valueStart(arg), args.valueEnd(arg));
+            if (result.isFailure()) {
+                b.failures[option] = result;
+                return false;
+            }
+            if (result.isSuccess()) {
+                b.slots[slots[option]] = result.getValue() == null ? NULL : result.getValue();
+                return true;
+            }
+            command.debug("Value " + C.GOLD + args.value(arg) + C.RED + " returned multiple options", C.RED);
+            if (DecreeSystem.settings.pickFirstOnMultiple) {
+                command.debug("Adding: " + C.GOLD + result.getOptions().get(0), C.GREEN);
+                b.slots[slots[option]] = result.getOptions().get(0);
+            } else {
+                pick(b, option, result.getOptions(), parameter.getDefaultRaw());
+            }
+            return true;
+        } catch (Throwable e) {
+            command.getSystem().debug("Failed to parse into: '" + parameter.getName() + "' value '" + args.value(arg) + "'");
+            e.printStackTrace();
+        }
+        return false;
+    }
+
+    /**
+     * Parse part of the line of a binding for a parameter.<br>
+     * Primitive numbers are parsed straight into the primitive slots, without boxing.
+     * @param b The binding
+     * @param option The position of the parameter
+     * @param start The start of the value in the line
+     * @param end The end (exclusive) of the value in the line
+     * @return The result. A success with {@link #PRIMITIVE} as value if parsed into the primitive slot.
+     */
+    private ParseResult<?> parse(Binding b, int option, int start, int end) {
+        DecreeParameterHandler<?> handler = parameters[option].getHandler();
+        if (primitive[option] && handler instanceof NumberHandler<?> numbers) {
+            int status = numbers.parse(b.args.line(), start, end, b.primitives, slots[option]);
+            if (status == Numbers.OK) {
+                return PARSED_PRIMITIVE;
+            }
+            return ParseResult.failure(parameters[option].getType(), b.args.line().subSequence(start, end).toString(), Numbers.reason(status, DecreeInvoker.isDecimal(parameters[option].getType())));
+        }
+        return handler.tryParse(b.args.line(), start, end, false);
+    }
+
+    /**
+     * Move boxed values (ex: from defaults, context or picked options) of primitive number parameters into the primitive slots
+     * @param b The binding
+     */
+    private void lowerPrimitives(Binding b) {
+        for (int option = 0; option < parameters.length; option++) {
+            int slot = slots[option];
+            Object value = b.slots[slot];
+            if (!primitive[option] || value == null || value == PRIMITIVE) {
+                continue;
+            }
+            Class<?> type = parameters[option].getType();
+            if (value == NULL) {
+                b.primitives[slot] = DecreeInvoker.isDecimal(type) ? Double.doubleToRawLongBits(0) : 0;
+            } else if (value instanceof Number n) {
+                b.primitives[slot] = DecreeInvoker.isDecimal(type) ? Double.doubleToRawLongBits(n.doubleValue()) : n.longValue();
+            } else {
+                b.slots[slot] = null;
+                b.failures[option] = ParseResult.failure(type, String.valueOf(value), "Not a number");
+                continue;
+            }
+            b.slots[slot] = PRIMITIVE;
+        }
+    }
+
+    /**
+     * Get the bound value of a parameter, for display
+     * @param b The binding
+     * @param option The position of the parameter
+     * @return The value, {@link #NULL}, or null if unbound
+     */
+    private Object display(Binding b, int option) {
+        Object value = b.slots[slots[option]];
+        if (value != PRIMITIVE) {
+            return value;
+        }
+        long bits = b.primitives[slots[option]];
+        return DecreeInvoker.isDecimal(parameters[option].getType()) ? Double.longBitsToDouble(bits) : bits;
+    }
+
+    /**
+     * Validate a binding, and tell the sender about any unbound parameters
+     * @param b The binding
+     * @param sender The sender of the command
+     * @return True if valid, false if not
+     */
+    private boolean validate(Binding b, DecreeSender sender) {
+        boolean valid = true;
+        for (int option = 0; option < parameters.length; option++) {
+            if (b.slots[slots[option]] != null) {
+                continue;
+            }
+            DecreeParameter parameter = parameters[option];
+            command.debug("Parameter: " + C.GOLD + parameter.getName() + C.RED + " not in mapping.", C.RED);
+            String reason;
+            if (b.failures[option] != null) {
+                ParseResult<?> failure = b.failures[option];
+                reason = "(" + C.GOLD + failure.getType().getSimpleName() + C.RED + ") failed for " + C.GOLD + failure.getInput() + C.RED + ". Reason: " + C.GOLD + failure.getReason();
+            } else {
+                reason = "not specified. Please add.";
+            }
+            sender.sendMessageRaw(C.RED + "Parameter: " + C.GOLD + parameter.getHelp(sender, true) + C.RED + " " + reason);
+            valid = false;
+        }
+        return valid;
+    }
+
+    /**
+     * Record the bound values and parsing failures of a binding in the {@link DecreeSystem.Trace}
+     * @param b The binding
+     */
+    private void traceResult(Binding b) {
+        for (int option = 0; option < parameters.length; option++) {
+            Object value = display(b, option);
+            if (value != null) {
+                DecreeSystem.Trace.record(DecreeSystem.Trace.Event.BIND, parameters[option].getName(), value == NULL ? "null" : value, 0);
+            }
+            if (b.failures[option] != null) {
+                DecreeSystem.Trace.record(DecreeSystem.Trace.Event.PARSE_FAILURE, parameters[option].getName(), b.failures[option].getMessage(), 0);
+            }
+        }
+    }
+
+    /**
+     * Send debug messages describing the result of a binding
+     * @param b The binding
+     */
+    private void debugResult(Binding b) {
+        KList<String> nullArgs = new KList<>();
+        for (int k = 0; k < b.nullCount; k++) {
+            if (!b.nullDone[k]) {
+                nullArgs.add(b.nullKeys[k] + "=null");
+            }
+        }
+        KList<String> keylessArgs = new KList<>();
+        for (int k = 0; k < b.keylessCount; k++) {
+            if (!b.keylessDone[k]) {
+                keylessArgs.add(b.args.get(b.keyless[k]).toString());
+            }
+        }
+        KList<String> keyedArgs = new KList<>();
+        for (int k = 0; k < b.keyedCount; k++) {
+            if (!b.keyedDone[k]) {
+                keyedArgs.add(b.args.get(b.keyed[k]).toString());
+            }
+        }
+        KList<String> dashBooleanArgs = new KList<>();
+        for (int d = 0; d < b.dashCount; d++) {
+            if (!b.dashDone[d]) {
+                dashBooleanArgs.add(b.dashes[d].toString());
+            }
+        }
+        KList<String> failed = new KList<>();
+        KList<String> unfulfilled = new KList<>();
+        for (int option = 0; option < parameters.length; option++) {
+            if (b.failures[option] != null) {
+                failed.add(b.failures[option].getMessage());
+            }
+            if (b.remaining[option]) {
+                unfulfilled.add(parameters[option].getName());
+            }
+        }
+
+        if (DecreeSystem.settings.allowNullInput) {
+            command.debug("Unmatched null argument" + (nullArgs.size() == 1 ? "" : "s") + ": " + C.GOLD + (nullArgs.isNotEmpty() ? nullArgs.toString(", ") : "NONE"), nullArgs.isEmpty() ? C.GREEN : C.RED);
+        }
+        command.debug("Unmatched keyless argument" + (keylessArgs.size() == 1 ? "":"s") + ": " + C.GOLD + (keylessArgs.isNotEmpty() ? keylessArgs.toString(", ") : "NONE"), keylessArgs.isEmpty() ? C.GREEN : C.RED);
+        command.debug("Unmatched keyed argument" + (keyedArgs.size() == 1 ? "":"s") + ": " + C.GOLD + (keyedArgs.isNotEmpty() ? keyedArgs.toString(", ") : "NONE"), keyedArgs.isEmpty() ? C.GREEN : C.RED);
+        command.debug("Bad argument" + (b.badArgs.size() == 1 ? "":"s") + ": " + C.GOLD + (b.badArgs.isNotEmpty() ? b.badArgs.toString(", ") : "NONE"), b.badArgs.isEmpty() ? C.GREEN : C.RED);
+        command.debug("Failed argument" + (failed.size() <= 1 ? ": ":"s: \n") + C.GOLD + (failed.isNotEmpty() ? failed.toString("\n") : "NONE"), failed.isEmpty() ? C.GREEN : C.RED);
+        command.debug("Unfulfilled parameter" + (unfulfilled.size() == 1 ? "":"s") + ": " + C.GOLD + (unfulfilled.isNotEmpty() ? unfulfilled.toString(", ") : "NONE"), unfulfilled.isEmpty() ? C.GREEN : C.RED);
+        command.debug("Unfulfilled -boolean parameter" + (dashBooleanArgs.size() == 1 ? "":"s") + ": " + C.GOLD + (dashBooleanArgs.isNotEmpty() ? dashBooleanArgs.toString(", ") : "NONE"), dashBooleanArgs.isEmpty() ? C.GREEN : C.RED);
+
+        StringBuilder mappings = new StringBuilder("Parameter mapping:");
+        for (int option = 0; option < parameters.length; option++) {
+            Object value = display(b, option);
+            mappings.append("\n")
+                    .append(C.GREEN)
+                    .append("\u0009 - (")
+                    .append(C.GOLD)
+                    .append(parameters[option].getType().getSimpleName())
+                    .append(C.GREEN)
+                    .append(") ")
+                    .append(C.GOLD)
+                    .append(parameters[option].getName())
+                    .append(C.GREEN)
+                    .append(" → ")
+                    .append(value == null ? C.RED + "NONE" : C.GOLD + (value == NULL ? "null" : value.toString()));
+        }
+        command.debug(mappings.toString(), C.GREEN);
+    }
+
+    /**
+     * The state of a single binding
+     */
+    private final class Binding {
+        private final Object[] slots = new Object[parameters.length];
+        private final boolean[] remaining = new boolean[parameters.length];
+        private final ParseResult<?>[] failures = new ParseResult<?>[parameters.length];
+        private final KList<String> badArgs = new KList<>();
+        private final KList<Pick> picks = new KList<>();
+
+        private final DecreeArguments args;
+        private final long[] primitives;
+
+        private final int[] keyed;
+        private final CharSequence[] keys;
+        private final boolean[] keyedDone;
+        private int keyedCount;
+
+        private final CharSequence[] nullKeys;
+        private final boolean[] nullDone;
+        private int nullCount;
+
+        private final CharSequence[] dashes;
+        private final boolean[] dashDone;
+        private int dashCount;
+
+        private final int[] keyless;
+        private final boolean[] keylessDone;
+        private int keylessCount;
+
+        private Binding(DecreeArguments args, long[] primitives) {
+            Arrays.fill(remaining, true);
+            this.args = args;
+            this.primitives = primitives;
+            int size = args.size();
+            keyed = new int[size];
+            keys = new CharSequence[size];
+            keyedDone = new boolean[size];
+            nullKeys = new CharSequence[size];
+            nullDone = new boolean[size];
+            dashes = new CharSequence[size];
+            dashDone = new boolean[size];
+            keyless = new int[size];
+            keylessDone = new boolean[size];
+        }
+    }
+
+    /**
+     * A value the sender has to pick
+     * @param option The position of the parameter
+     * @param options The options to pick from
+     * @param input The input that resulted in the options
+     */
+    private record Pick(int option, KList<?> options, String input) {}
+}
@@ -3,11 +3,13 @@ package nl.codevs.decree.virtual;
 import lombok.Getter;
 import nl.codevs.decree.DecreeSystem;
 import nl.codevs.decree.decrees.DecreeCommandExecutor;
+import nl.codevs.decree.util.DecreeArguments;
 import nl.codevs.decree.util.DecreeOrigin;
 import nl.codevs.decree.util.DecreeSender;
 import nl.codevs.decree.util.C;
 import nl.codevs.decree.util.Form;
 import nl.codevs.decree.util.KList;
+import nl.codevs.decree.util.NameTrie;
 
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
@@ -23,14 +25,44 @@ public class DecreeCategory implements Decreed {
     private final Decree decree;
     private final DecreeCommandExecutor instance;
     private final DecreeSystem system;
+    private final DecreeMeta meta;
+    private final Decreed[] nodes;
+    private final NameTrie trie;
+    private transient final HelpCache nodeHelp = new HelpCache(this::renderNodeHelp, 1);
+    private transient final HelpCache headerHelp = new HelpCache((player, granted) -> DecreeSender.header(Form.capitalize(getName()) + " Help", 40), 1);
+    private transient final HelpCache backHelp = new HelpCache((player, granted) ->
+            "<hover:show_text:'<#b54b38>Click to go back to <#3299bf>" + Form.capitalize(getParent().getName()) + " Help'>" +
+                    "<click:run_command:" + getParent().getPath() + ">" +
+                    "<font:minecraft:uniform><#f58571>〈 Back" +
+                    "</click>" +
+                    "</hover>", 1);
 
     public DecreeCategory(DecreeCategory parent, DecreeCommandExecutor instance, Decree decree, DecreeSystem system) {
         this.parent = parent;
         this.decree = decree;
         this.instance = instance;
         this.system = system;
-        this.commands = prepCommands();
-        this.subCats = prepSubCats(system);
+        this.meta = new DecreeMeta(this);
+        DecreeRegistration<DecreeCommandExecutor> registration = DecreeRegistration.find(instance.getClass());
+        if (registration == null) {
+            this.commands = prepCommands();
+            this.subCats = prepSubCats(system);
+        } else {
+            this.commands = registration.commands(this, instance);
+            this.subCats = registration.subCategories(instance).convert(child -> new DecreeCategory(this, child, DecreeRegistration.decreeOf(child.getClass()), system));
+        }
+        this.nodes = prepNodes();
+        this.trie = new NameTrie(new KList<>(nodes).convert(Decreed::getNames));
+    }
+
+    /**
+     * Calculate the nodes of this category, in matching order (subcategories first, then commands)
+     */
+    private Decreed[] prepNodes() {
+        KList<Decreed> nodes = new KList<>();
+        nodes.addAll(subCats);
+        nodes.addAll(commands);
+        return nodes.toArray(new Decreed[0]);
     }
 
     /**
@@ -82,7 +114,7 @@ public class DecreeCategory implements Decreed {
                 continue;
             }
 
-            subCats.add(new DecreeCategory(this, (DecreeCommandExecutor) childRoot, childRoot.getClass().getDeclaredAnnotation(Decree.class), system));
+            subCats.add(new DecreeCategory(this, (DecreeCommandExecutor) childRoot, DecreeRegistration.decreeOf(childRoot.getClass()), system));
         }
 
         return subCats;
@@ -129,11 +161,7 @@ public class DecreeCategory implements Decreed {
      * @param sender The {@link DecreeSender} to use to search
      * @return A list of {@link Decreed} or null
      */
-    public KList<Decreed> matchAll(String in, DecreeSender sender){
-
-        KList<Decreed> s3 = new KList<>();
-        KList<Decreed> s2 = new KList<>();
-        KList<Decreed> s1 = new KList<>();
+    public KList<Decreed> matchAll(CharSequence in, DecreeSender sender){
 
         if (DecreeSystem.settings.debugMatching) {
             if (!subCats.isEmpty()) {
@@ -146,24 +174,49 @@ public class DecreeCategory implements Decreed {
 
         KList<Decreed> matches = new KList<>();
 
-        for (DecreeCategory subCat : getSubCats()) {
-            switch (subCat.doesMatch(in, sender)) {
-                case 3 -> s3.add(subCat);
-                case 2 -> s2.add(subCat);
-                case 1 -> s1.add(subCat);
+        if (in == null || in.length() == 0) {
+            for (Decreed node : nodes) {
+                if (node.isAllowed(sender)) {
+                    matches.add(node);
+                }
             }
+            return matches;
         }
 
-        for (DecreeCommand command : getCommands()) {
-            switch (command.doesMatch(in, sender)) {
-                case 3 -> s3.add(command);
-                case 2 -> s2.add(command);
-                case 1 -> s1.add(command);
+        // Only nodes with a name containing, or contained in, the input can match
+        byte[] tiers = new byte[nodes.length];
+        for (int i : trie.containing(in)) {
+            tiers[i] = (byte) trie.tier(i, in);
+        }
+        trie.containedIn(in, i -> {
+            if (tiers[i] == 0) {
+                tiers[i] = (byte) trie.tier(i, in);
+            }
+        });
+
+        for (int tier = 3; tier > 0; tier--) {
+            for (int i = 0; i < nodes.length; i++) {
+                // The trie already matched the names, only check whether the node is allowed
+                if (tiers[i] == tier && nodes[i].isAllowed(sender)) {
+                    nodes[i].debugMatch(in, tier);
+                    matches.add(nodes[i]);
+                }
             }
         }
-        matches.qAddAll(s3).forEach(s2::remove);
-        matches.qAddAll(s2).forEach(s1::remove);
-        return matches.qAddAll(s1);
+        return matches;
+    }
+
+    /**
+     * Get the subcategories and commands of this category with a name (or alias) starting with the input
+     * @param in The input to match
+     * @return A list of {@link Decreed}, subcategories first
+     */
+    public KList<Decreed> matchPrefix(String in) {
+        KList<Decreed> matches = new KList<>();
+        for (int i : trie.startingWith(in)) {
+            matches.add(nodes[i]);
+        }
+        return matches;
     }
 
     /**
@@ -171,6 +224,16 @@ public class DecreeCategory implements Decreed {
      * @param sender The sender to send help to
      */
     public void sendNodeHelp(DecreeSender sender) {
+        sender.sendMessageRaw(nodeHelp.get(sender, getDecree().permission()));
+    }
+
+    /**
+     * Render the help for the category header
+     * @param player Whether the help is for a player
+     * @param granted Whether the permission of this category is granted
+     * @return The help, as a MiniMessage string
+     */
+    private String renderNodeHelp(boolean player, boolean granted) {
 
         String hoverTitle = "<#42ecf5>" + getNames().toString(", ");
         String hoverDescription = "<#3fe05a>✎ <#6ad97d><font:minecraft:uniform>" + getDescription();
@@ -183,13 +246,7 @@ public class DecreeCategory implements Decreed {
 
         // Permission
         if (!getPermission().equals(Decree.NO_PERMISSION)){
-            String granted;
-            if (sender.isOp() || sender.hasPermission(getDecree().permission())){
-                granted = "<#a73abd>(Granted)";
-            } else {
-                granted = "<#db4321>(Not Granted)";
-            }
-            hoverPermission = "<#2181db>⏍ <#78dcf0><font:minecraft:uniform>Permission: <#ffa500>" + getDecree().permission() + " " + granted;
+            hoverPermission = "<#2181db>⏍ <#78dcf0><font:minecraft:uniform>Permission: <#ffa500>" + getDecree().permission() + " " + (granted ? "<#a73abd>(Granted)" : "<#db4321>(Not Granted)");
         } else {
             hoverPermission = "";
         }
@@ -197,20 +254,20 @@ public class DecreeCategory implements Decreed {
         // Origin
         if (getOrigin().equals(DecreeOrigin.BOTH)){
             hoverOrigin = "";
-        } else if (getOrigin().validFor(sender)) {
+        } else if (getOrigin().validFor(player)) {
             hoverOrigin += "<#0ba10b> origin, so you can use it.";
         } else {
             hoverOrigin += "<#c4082e> origin, so you cannot use it.";
         }
 
-        sender.sendMessageRaw("<hover:show_text:'" +
+        return "<hover:show_text:'" +
                 hoverTitle +
                 newline + hoverDescription +
                 newline + hoverUsage +
                 (hoverPermission.isEmpty() ? "" : newline) + hoverPermission +
                 (hoverOrigin.isEmpty() ? "" : newline) + hoverOrigin + "'>" +
                 "<click:run_command:" + runOnClick + ">" + realText + "</click>" +
-                "</hover>");
+                "</hover>";
     }
 
     /**
@@ -220,54 +277,72 @@ public class DecreeCategory implements Decreed {
     @Override
     public void sendHelpTo(DecreeSender sender) {
 
-        sender.sendHeader(Form.capitalize(getName()) + " Help");
+        sender.sendMessageRaw(headerHelp.get(sender, Decree.NO_PERMISSION));
 
         // Back button
         if (sender.isPlayer() && getParent() != null) {
-            sender.sendMessageRaw(
-                    "<hover:show_text:'<#b54b38>Click to go back to <#3299bf>" + Form.capitalize(getParent().getName()) + " Help'>" +
-                            "<click:run_command:" + getParent().getPath() + ">" +
-                            "<font:minecraft:uniform><#f58571>〈 Back" +
-                            "</click>" +
-                            "</hover>"
-            );
+            sender.sendMessageRaw(backHelp.get(sender, Decree.NO_PERMISSION));
         }
 
-        KList<Decreed> matches = matchAll(null, sender);
-        if (matches.isNotEmpty()) {
-            for (Decreed match : matches) {
-                if (match instanceof DecreeCategory c) {
-                    if (c.matchAll(null, sender).isNotEmpty()) {
-                        c.sendNodeHelp(sender);
-                    }
-                } else if (match.doesMatch(sender) > 0){
-                    match.sendHelpTo(sender);
+        boolean any = false;
+        for (Decreed node : nodes) {
+            if (!node.isAllowed(sender)) {
+                continue;
+            }
+            any = true;
+            if (node instanceof DecreeCategory c) {
+                if (c.hasVisibleNodes(sender)) {
+                    c.sendNodeHelp(sender);
                 }
+            } else {
+                node.sendHelpTo(sender);
             }
-        } else {
+        }
+
+        if (!any) {
             sender.sendMessage(C.RED + "There are no subcommands or categories in this group! Contact an administrator, this is a command design issue!");
         }
     }
 
+    /**
+     * Check whether any subcategory or command of this category is available to a sender
+     * @param sender The sender
+     * @return True if any node matches the sender
+     */
+    public boolean hasVisibleNodes(DecreeSender sender) {
+        for (Decreed node : nodes) {
+            if (node.isAllowed(sender)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     @Override
-    public boolean run(KList<String> args, DecreeSender sender) {
-        debug("Arguments: " + C.GOLD + args.toString(C.GREEN + ", " + C.GOLD), C.GREEN);
+    public boolean run(DecreeArguments args, DecreeSender sender) {
+        if (DecreeSystem.settings.debug) {
+            debug("Arguments: " + C.GOLD + args.toString(C.GREEN + ", " + C.GOLD), C.GREEN);
+        }
         if (args.isEmpty()) {
             debug("Finished here", C.GREEN);
             sendHelpTo(sender);
             return true;
         }
         KList<Decreed> matches = matchAll(args.get(0), sender);
-        debug(matches.convert(Decreed::getShortestName).toString(", "), C.YELLOW);
+        if (DecreeSystem.settings.debug) {
+            debug(matches.convert(Decreed::getShortestName).toString(", "), C.YELLOW);
+        }
         for (Decreed decreed : matches) {
             // If there are no allowed / visible nodes in a category, do not show
             if (decreed instanceof DecreeCategory c) {
-                if (c.matchAll(null, sender).isEmpty()) {
+                if (!c.hasVisibleNodes(sender)) {
                     continue;
                 }
             }
-            debug("Running matched Decreed: " + C.GOLD + decreed.getShortestName(), C.GREEN);
-            if (decreed.run(args.subList(1, args.size()), sender)) {
+            if (DecreeSystem.settings.debug) {
+                debug("Running matched Decreed: " + C.GOLD + decreed.getShortestName(), C.GREEN);
+            }
+            if (decreed.run(args.from(1), sender)) {
                 return true;
             }
         }
@@ -277,28 +352,66 @@ public class DecreeCategory implements Decreed {
         return false;
     }
 
+    /**
+     * Tab completions. The first arguments select the path into the tree, the last argument is the one being completed.
+     * @param args Command arguments (the last one being the partially entered one)
+     * @param sender Command sender
+     * @return Tab completions for the last argument
+     */
     @Override
     public KList<String> tab(KList<String> args, DecreeSender sender) {
+        if (args.size() <= 1) {
+            return completeNames(args.isEmpty() ? "" : args.get(0), sender);
+        }
         KList<String> tabs = new KList<>();
-        if (args.isEmpty()) {
-            getSubCats().forEach(s -> {
-                if (s.doesMatch(sender) > 0) {
-                    tabs.addAll(s.getNames());
-                }
-            });
-            getCommands().forEach(c -> {
-                if (c.doesMatch(sender) > 0) {
-                    tabs.addAll(c.getNames());
-                }
-            });
-            return tabs;
+        KList<String> rest = args.copy();
+        String in = rest.pop();
+        for (Decreed node : matchTab(in, sender)) {
+            tabs.addAll(node.tab(rest.copy(), sender));
         }
-        args.popLast();
-        getSubCats().forEach(s -> tabs.addAll(s.tab(args, sender)));
-        getCommands().forEach(c -> tabs.addAll(c.tab(args, sender)));
         return tabs;
     }
 
+    /**
+     * Match the subcategories and commands a (fully entered) argument leads to, for tab completion
+     * @param in The argument
+     * @param sender The sender
+     * @return The nodes with a name equal to the argument (ignoring case) or, if there are none, all {@link #matchAll(CharSequence, DecreeSender) matching} nodes
+     */
+    public KList<Decreed> matchTab(CharSequence in, DecreeSender sender) {
+        KList<Decreed> matches = matchAll(in, sender);
+        KList<Decreed> exact = new KList<>();
+        for (Decreed node : matches) {
+            if (NameTrie.tier(node.meta().getFoldedNames(), in) == 3) {
+                exact.add(node);
+            }
+        }
+        return exact.isEmpty() ? matches : exact;
+    }
+
+    /**
+     * Get the names (and aliases) of the subcategories and commands a sender may use, that start with a prefix (ignoring case)
+     * @param prefix The prefix
+     * @param sender The sender
+     * @return The names, subcategories first
+     */
+    public KList<String> completeNames(String prefix, DecreeSender sender) {
+        String folded = NameTrie.fold(prefix);
+        KList<String> names = new KList<>();
+        for (Decreed node : matchPrefix(prefix)) {
+            if (!node.isAllowed(sender)) {
+                continue;
+            }
+            String[] foldedNames = node.meta().getFoldedNames();
+            for (int i = 0; i < foldedNames.length; i++) {
+                if (foldedNames[i].startsWith(folded)) {
+                    names.add(node.getNames().get(i));
+                }
+            }
+        }
+        return names;
+    }
+
     @Override
     public Decreed parent() {
         return getParent();
@@ -314,6 +427,11 @@ public class DecreeCategory implements Decreed {
         return getSystem();
     }
 
+    @Override
+    public DecreeMeta meta() {
+        return getMeta();
+    }
+
     @Override
     public String getName() {
         return capitalToLine(decree().name().isEmpty() ? getInstance().getClass().getSimpleName() : decree().name());
@@ -2,11 +2,9 @@ package nl.codevs.decree.virtual;
 
 import lombok.Data;
 import nl.codevs.decree.DecreeSystem;
-import nl.codevs.decree.context.DecreeContextHandler;
 import nl.codevs.decree.exceptions.DecreeException;
-import nl.codevs.decree.exceptions.DecreeParsingException;
-import nl.codevs.decree.exceptions.DecreeWhichException;
 import nl.codevs.decree.handlers.DecreeParameterHandler;
+import nl.codevs.decree.util.DecreeArguments;
 import nl.codevs.decree.util.DecreeOrigin;
 import nl.codevs.decree.util.DecreeSender;
 import nl.codevs.decree.util.C;
@@ -15,11 +13,8 @@ import nl.codevs.decree.util.KList;
 import nl.codevs.decree.util.Maths;
 import org.bukkit.Bukkit;
 
-import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.Arrays;
-import java.util.Objects;
-import java.util.UUID;
 import java.util.concurrent.*;
 
 /**
@@ -27,7 +22,6 @@ import java.util.concurrent.*;
  */
 @Data
 public class DecreeCommand implements Decreed {
-    private static final int nullParam = Integer.MAX_VALUE - 69420;
     @SuppressWarnings("SpellCheckingInspection")
     private static final String[] gradients = new String[]{
             "<gradient:#f5bc42:#45b32d>",
@@ -38,11 +32,28 @@ public class DecreeCommand implements Decreed {
             "<gradient:#6ad41e:#9a1ed4>"
     };
     private static final String newline = "<reset>\n";
+    /**
+     * The amount of variants of the help to render, each with different random example values
+     */
+    private static final int HELP_VARIANTS = 4;
+    /**
+     * The amount of times a sender is asked to pick an option
+     */
+    private static final int PICK_TRIES = 3;
+    /**
+     * The time a sender has to pick an option, per try
+     */
+    private static final int PICK_SECONDS = 15;
     private final KList<DecreeParameter> parameters;
-    private final Method method;
+    private final String methodName;
     private final DecreeCategory parent;
     private final Decree decree;
     private final DecreeSystem system;
+    private final DecreeMeta meta;
+    private final DecreeBinder binder;
+    private final DecreeInvoker invoker;
+    private final DecreeParameter[] contextual;
+    private transient final HelpCache helpCache;
 
     /**
      * Create a node
@@ -50,22 +61,59 @@ public class DecreeCommand implements Decreed {
      * @param method Method that represents a Decree (must be annotated by @{@link Decree})
      */
     public DecreeCommand(DecreeCategory parent, Method method, DecreeSystem system) {
+        this(parent, method.getName(), annotationOf(method), calcParameters(method), calcInvoker(parent, method), system);
+    }
+
+    /**
+     * Create a node from precomputed parts (used by generated {@link DecreeRegistration}s)
+     * @param parent The instantiated class containing the command
+     * @param methodName The name of the method behind the command
+     * @param decree The {@link Decree} annotation of the method
+     * @param parameters The parameters of the method, in declaration order
+     * @param invoker The invoker of the method, bound to the instance of the parent
+     * @param system The system this command is registered in
+     */
+    public DecreeCommand(DecreeCategory parent, String methodName, Decree decree, KList<DecreeParameter> parameters, DecreeInvoker invoker, DecreeSystem system) {
+        this.parent = parent;
+        this.methodName = methodName;
+        this.system = system;
+        this.decree = decree;
+        this.meta = new DecreeMeta(this);
+        this.parameters = parameters;
+        this.binder = new DecreeBinder(this);
+        this.invoker = invoker;
+        this.contextual = getParameters().stream().filter(DecreeParameter::isContextual).toArray(DecreeParameter[]::new);
+        this.helpCache = new HelpCache(this::renderHelp, parameters.isEmpty() ? 1 : HELP_VARIANTS);
+    }
+
+    /**
+     * Get the {@link Decree} annotation of a method
+     * @param method The method
+     * @return The annotation
+     */
+    private static Decree annotationOf(Method method) {
         if (!method.isAnnotationPresent(Decree.class)) {
             throw new RuntimeException("Cannot instantiate DecreeCommand on method " + method.getName() + " in " + method.getDeclaringClass().getCanonicalName() + " not annotated by @Decree");
         }
-        this.parent = parent;
-        this.method = method;
-        this.system = system;
-        this.decree = method.getDeclaredAnnotation(Decree.class);
-        this.parameters = calcParameters();
+        return method.getDeclaredAnnotation(Decree.class);
+    }
+
+    /**
+     * Resolve the invoker for a method, bound to the instance of the parent category
+     * @param parent The category containing the method
+     * @param method The method
+     * @return The invoker (see {@link DecreeInvoker#of(Object, Method)})
+     */
+    private static DecreeInvoker calcInvoker(DecreeCategory parent, Method method) {
+        return DecreeInvoker.of(parent.getInstance(), method);
     }
 
     /**
-     * Calculate the parameters in this method<br>
-     * Sorted by required & contextuality
-     * @return {@link KList} of {@link DecreeParameter}s
+     * Calculate the parameters in a method
+     * @param method The method
+     * @return {@link KList} of {@link DecreeParameter}s, in declaration order
      */
-    private KList<DecreeParameter> calcParameters() {
+    private static KList<DecreeParameter> calcParameters(Method method) {
         KList<DecreeParameter> parameters = new KList<>();
         Arrays.stream(method.getParameters()).filter(p -> p.isAnnotationPresent(Param.class)).forEach(p -> parameters.add(new DecreeParameter(p)));
         return parameters;
@@ -153,7 +201,37 @@ public class DecreeCommand implements Decreed {
 
     @Override
     public void sendHelpTo(DecreeSender sender) {
+        sender.sendMessageRaw(helpCache.get(sender, getDecree().permission(), contextValues(sender)));
+    }
 
+    /**
+     * Get the values derived from context for the {@link #contextual} parameters
+     * @param sender The sender to derive the values from
+     * @return The values, in the order of the {@link HelpCache#placeholder(int)}s in the help
+     */
+    private String[] contextValues(DecreeSender sender) {
+        if (contextual.length == 0 || !sender.isPlayer()) {
+            return new String[0];
+        }
+        String[] values = new String[contextual.length];
+        for (int i = 0; i < contextual.length; i++) {
+            try {
+                values[i] = DecreeSystem.Context.getHandler(contextual[i].getType()).handleToString(sender);
+            } catch (DecreeException e) {
+                contextual[i].sendContextError(sender);
+                values[i] = "";
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Render the help of this command
+     * @param player Whether the help is for a player
+     * @param granted Whether the permission of this command is granted
+     * @return The help, as a MiniMessage string
+     */
+    private String renderHelp(boolean player, boolean granted) {
         String hoverTitle = "<#42ecf5>" + getNames().toString(", ");
         String hoverUsage = "<#bbe03f>✒ <#a8e0a2><font:minecraft:uniform>";
         String hoverDescription = "<#3fe05a>✎ <#6ad97d><font:minecraft:uniform>" + getDescription();
@@ -178,13 +256,7 @@ public class DecreeCommand implements Decreed {
 
         // Permission
         if (!getDecree().permission().equals(Decree.NO_PERMISSION)){
-            String granted;
-            if (sender.isOp() || sender.hasPermission(getDecree().permission())){
-                granted = "<#67ff6d>(Granted)";
-            } else {
-                granted = "<#db4321>(Not Granted)";
-            }
-            hoverPermission = "<#2181db>⏍ <#78dcf0><font:minecraft:uniform>Permission: <#ffa500>" + getDecree().permission() + " " + granted;
+            hoverPermission = "<#2181db>⏍ <#78dcf0><font:minecraft:uniform>Permission: <#ffa500>" + getDecree().permission() + " " + (granted ? "<#67ff6d>(Granted)" : "<#db4321>(Not Granted)");
         } else {
             hoverPermission = "";
         }
@@ -192,7 +264,7 @@ public class DecreeCommand implements Decreed {
         // Origin
         if (getOrigin().equals(DecreeOrigin.BOTH)){
             hoverOrigin = "";
-        } else if (getOrigin().validFor(sender)) {
+        } else if (getOrigin().validFor(player)) {
             hoverOrigin += "<#0ba10b> origin, so you can run it.";
         } else {
             hoverOrigin += "<#c4082e> origin, so you cannot run it.";
@@ -237,16 +309,26 @@ public class DecreeCommand implements Decreed {
                 }
 
                 // If required && not contextual & player added to requirements
-                if (parameter.isRequired() && !(parameter.isContextual() && sender.isPlayer())) {
+                if (parameter.isRequired() && !(parameter.isContextual() && player)) {
                     requiredFirst.append(shortestName).append("=").append(value).append(" ");
                 }
 
-                // Add this parameter
-                appendedParameters.append(parameter.getHelp(sender, onClick));
+                // Add this parameter, with a placeholder for the value derived from context (if it can be derived)
+                String context = null;
+                int contextIndex = Arrays.asList(contextual).indexOf(parameter);
+                if (contextIndex >= 0) {
+                    try {
+                        DecreeSystem.Context.getHandler(parameter.getType());
+                        context = HelpCache.placeholder(contextIndex);
+                    } catch (DecreeException ignored) {
+                        // Rendered as an error, the sender is told when the help is sent
+                    }
+                }
+                appendedParameters.append(parameter.getHelp(player, onClick, false, context));
             }
         }
 
-        sender.sendMessageRaw("<hover:show_text:'" +
+        return "<hover:show_text:'" +
                     hoverTitle +
                     newline + hoverDescription +
                     newline + hoverUsage +
@@ -258,7 +340,7 @@ public class DecreeCommand implements Decreed {
                         realText +
                     "</click>" +
                 "</hover>" +
-                appendedParameters);
+                appendedParameters;
     }
 
     @Override
@@ -273,7 +355,7 @@ public class DecreeCommand implements Decreed {
 
     @Override
     public String getName() {
-        return capitalToLine(decree().name().isEmpty() ? getMethod().getName() : decree().name());
+        return capitalToLine(decree().name().isEmpty() ? getMethodName() : decree().name());
     }
 
     @Override
@@ -282,66 +364,87 @@ public class DecreeCommand implements Decreed {
     }
 
     @Override
-    public boolean run(KList<String> args, DecreeSender sender) {
+    public DecreeMeta meta() {
+        return getMeta();
+    }
 
-        if (args.isNotEmpty()) {
-            debug("Entered arguments: " + C.GOLD + args.toString(C.GREEN + ", " + C.GOLD), C.GREEN);
-        } else {
-            debug("No entered arguments to parse", C.GREEN);
+    @Override
+    public boolean run(DecreeArguments args, DecreeSender sender) {
+
+        if (DecreeSystem.settings.debug) {
+            if (!args.isEmpty()) {
+                debug("Entered arguments: " + C.GOLD + args.toString(C.GREEN + ", " + C.GOLD), C.GREEN);
+            } else {
+                debug("No entered arguments to parse", C.GREEN);
+            }
         }
 
-        args.removeIf(Objects::isNull);
-        args.removeIf(String::isEmpty);
+        long[] primitives = new long[binder.size()];
+        CompletableFuture<Object[]> binding = binder.bind(args, sender, primitives);
+        if (binding.isDone()) {
+            return invoke(binding.join(), primitives, sender);
+        }
 
-        ConcurrentHashMap<DecreeParameter, Object> params = computeParameters(args, sender);
+        // The sender is picking options. Continue once they did (or did not in time), on the command executor.
+        // The command holds no thread until then, but later commands of the sender wait for it.
+        DecreeSystem.Commands.defer(binding
+                .thenAcceptAsync(DecreeSystem.Context.wrap(params -> invoke(params, primitives, sender)), system.getCommands().getContinuations())
+                .whenComplete((ignored, e) -> {
+                    if (e != null) {
+                        debug("Picking options for " + C.GOLD + getName() + C.RED + " failed: " + C.GOLD + e, C.RED);
+                    }
+                }));
+        return true;
+    }
 
+    /**
+     * Invoke the command with bound parameters
+     * @param params The bound parameters (see {@link DecreeBinder#bind(DecreeArguments, DecreeSender, long[])}), or null if binding failed
+     * @param primitives The primitive parameter slots
+     * @param sender The sender of the command
+     * @return True if the command was handled (ran, or help was sent), false if the parameters were broken
+     */
+    private boolean invoke(Object[] params, long[] primitives, DecreeSender sender) {
         if (params == null) {
             debug("Parameter parsing failed for " + C.GOLD + getName(), C.RED);
             sendHelpTo(sender);
             return true;
         }
 
-        Object[] finalParams = new Object[getParameters().size()];
+        Object[] finalParams = new Object[params.length];
 
         // Final checksum. Everything should already be valid, but this is just in case.
-        int x = 0;
-        for (DecreeParameter parameter : getParameters(false)) {
-            if (!params.containsKey(parameter)) {
-                debug("Failed to handle command because of missing param: " + C.GOLD + parameter.getName() + C.RED + "!", C.RED);
-                debug("Params stored: " + params, C.RED);
+        KList<DecreeParameter> declared = getParameters(false);
+        for (int x = 0; x < params.length; x++) {
+            if (params[x] == null) {
+                debug("Failed to handle command because of missing param: " + C.GOLD + declared.get(x).getName() + C.RED + "!", C.RED);
+                debug("Params stored: " + Arrays.toString(params), C.RED);
                 debug("This is a big problem within the Decree system, as it should have been caught earlier. Please contact the author(s).", C.RED);
                 sender.sendMessage(C.RED + "A big error occurred in the command system. Contact your admin!");
                 return false;
             }
 
-            Object value = params.get(parameter);
-            finalParams[x++] = value.equals(nullParam) ? null : value;
+            finalParams[x] = params[x] == DecreeBinder.NULL || params[x] == DecreeBinder.PRIMITIVE ? null : params[x];
         }
 
         Runnable rx = () -> {
             try {
-                try {
-                    DecreeSystem.Context.touch(sender);
-                    getMethod().setAccessible(true);
-                    getMethod().invoke(getParent().getInstance(), finalParams);
-                } catch (InvocationTargetException e) {
-                    if (e.getCause().getMessage().endsWith("may only be triggered synchronously.")) {
-                        debug("Sent asynchronously while it must be ran sync. Set 'sync = true' in the annotation of the command or category", C.RED);
-                        e.printStackTrace();
-                        sender.sendMessage(C.RED + "The command you tried to run (" + C.GOLD + getPath() + C.RED + ") may only be run sync! Contact your admin!");
-                    } else {
-                        throw e;
-                    }
-                }
+                invoker.invoke(finalParams, primitives);
             } catch (Throwable e) {
-                e.printStackTrace();
-                sender.sendMessage(C.RED + "Uncaught Exception thrown while executing, contact your admin!");
-                throw new RuntimeException("Failed to execute " + getPath());
+                if (e.getMessage() != null && e.getMessage().endsWith("may only be triggered synchronously.")) {
+                    debug("Sent asynchronously while it must be ran sync. Set 'sync = true' in the annotation of the command or category", C.RED);
+                    e.printStackTrace();
+                    sender.sendMessage(C.RED + "The command you tried to run (" + C.GOLD + getPath() + C.RED + ") may only be run sync! Contact your admin!");
+                } else {
+                    e.printStackTrace();
+                    sender.sendMessage(C.RED + "Uncaught Exception thrown while executing, contact your admin!");
+                    throw new RuntimeException("Failed to execute " + getPath());
+                }
             }
         };
 
         if (isSync()) {
-            Bukkit.getScheduler().scheduleSyncDelayedTask(system.getInstance(), rx);
+            Bukkit.getScheduler().scheduleSyncDelayedTask(system.getInstance(), DecreeSystem.Context.wrap(rx));
         } else {
             rx.run();
         }
@@ -349,525 +452,78 @@ public class DecreeCommand implements Decreed {
         return true;
     }
 
-    @Override
-    public KList<String> tab(KList<String> args, DecreeSender sender) {
-        return new KList<>(getNames());
-    }
-
     /**
-     * Compute parameter objects from string argument inputs
-     * @param args The arguments (parameters) to parse into this command
-     * @param sender The sender of the command
-     * @return A {@link ConcurrentHashMap} from the parameter to the instantiated object for that parameter
+     * Tab completions for the arguments of this command: keys, -booleans and values of the parameters that are not entered yet.
+     * See {@link DecreeBinder#complete(DecreeArguments, String, int)}.
+     * @param args The arguments after the command (the last one being the partially entered one)
+     * @param sender Command sender
+     * @return At most {@link nl.codevs.decree.decrees.DecreeSettings#tabLimit} tab completions for the last argument, best first
      */
-    private ConcurrentHashMap<DecreeParameter, Object> computeParameters(KList<String> args, DecreeSender sender) {
-
-        /*
-         * Apologies for the obscene amount of loops.
-         * It is the only way this can be done functionally.
-         *
-         * Note that despite the great amount of loops the average runtime is still ~O(log(n)).
-         * This is because of the ever-decreasing number of arguments & options that are already matched.
-         * If all arguments are already matched in the first (quick equals) loop, the runtime is actually O(n)
-         */
-
-        ConcurrentHashMap<DecreeParameter, Object> parameters = new ConcurrentHashMap<>();
-        ConcurrentHashMap<DecreeParameter, DecreeParsingException> parseExceptionArgs = new ConcurrentHashMap<>();
-
-        KList<DecreeParameter> options = getParameters();
-        KList<String> dashBooleanArgs = new KList<>();
-        KList<String> keylessArgs = new KList<>();
-        KList<String> keyedArgs = new KList<>();
-        KList<String> nullArgs = new KList<>();
-        KList<String> badArgs = new KList<>();
-
-        // Split args into correct corresponding handlers
-        for (String arg : args) {
-
-            // These are handled later, after other fulfilled options will already have been matched
-            KList<String> splitArg = new KList<>(arg.split("="));
-
-            if (splitArg.size() == 1) {
-
-                if (arg.startsWith("-")) {
-                    dashBooleanArgs.add(arg.substring(1));
-                } else {
-                    keylessArgs.add(arg);
-                }
-                continue;
-            }
-
-            if (splitArg.size() > 2) {
-                String oldArg = null;
-                while (!arg.equals(oldArg)) {
-                    oldArg = arg;
-                    arg = arg.replaceAll("==", "=");
-                }
-
-                splitArg = new KList<>(arg.split("="));
-
-                if (splitArg.size() == 2) {
-                    debug("Parameter fixed by replacing '==' with '=' (new arg: " + C.GOLD + arg + C.RED + ")", C.RED);
-                } else {
-                    badArgs.add(arg);
-                    continue;
-                }
-            }
-
-            if (DecreeSystem.settings.allowNullInput && splitArg.get(1).equalsIgnoreCase("null")) {
-                debug("Null parameter added: " + C.GOLD + arg, C.GREEN);
-                nullArgs.add(splitArg.get(0));
-                continue;
-            }
-
-            if (splitArg.get(0).isEmpty()) {
-                debug("Parameter key has empty value (full arg: " + C.GOLD + arg + C.RED + ")", C.RED);
-                badArgs.add(arg);
-                continue;
-            }
-
-            if (splitArg.get(1).isEmpty()) {
-                debug("Parameter key: " + C.GOLD + splitArg.get(0) + C.RED + " has empty value (full arg: " + C.GOLD + arg + C.RED + ")", C.RED);
-                badArgs.add(arg);
-                continue;
-            }
-
-            keyedArgs.add(arg);
-        }
-
-        // Quick equals
-        looping: for (String arg : keyedArgs.copy()) {
-            String key = arg.split("\\Q=\\E")[0];
-            String value = arg.split("\\Q=\\E")[1];
-            for (DecreeParameter option : options) {
-                if (option.getNames().contains(key)) {
-                    if (parseParamInto(parameters, badArgs, parseExceptionArgs, option, value, sender)) {
-                        options.remove(option);
-                        keyedArgs.remove(arg);
-                    } else if (DecreeSystem.settings.nullOnFailure) {
-                        parameters.put(option, nullParam);
-                    }
-                    continue looping;
-                }
-            }
-        }
-
-        // Ignored case
-        looping: for (String arg : keyedArgs.copy()) {
-            String key = arg.split("\\Q=\\E")[0];
-            String value = arg.split("\\Q=\\E")[1];
-            for (DecreeParameter option : options) {
-                for (String name : option.getNames()) {
-                    if (name.equalsIgnoreCase(key)) {
-                        if (parseParamInto(parameters, badArgs, parseExceptionArgs, option, value, sender)) {
-                            options.remove(option);
-                            keyedArgs.remove(arg);
-                        } else if (DecreeSystem.settings.nullOnFailure) {
-                            parameters.put(option, nullParam);
-                        }
-                        continue looping;
-                    }
-                }
-            }
-        }
-
-        // Name contains key (key substring of name)
-        looping: for (String arg : keyedArgs.copy()) {
-            String key = arg.split("\\Q=\\E")[0];
-            String value = arg.split("\\Q=\\E")[1];
-            for (DecreeParameter option : options) {
-                for (String name : option.getNames()) {
-                    if (name.contains(key)) {
-                        if (parseParamInto(parameters, badArgs, parseExceptionArgs, option, value, sender)) {
-                            options.remove(option);
-                            keyedArgs.remove(arg);
-                        } else if (DecreeSystem.settings.nullOnFailure) {
-                            parameters.put(option, nullParam);
-                        }
-                        continue looping;
-                    }
-                }
-            }
-        }
-
-        // Key contains name (name substring of key)
-        looping: for (String arg : keyedArgs.copy()) {
-            String key = arg.split("\\Q=\\E")[0];
-            String value = arg.split("\\Q=\\E")[1];
-            for (DecreeParameter option : options) {
-                for (String name : option.getNames()) {
-                    if (key.contains(name)) {
-                        if (parseParamInto(parameters, badArgs, parseExceptionArgs, option, value, sender)) {
-                            options.remove(option);
-                            keyedArgs.remove(arg);
-                        } else if (DecreeSystem.settings.nullOnFailure) {
-                            parameters.put(option, nullParam);
-                        }
-                        continue looping;
-                    }
-                }
-            }
-        }
-
-        // Quick equals null
-        looping: for (String key : nullArgs.copy()) {
-            for (DecreeParameter option : options) {
-                if (option.getNames().contains(key)) {
-                    parameters.put(option, nullParam);
-                    options.remove(option);
-                    nullArgs.remove(key);
-                    continue looping;
-                }
-            }
-        }
-
-        // Ignored case null
-        looping: for (String key : nullArgs.copy()) {
-            for (DecreeParameter option : options) {
-                for (String name : option.getNames()) {
-                    if (name.equalsIgnoreCase(key)) {
-                        parameters.put(option, nullParam);
-                        options.remove(option);
-                        nullArgs.remove(key);
-                        continue looping;
-                    }
-                }
-            }
-        }
-
-        // Name contains key (key substring of name), null
-        looping: for (String key : nullArgs.copy()) {
-            for (DecreeParameter option : options) {
-                for (String name : option.getNames()) {
-                    if (name.contains(key)) {
-                        parameters.put(option, nullParam);
-                        options.remove(option);
-                        nullArgs.remove(key);
-                        continue looping;
-                    }
-                }
-            }
-        }
-
-        // Key contains name (name substring of key), null
-        looping: for (String key : nullArgs.copy()) {
-            for (DecreeParameter option : options) {
-                for (String name : option.getNames()) {
-                    if (key.contains(name)) {
-                        parameters.put(option, nullParam);
-                        options.remove(option);
-                        nullArgs.remove(key);
-                        continue looping;
-                    }
-                }
-            }
-        }
-
-        // Keyless arguments
-        looping: for (DecreeParameter option : options.copy()) {
-            if (option.getHandler().supports(boolean.class)) {
-                for (String dashBooleanArg : dashBooleanArgs.copy()) {
-                    if (option.getNames().contains(dashBooleanArg)) {
-                        parameters.put(option, true);
-                        dashBooleanArgs.remove(dashBooleanArg);
-                        options.remove(option);
-                    }
-                }
-
-                for (String dashBooleanArg : dashBooleanArgs.copy()) {
-                    for (String name : option.getNames()) {
-                        if (name.equalsIgnoreCase(dashBooleanArg)) {
-                            parameters.put(option, true);
-                            dashBooleanArgs.remove(dashBooleanArg);
-                            options.remove(option);
-                        }
-                    }
-                }
-
-                for (String dashBooleanArg : dashBooleanArgs.copy()) {
-                    for (String name : option.getNames()) {
-                        if (name.contains(dashBooleanArg)) {
-                            parameters.put(option, true);
-                            dashBooleanArgs.remove(dashBooleanArg);
-                            options.remove(option);
-                        }
-                    }
-                }
-
-                for (String dashBooleanArg : dashBooleanArgs.copy()) {
-                    for (String name : option.getNames()) {
-                        if (dashBooleanArg.contains(name)) {
-                            parameters.put(option, true);
-                            dashBooleanArgs.remove(dashBooleanArg);
-                            options.remove(option);
-                        }
-                    }
-                }
-            }
-
-            for (String keylessArg : keylessArgs.copy()) {
-
-                if (DecreeSystem.settings.allowNullInput && keylessArg.equalsIgnoreCase("null")) {
-                    debug("Null parameter added: " + C.GOLD + keylessArg, C.GREEN);
-                    parameters.put(option, nullParam);
-                    continue looping;
-                }
-
-                try {
-                    Object result = option.getHandler().parse(keylessArg);
-                    parseExceptionArgs.remove(option);
-                    options.remove(option);
-                    keylessArgs.remove(keylessArg);
-                    parameters.put(option, result);
-                    continue looping;
-
-                } catch (DecreeParsingException e) {
-                    parseExceptionArgs.put(option, e);
-                } catch (DecreeWhichException e) {
-                    parseExceptionArgs.remove(option);
-                    options.remove(option);
-                    keylessArgs.remove(keylessArg);
-
-                    if (DecreeSystem.settings.pickFirstOnMultiple) {
-                        parameters.put(option, e.getOptions().get(0));
-                    } else {
-                        Object result = pickValidOption(sender, e.getOptions(), option);
-                        if (result == null) {
-                            badArgs.add(keylessArg);
-                        } else {
-                            parameters.put(option, result);
-                        }
-                        continue looping;
-                    }
-                } catch (Throwable e) {
-                    // This exception is actually something that is broken
-                    debug("Parsing " + C.GOLD + keylessArg + C.RED + " into " + C.GOLD + option.getName() + C.RED + " failed because of: " + C.GOLD + e.getMessage(), C.RED);
-                    e.printStackTrace();
-                    debug("If you see a handler in the stacktrace that we (" + C.DECREE + "Decree" + C.RED + ") wrote, please report this bug to us.", C.RED);
-                    debug("If you see a custom handler of your own, there is an issue with it.", C.RED);
-                }
-            }
-        }
-
-        // Remaining parameters
-        for (DecreeParameter option : options.copy()) {
-            if (option.hasDefault()) {
-                parseExceptionArgs.remove(option);
-                try {
-                    Object val = option.getDefaultValue();
-                    parameters.put(option, val == null ? nullParam : val);
-                    options.remove(option);
-                } catch (DecreeParsingException e) {
-                    if (DecreeSystem.settings.nullOnFailure) {
-                        parameters.put(option, nullParam);
-                        options.remove(option);
-                    } else {
-                        debug("Default value " + C.GOLD + option.getDefaultRaw() + C.RED + " could not be parsed to " + option.getType().getSimpleName(), C.RED);
-                        debug("Reason: " + C.GOLD + e.getMessage(), C.RED);
-                    }
-                } catch (DecreeWhichException e) {
-                    debug("Default value " + C.GOLD + option.getDefaultRaw() + C.RED + " returned multiple options", C.RED);
-                    options.remove(option);
-                    if (DecreeSystem.settings.pickFirstOnMultiple) {
-                        debug("Adding: " + C.GOLD + e.getOptions().get(0), C.GREEN);
-                        parameters.put(option, e.getOptions().get(0));
-                    } else {
-                        Object result = pickValidOption(sender, e.getOptions(), option);
-                        if (result == null) {
-                            badArgs.add(option.getDefaultRaw());
-                        } else {
-                            parameters.put(option, result);
-                        }
-                    }
-                }
-            } else if (option.isContextual() && sender.isPlayer()) {
-                parseExceptionArgs.remove(option);
-                DecreeContextHandler<?> handler;
-                try {
-                    handler = DecreeSystem.Context.getHandler(option.getType());
-                } catch (DecreeException e) {
-                    debug("Parameter " + option.getName() + " marked as contextual without available context handler (" + option.getType().getSimpleName() + ").", C.RED);
-                    sender.sendMessageRaw(C.RED + "Parameter " + C.GOLD + option.getHelp(sender, true) + C.RED + " marked as contextual without available context handler (" + option.getType().getSimpleName() + "). Please context your admin.");
-                    e.printStackTrace();
-                    continue;
-                }
-                Object contextValue = handler.handle(sender);
-                debug("Context value for " + C.GOLD + option.getName() + C.GREEN + " set to: " + handler.handleToString(sender), C.GREEN);
-                parameters.put(option, contextValue);
-                options.remove(option);
-            } else if (parseExceptionArgs.containsKey(option)) {
-                debug("Parameter: " + C.GOLD + option.getName() + C.RED + " not fulfilled due to parseException: " + parseExceptionArgs.get(option).getMessage(), C.RED);
-            }
-        }
-
-        // Convert nullArgs
-        nullArgs = nullArgs.convert(na -> na + "=null");
-
-        // Debug
-        if (DecreeSystem.settings.allowNullInput) {
-            debug("Unmatched null argument" + (nullArgs.size() == 1 ? "" : "s") + ": " + C.GOLD + (nullArgs.isNotEmpty() ? nullArgs.toString(", ") : "NONE"), nullArgs.isEmpty() ? C.GREEN : C.RED);
-        }
-        debug("Unmatched keyless argument" + (keylessArgs.size() == 1 ? "":"s") + ": " + C.GOLD + (keylessArgs.isNotEmpty() ? keylessArgs.toString(", ") : "NONE"), keylessArgs.isEmpty() ? C.GREEN : C.RED);
-        debug("Unmatched keyed argument" + (keyedArgs.size() == 1 ? "":"s") + ": " + C.GOLD + (keyedArgs.isNotEmpty() ? keyedArgs.toString(", ") : "NONE"), keyedArgs.isEmpty() ? C.GREEN : C.RED);
-        debug("Bad argument" + (badArgs.size() == 1 ? "":"s") + ": " + C.GOLD + (badArgs.isNotEmpty() ? badArgs.toString(", ") : "NONE"), badArgs.isEmpty() ? C.GREEN : C.RED);
-        debug("Failed argument" + (parseExceptionArgs.size() <= 1 ? ": ":"s: \n") + C.GOLD + (parseExceptionArgs.size() != 0 ? new KList<>(parseExceptionArgs.values()).convert(DecreeParsingException::getMessage).toString("\n") : "NONE"), parseExceptionArgs.isEmpty() ? C.GREEN : C.RED);
-        debug("Unfulfilled parameter" + (options.size() == 1 ? "":"s") + ": " + C.GOLD + (options.isNotEmpty() ? options.convert(DecreeParameter::getName).toString(", ") : "NONE"), options.isEmpty() ? C.GREEN : C.RED);
-        debug("Unfulfilled -boolean parameter" + (dashBooleanArgs.size() == 1 ? "":"s") + ": " + C.GOLD + (dashBooleanArgs.isNotEmpty() ? dashBooleanArgs.toString(", ") : "NONE"), dashBooleanArgs.isEmpty() ? C.GREEN : C.RED);
-
-        StringBuilder mappings = new StringBuilder("Parameter mapping:");
-        parameters.forEach((param, object) -> mappings
-                .append("\n")
-                .append(C.GREEN)
-                .append("\u0009 - (")
-                .append(C.GOLD)
-                .append(param.getType().getSimpleName())
-                .append(C.GREEN)
-                .append(") ")
-                .append(C.GOLD)
-                .append(param.getName())
-                .append(C.GREEN)
-                .append(" → ")
-                .append(C.GOLD)
-                .append(object.toString().replace(String.valueOf(nullParam), "null")));
-        options.forEach(param -> mappings
-                .append("\n")
-                .append(C.GREEN)
-                .append("\u0009 - (")
-                .append(C.GOLD)
-                .append(param.getType().getSimpleName())
-                .append(C.GREEN)
-                .append(") ")
-                .append(C.GOLD)
-                .append(param.getName())
-                .append(C.GREEN)
-                .append(" → ")
-                .append(C.RED)
-                .append("NONE"));
-
-        debug(mappings.toString(), C.GREEN);
-
-        if (validateParameters(parameters, sender, parseExceptionArgs)) {
-            return parameters;
-        } else {
-            return null;
+    @Override
+    public KList<String> tab(KList<String> args, DecreeSender sender) {
+        if (args.isEmpty() || parameters.isEmpty()) {
+            return new KList<>();
         }
+        DecreeArguments entered = DecreeArguments.of(args.subList(0, args.size() - 1).toArray(new String[0]));
+        return binder.complete(entered, args.get(args.size() - 1), DecreeSystem.settings.tabLimit);
     }
 
     /**
-     * Instruct the sender to pick a valid option
+     * Instruct the sender to pick a valid option, without waiting for it.<br>
+     * The sender gets {@value #PICK_TRIES} tries of {@value #PICK_SECONDS} seconds each. No thread is held while waiting for the sender.
      * @param sender The sender that must pick an option
      * @param validOptions The valid options that can be picked (as objects)
-     * @return The string value for the selected option
+     * @param parameter The parameter the option is picked for
+     * @return A future with the picked option, or null if none was picked in time (never completed exceptionally because of the sender)
      */
-    private Object pickValidOption(DecreeSender sender, KList<?> validOptions, DecreeParameter parameter) {
-        DecreeParameterHandler<?> handler = parameter.getHandler();
-
-        int tries = 3;
-        KList<String> options = validOptions.convert(handler::toStringForce);
-        String result = null;
-
+    CompletableFuture<Object> pickValidOption(DecreeSender sender, KList<?> validOptions, DecreeParameter parameter) {
+        KList<String> options = validOptions.convert(parameter.getHandler()::toStringForce);
         sender.sendHeader("Pick a " + parameter.getName() + " (" + parameter.getType().getSimpleName() + ")");
-        sender.sendMessageRaw("<gradient:#1ed497:#b39427>This query will expire in 15 seconds.</gradient>");
-
-        while (tries-- > 0 && (result == null || !options.contains(result))) {
-            sender.sendMessageRaw("<gradient:#1ed497:#b39427>Please pick a valid option.</gradient>");
-            String password = UUID.randomUUID().toString().replaceAll("\\Q-\\E", "");
-            int m = 0;
-
-            for (String i : validOptions.convert(handler::toStringForce)) {
-                sender.sendMessage("<hover:show_text:'" + gradients[m % gradients.length] + i + "</gradient>'><click:run_command:/decree-future " + password + " " + i + ">" + "- " + gradients[m % gradients.length] + i + "</gradient></click></hover>");
-                m++;
-            }
-
-            CompletableFuture<String> future = new CompletableFuture<>();
-            if (sender.isPlayer()) {
-                DecreeSystem.Completer.postFuture(password, future);
-                system().playSound(false, DecreeSystem.SFX.Picked, sender);
-            } else {
-                DecreeSystem.Completer.postConsoleFuture(future);
-            }
-
-            try {
-                result = future.get(15, TimeUnit.SECONDS);
-            } catch (InterruptedException | ExecutionException | TimeoutException ignored) {
-
-            }
-        }
-
-        if (result != null && options.contains(result)) {
-            for (int i = 0; i < options.size(); i++) {
-                if (options.get(i).equals(result)) {
-                    return validOptions.get(i);
-                }
-            }
-        } else {
-            sender.sendMessage(C.RED + "You did not enter a correct option within 3 tries.");
-            sender.sendMessage(C.RED + "Please double-check your arguments & option picking.");
-        }
-
-        return null;
+        sender.sendMessageRaw("<gradient:#1ed497:#b39427>This query will expire in " + PICK_SECONDS + " seconds.</gradient>");
+        return pickValidOption(sender, validOptions, options, PICK_TRIES);
     }
 
     /**
-     * Validate parameters
-     * @param parameters The parameters to validate
-     * @param sender The sender of the command
-     * @return True if valid, false if not
+     * Ask the sender to pick one of the options, and ask again if the answer is not one of them
+     * @param sender The sender that must pick an option
+     * @param validOptions The valid options (as objects)
+     * @param options The valid options (as strings)
+     * @param tries The amount of tries left
+     * @return A future with the picked option, or null if none was picked in time
      */
-    private boolean validateParameters(ConcurrentHashMap<DecreeParameter, Object> parameters, DecreeSender sender, ConcurrentHashMap<DecreeParameter, DecreeParsingException> parseExceptions) {
-        boolean valid = true;
-        for (DecreeParameter parameter : getParameters()) {
-            if (!parameters.containsKey(parameter)) {
-                debug("Parameter: " + C.GOLD + parameter.getName() + C.RED + " not in mapping.", C.RED);
-                String reason;
-                if (parseExceptions.containsKey(parameter)) {
-                    DecreeParsingException e = parseExceptions.get(parameter);
-                    reason = "(" + C.GOLD + e.getType().getSimpleName() + C.RED + ") failed for " + C.GOLD + e.getInput() + C.RED + ". Reason: " + C.GOLD + e.getReason();
-                } else {
-                    reason = "not specified. Please add.";
-                }
-                sender.sendMessageRaw(C.RED + "Parameter: " + C.GOLD + parameter.getHelp(sender, true) + C.RED + " " + reason);
-                valid = false;
-            }
+    private CompletableFuture<Object> pickValidOption(DecreeSender sender, KList<?> validOptions, KList<String> options, int tries) {
+        sender.sendMessageRaw("<gradient:#1ed497:#b39427>Please pick a valid option.</gradient>");
+        DecreeSystem.Completer.Prompt prompt = DecreeSystem.Completer.post(sender, PICK_SECONDS, TimeUnit.SECONDS);
+        int m = 0;
+
+        for (String i : options) {
+            sender.sendMessage("<hover:show_text:'" + gradients[m % gradients.length] + i + "</gradient>'><click:run_command:/" + DecreeSystem.Completer.COMMAND + " " + prompt.token() + " " + i + ">" + "- " + gradients[m % gradients.length] + i + "</gradient></click></hover>");
+            m++;
         }
-        return valid;
-    }
-
-    /**
-     * Parses a parameter into a map after parsing
-     * @param parameters The parameter map to store the value into
-     * @param parseExceptionArgs Parameters which ran into parseExceptions
-     * @param option The parameter type to parse into
-     * @param value The value to parse
-     * @return True if successful, false if not. Nothing is added on parsing failure.
-     */
-    private boolean parseParamInto(ConcurrentHashMap<DecreeParameter, Object> parameters, KList<String> badArgs, ConcurrentHashMap<DecreeParameter, DecreeParsingException> parseExceptionArgs, DecreeParameter option, String value, DecreeSender sender) {
-        try {
-            Object val = option.getHandler().parse(value);
-
-
-            parameters.put(option, val == null ? nullParam : val);
-            return true;
-        } catch (DecreeWhichException e) {
-            debug("Value " + C.GOLD + value + C.RED + " returned multiple options", C.RED);
-            if (DecreeSystem.settings.pickFirstOnMultiple) {
-                debug("Adding: " + C.GOLD + e.getOptions().get(0), C.GREEN);
-                parameters.put(option, e.getOptions().get(0));
-            } else {
-                Object result = pickValidOption(sender, e.getOptions(), option);
-                if (result == null) {
-                    badArgs.add(option.getDefaultRaw());
-                } else {
-                    parameters.put(option, result);
-                }
-            }
-            return true;
-        } catch (DecreeParsingException e) {
-            parseExceptionArgs.put(option, e);
-        } catch (Throwable e) {
-            system.debug("Failed to parse into: '" + option.getName() + "' value '" + value + "'");
-            e.printStackTrace();
+        if (sender.isPlayer()) {
+            system().playSound(false, DecreeSystem.SFX.Picked, sender);
         }
-        return false;
+
+        return prompt.answer()
+                .thenCompose(result -> {
+                    int picked = result == null ? -1 : options.indexOf(result);
+                    for (int i = 0; picked < 0 && result != null && i < options.size(); i++) {
+                        if (options.get(i).equalsIgnoreCase(result)) {
+                            picked = i;
+                        }
+                    }
+                    if (picked >= 0) {
+                        return CompletableFuture.completedFuture(validOptions.get(picked));
+                    }
+                    if (result == null && sender.isPlayer() && !sender.player().isOnline()) {
+                        return CompletableFuture.completedFuture(null);
+                    }
+                    if (tries > 1) {
+                        return pickValidOption(sender, validOptions, options, tries - 1);
+                    }
+                    sender.sendMessage(C.RED + "You did not enter a correct option within " + PICK_TRIES + " tries.");
+                    sender.sendMessage(C.RED + "Please double-check your arguments & option picking.");
+                    return CompletableFuture.completedFuture(null);
+                });
     }
 }
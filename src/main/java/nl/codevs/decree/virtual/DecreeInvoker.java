@@ -0,0 +1,52 @@
+package nl.codevs.decree.virtual;
+
+import java.lang.reflect.Method;
+
+/**
+ * Runs the method behind a {@link DecreeCommand}.<br>
+ * Either a bound {@link java.lang.invoke.MethodHandle} (reflection) or a direct call (generated by the annotation processor).
+ */
+@FunctionalInterface
+public interface DecreeInvoker {
+
+    /**
+     * Invoke the command<br>
+     * Parameters of primitive number types (byte, short, int, long, float, double) are passed in primitives, so they are never boxed.
+     * @param params The values of the parameters of the command, in declaration order (unused for primitive numbers)
+     * @param primitives The values of primitive number parameters, in declaration order.
+     *                   Whole numbers as is, decimals as {@link Double#doubleToRawLongBits(double)}.
+     * @throws Throwable Anything thrown by the command
+     */
+    void invoke(Object[] params, long[] primitives) throws Throwable;
+
+    /**
+     * Make an invoker for a method found with reflection.<br>
+     * Each method parameter is read from its slot in the parameter arrays, so running the command is a direct call
+     * without per-call access checks (and without boxing primitive numbers).
+     * The underlying {@link java.lang.invoke.MethodHandle} is held as a constant, so the JIT can inline the method into the invoker.
+     * @param instance The instance to invoke the method on
+     * @param method The method
+     * @return The invoker
+     */
+    static DecreeInvoker of(Object instance, Method method) {
+        return Invokers.of(instance, method);
+    }
+
+    /**
+     * Check whether a parameter type is passed in the primitives of {@link #invoke(Object[], long[])}
+     * @param type The type of the parameter
+     * @return True if the type is a primitive number type
+     */
+    static boolean isPrimitive(Class<?> type) {
+        return type.isPrimitive() && type != boolean.class && type != char.class;
+    }
+
+    /**
+     * Check whether a primitive parameter type is passed as {@link Double#doubleToRawLongBits(double)}
+     * @param type The type of the parameter
+     * @return True if the type is float or double
+     */
+    static boolean isDecimal(Class<?> type) {
+        return type == double.class || type == float.class;
+    }
+}
@@ -0,0 +1,102 @@
+package nl.codevs.decree.virtual;
+
+import lombok.Getter;
+import nl.codevs.decree.util.DecreeOrigin;
+import nl.codevs.decree.util.KList;
+import nl.codevs.decree.util.NameTrie;
+
+import java.util.Arrays;
+
+/**
+ * Frozen metadata of a {@link Decreed} node.<br>
+ * Computed once when the command tree is built, so reading it never walks the annotation or the parent chain.<br>
+ * The parent's metadata must be available when this is computed.
+ */
+@Getter
+public final class DecreeMeta {
+
+    /**
+     * The primary name of the node
+     */
+    private final String name;
+
+    /**
+     * The primary and alias names of the node (interned). Do not modify.
+     */
+    private final KList<String> names;
+
+    /**
+     * The {@link #names} folded for case-insensitive matching, in the same order
+     */
+    private final String[] foldedNames;
+
+    /**
+     * The shortest name of the node (includes aliases)
+     */
+    private final String shortestName;
+
+    /**
+     * The command path to the node
+     */
+    private final String path;
+
+    /**
+     * The full required permission for the node (includes parents).<br>
+     * Checked by name, so a permission a plugin registers after the tree is built still applies its defaults and children.
+     */
+    private final String permission;
+
+    /**
+     * Whether the node (or any of its parents) requires sync runtime
+     */
+    private final boolean sync;
+
+    /**
+     * The origin the node must come from
+     */
+    private final DecreeOrigin origin;
+
+    /**
+     * The description of the node
+     */
+    private final String description;
+
+    /**
+     * Compute the metadata of a node
+     * @param node The node to compute the metadata of
+     */
+    public DecreeMeta(Decreed node) {
+        Decree decree = node.decree();
+        Decreed parent = node.parent();
+
+        this.name = node.getName().intern();
+        this.names = new KList<>(name)
+                .qAddAll(Arrays.asList(decree.aliases()))
+                .qremoveIf(String::isEmpty)
+                .qremoveDuplicates()
+                .convert(n -> node.capitalToLine(n).intern());
+        this.foldedNames = names.convert(NameTrie::fold).toArray(new String[0]);
+
+        String shortest = name;
+        for (String n : names) {
+            if (n.length() < shortest.length()) {
+                shortest = n;
+            }
+        }
+        this.shortestName = shortest;
+
+        if (parent == null) {
+            this.path = "/" + shortestName;
+            this.permission = decree.permission();
+            this.sync = decree.sync();
+        } else {
+            DecreeMeta parentMeta = parent.meta();
+            this.path = parentMeta.getPath() + " " + shortestName;
+            this.permission = (parentMeta.getPermission().equals(Decree.NO_PERMISSION) ? "" : parentMeta.getPermission() + ".") + decree.permission();
+            this.sync = decree.sync() || parentMeta.isSync();
+        }
+
+        this.origin = decree.origin();
+        this.description = decree.description();
+    }
+}
@@ -1,12 +1,12 @@
 package nl.codevs.decree.virtual;
 
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.Getter;
 import nl.codevs.decree.DecreeSystem;
-import nl.codevs.decree.context.DecreeContextHandler;
 import nl.codevs.decree.exceptions.DecreeException;
-import nl.codevs.decree.exceptions.DecreeParsingException;
-import nl.codevs.decree.exceptions.DecreeWhichException;
 import nl.codevs.decree.handlers.DecreeParameterHandler;
+import nl.codevs.decree.handlers.ParseResult;
 import nl.codevs.decree.util.*;
 
 import java.lang.reflect.Parameter;
@@ -18,9 +18,11 @@ import java.util.Arrays;
 @Data
 public class DecreeParameter {
     private static final String newline = "<reset>\n";
-    private final Parameter parameter;
+    private final Class<?> type;
+    private final String parameterName;
     private final Param param;
-    private transient final AtomicCache<DecreeParameterHandler<?>> handlerCache = new AtomicCache<>();
+    @Getter(AccessLevel.NONE)
+    private transient volatile ResolvedHandler handlerCache;
     private transient final AtomicCache<KList<String>> exampleCache = new AtomicCache<>();
 
     /**
@@ -31,35 +33,55 @@ public class DecreeParameter {
         if (!parameter.isAnnotationPresent(Param.class)) {
             throw new RuntimeException("Cannot instantiate DecreeParameter on " + parameter.getName() + " in method " + parameter.getDeclaringExecutable().getName() + "(...) in class " + parameter.getDeclaringExecutable().getDeclaringClass().getCanonicalName() + " not annotated by @Param");
         }
-        this.parameter = parameter;
+        this.type = parameter.getType();
+        this.parameterName = parameter.getName();
         this.param = parameter.getDeclaredAnnotation(Param.class);
     }
 
+    /**
+     * Create a parameter from precomputed parts (used by generated {@link DecreeRegistration}s)
+     * @param type The type of the parameter
+     * @param parameterName The name of the parameter in source
+     * @param param The {@link Param} annotation of the parameter
+     */
+    public DecreeParameter(Class<?> type, String parameterName, Param param) {
+        this.type = type;
+        this.parameterName = parameterName;
+        this.param = param;
+    }
+
     /**
      * Get the handler for this parameter
      * @return A {@link DecreeParameterHandler} for this parameter's type
      */
     public DecreeParameterHandler<?> getHandler() {
-        return handlerCache.acquire(() -> {
-            try
-            {
-                return DecreeSystem.Handler.get(getType());
-            }
-            catch(Throwable e)
-            {
-                e.printStackTrace();
-            }
+        ResolvedHandler cached = handlerCache;
+        int version = DecreeSystem.Handler.version();
+        if (cached != null && cached.version() == version) {
+            return cached.handler();
+        }
 
-            return null;
-        });
+        DecreeParameterHandler<?> handler = null;
+        try {
+            handler = DecreeSystem.Handler.get(getType());
+        } catch (DecreeException e) {
+            e.printStackTrace();
+        }
+        handlerCache = new ResolvedHandler(handler, version);
+        return handler;
     }
 
+    /**
+     * A handler, and the version of the {@link DecreeSystem.Handler handlers} it was resolved from
+     */
+    private record ResolvedHandler(DecreeParameterHandler<?> handler, int version) {}
+
     /**
      * Get the type of this parameter
      * @return This parameter's type
      */
     public Class<?> getType() {
-        return parameter.getType();
+        return type;
     }
 
     /**
@@ -79,11 +101,11 @@ public class DecreeParameter {
 
     /**
      * Get the name of this parameter<br>
-     * If the attached {@link Param} has a defined name, uses that. If not, uses the {@link Parameter}'s name.
+     * If the attached {@link Param} has a defined name, uses that. If not, uses the name of the parameter in source.
      * @return This parameter's name
      */
     public String getName() {
-        return param.name().isEmpty() ? parameter.getName() : param.name();
+        return param.name().isEmpty() ? parameterName : param.name();
     }
 
     /**
@@ -98,12 +120,10 @@ public class DecreeParameter {
 
     /**
      * Get the default value for this parameter
-     * @return The default value
-     * @throws DecreeParsingException Thrown when default value cannot be parsed
-     * @throws DecreeWhichException Thrown when there are more than one options resulting from parsing
+     * @return The result of parsing the default value (a null success if there is no default)
      */
-    public Object getDefaultValue() throws DecreeParsingException, DecreeWhichException {
-        return hasDefault() ? getHandler().parse(getDefaultRaw(), true) : null;
+    public ParseResult<?> getDefaultValue() {
+        return hasDefault() ? getHandler().tryParse(getDefaultRaw(), true) : ParseResult.success(null);
     }
 
     /**
@@ -185,6 +205,26 @@ public class DecreeParameter {
      * @return Command help for this parameter
      */
     public String getHelp(DecreeSender sender, String runOnClick, boolean simple) {
+        String context = null;
+        if (isContextual() && sender.isPlayer()) {
+            try {
+                context = DecreeSystem.Context.getHandler(getType()).handleToString(sender);
+            } catch (DecreeException e) {
+                sendContextError(sender);
+            }
+        }
+        return getHelp(sender.isPlayer(), runOnClick, simple, context);
+    }
+
+    /**
+     * Get help for a type of sender
+     * @param player Whether the sender is a player
+     * @param runOnClick What to run when the user clicks the text in chat
+     * @param simple Whether to send simple (true) or advanced (false) help
+     * @param context The value derived from context (or a placeholder for it), or null if it cannot be derived. Only used for contextual parameters and players.
+     * @return The help string
+     */
+    String getHelp(boolean player, String runOnClick, boolean simple, String context) {
         String hoverTitle = "<gradient:#d665f0:#a37feb>" + getNames().toString(", ");
         String hoverDescription = "<#3fe05a>✎ <#6ad97d><font:minecraft:uniform>" + getDescription();
         String hoverUsage;
@@ -198,16 +238,11 @@ public class DecreeParameter {
 
         // Hover usage & real text
         String realTitle = "<gradient:#d665f0:#a37feb>" + getName();
-        if (isContextual() && sender.isPlayer()) {
-            DecreeContextHandler<?> handler;
-            try {
-                handler = DecreeSystem.Context.getHandler(getType());
-                String valueRightNow = handler.handleToString(sender);
-                hoverUsage = "<#ff9900>➱ <#33cc00><font:minecraft:uniform>Automatically detected: " + C.GOLD + valueRightNow;
+        if (isContextual() && player) {
+            if (context != null) {
+                hoverUsage = "<#ff9900>➱ <#33cc00><font:minecraft:uniform>Automatically detected: " + C.GOLD + context;
                 realText = "<#ffcc00>[" + realTitle + "<#ffcc00>] ";
-            } catch (DecreeException e) {
-                sender.sendMessage(C.RED + "Parameter " + C.GOLD + getName() + C.RED + " assigned contextual value but there exists no handler for it");
-                sender.sendMessage(C.RED + "Please contact your admin, this is a command configuration error!");
+            } else {
                 hoverUsage = "<#ff9900>➱ <#33cc00><font:minecraft:uniform>Cannot be derived from context! Error! Contact admin!";
                 realText = "<red>[" + realTitle + "<red>] ";
             }
@@ -245,4 +280,13 @@ public class DecreeParameter {
                 fullRunOnClick2 +
                 "</hover>";
     }
+
+    /**
+     * Tell a sender that this parameter is contextual, but that there is no handler to derive it
+     * @param sender The sender
+     */
+    void sendContextError(DecreeSender sender) {
+        sender.sendMessage(C.RED + "Parameter " + C.GOLD + getName() + C.RED + " assigned contextual value but there exists no handler for it");
+        sender.sendMessage(C.RED + "Please contact your admin, this is a command configuration error!");
+    }
 }
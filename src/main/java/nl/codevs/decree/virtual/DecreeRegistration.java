@@ -0,0 +1,256 @@
+package nl.codevs.decree.virtual;
+
+import nl.codevs.decree.decrees.DecreeCommandExecutor;
+import nl.codevs.decree.util.DecreeOrigin;
+import nl.codevs.decree.util.KList;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.InvocationTargetException;
+import java.util.Arrays;
+
+/**
+ * Precomputed registration of a {@link Decree} annotated {@link DecreeCommandExecutor}.<br>
+ * Generated at compile time by the Decree annotation processor (the {@code processor} module) as {@code <ClassName>_DecreeRegistration}
+ * in the package of the category. In the class name, {@code _} is written as {@code __} and the {@code $} of nested classes as {@code _0}.<br>
+ * When present, the command tree of the category is built from this registration instead of scanning it with reflection.
+ * @param <T> The type of the category
+ */
+public interface DecreeRegistration<T extends DecreeCommandExecutor> {
+
+    /**
+     * The suffix of generated registration classes
+     */
+    String SUFFIX = "_DecreeRegistration";
+
+    /**
+     * @return The {@link Decree} annotation of the category
+     */
+    Decree decree();
+
+    /**
+     * Create the commands of a category
+     * @param category The category to create the commands for
+     * @param instance The instance of the category
+     * @return The commands of the category
+     */
+    KList<DecreeCommand> commands(DecreeCategory category, T instance);
+
+    /**
+     * Get the subcategories of a category, instantiating (and storing) those that are not yet set
+     * @param instance The instance of the category
+     * @return The instances of the subcategories
+     */
+    KList<DecreeCommandExecutor> subCategories(T instance);
+
+    /**
+     * Find the generated registration of a category
+     * @param type The class of the category
+     * @return The registration, or null if none was generated
+     */
+    @SuppressWarnings("unchecked")
+    static DecreeRegistration<DecreeCommandExecutor> find(Class<?> type) {
+        return (DecreeRegistration<DecreeCommandExecutor>) Registrations.CACHE.get(type);
+    }
+
+    /**
+     * Get the {@link Decree} of a category, from its generated registration or else from its annotation
+     * @param type The class of the category
+     * @return The {@link Decree}, or null if the category has none
+     */
+    static Decree decreeOf(Class<?> type) {
+        DecreeRegistration<?> registration = find(type);
+        return registration == null ? type.getDeclaredAnnotation(Decree.class) : registration.decree();
+    }
+
+    /**
+     * Create a {@link Decree} with the specified values (used by generated registrations).<br>
+     * Equal to (and with the same hash code as) a reflected {@link Decree} with the same values.
+     */
+    static Decree decree(String name, String[] aliases, String description, DecreeOrigin origin, String permission, boolean sync) {
+        return new Decree() {
+            @Override
+            public Class<? extends Annotation> annotationType() {
+                return Decree.class;
+            }
+
+            @Override
+            public String name() {
+                return name;
+            }
+
+            @Override
+            public String[] aliases() {
+                return aliases.clone();
+            }
+
+            @Override
+            public String description() {
+                return description;
+            }
+
+            @Override
+            public DecreeOrigin origin() {
+                return origin;
+            }
+
+            @Override
+            public String permission() {
+                return permission;
+            }
+
+            @Override
+            public boolean sync() {
+                return sync;
+            }
+
+            @Override
+            public boolean equals(Object o) {
+                return o instanceof Decree d
+                        && name.equals(d.name())
+                        && Arrays.equals(aliases, d.aliases())
+                        && description.equals(d.description())
+                        && origin == d.origin()
+                        && permission.equals(d.permission())
+                        && sync == d.sync();
+            }
+
+            @Override
+            public int hashCode() {
+                return Registrations.member("name", name)
+                        + Registrations.member("aliases", aliases)
+                        + Registrations.member("description", description)
+                        + Registrations.member("origin", origin)
+                        + Registrations.member("permission", permission)
+                        + Registrations.member("sync", sync);
+            }
+
+            @Override
+            public String toString() {
+                return "@" + Decree.class.getName() + "(name=\"" + name + "\", aliases=" + Arrays.toString(aliases)
+                        + ", description=\"" + description + "\", origin=" + origin + ", permission=\"" + permission + "\", sync=" + sync + ")";
+            }
+        };
+    }
+
+    /**
+     * Create a {@link Param} with the specified values (used by generated registrations).<br>
+     * Equal to (and with the same hash code as) a reflected {@link Param} with the same values.
+     */
+    static Param param(String name, String description, String defaultValue, String[] aliases, boolean contextual) {
+        return new Param() {
+            @Override
+            public Class<? extends Annotation> annotationType() {
+                return Param.class;
+            }
+
+            @Override
+            public String name() {
+                return name;
+            }
+
+            @Override
+            public String description() {
+                return description;
+            }
+
+            @Override
+            public String defaultValue() {
+                return defaultValue;
+            }
+
+            @Override
+            public String[] aliases() {
+                return aliases.clone();
+            }
+
+            @Override
+            public boolean contextual() {
+                return contextual;
+            }
+
+            @Override
+            public boolean equals(Object o) {
+                return o instanceof Param p
+                        && name.equals(p.name())
+                        && description.equals(p.description())
+                        && defaultValue.equals(p.defaultValue())
+                        && Arrays.equals(aliases, p.aliases())
+                        && contextual == p.contextual();
+            }
+
+            @Override
+            public int hashCode() {
+                return Registrations.member("name", name)
+                        + Registrations.member("description", description)
+                        + Registrations.member("defaultValue", defaultValue)
+                        + Registrations.member("aliases", aliases)
+                        + Registrations.member("contextual", contextual);
+            }
+
+            @Override
+            public String toString() {
+                return "@" + Param.class.getName() + "(name=\"" + name + "\", description=\"" + description + "\", defaultValue=\"" + defaultValue
+                        + "\", aliases=" + Arrays.toString(aliases) + ", contextual=" + contextual + ")";
+            }
+        };
+    }
+
+    /**
+     * Lookup cache of generated registrations, per category class
+     */
+    final class Registrations {
+        private static final ClassValue<DecreeRegistration<?>> CACHE = new ClassValue<>() {
+            @Override
+            protected DecreeRegistration<?> computeValue(Class<?> type) {
+                String name = name(type);
+                try {
+                    Class<?> generated = Class.forName(name, true, type.getClassLoader());
+                    if (!DecreeRegistration.class.isAssignableFrom(generated)) {
+                        return null;
+                    }
+                    return (DecreeRegistration<?>) generated.getDeclaredConstructor().newInstance();
+                } catch (ClassNotFoundException e) {
+                    return null;
+                } catch (NoSuchMethodException | InstantiationException | IllegalAccessException | InvocationTargetException e) {
+                    e.printStackTrace();
+                    return null;
+                }
+            }
+        };
+
+        private Registrations() {
+        }
+
+        /**
+         * Get the binary name of the registration of a category (must match the processor)
+         * @param type The class of the category
+         * @return The binary name of the registration
+         */
+        private static String name(Class<?> type) {
+            String binaryName = type.getName();
+            int start = type.getPackageName().isEmpty() ? 0 : type.getPackageName().length() + 1;
+            StringBuilder name = new StringBuilder(binaryName.length() + SUFFIX.length() + 4).append(binaryName, 0, start);
+            for (int i = start; i < binaryName.length(); i++) {
+                char c = binaryName.charAt(i);
+                if (c == '_') {
+                    name.append("__");
+                } else if (c == '$') {
+                    name.append("_0");
+                } else {
+                    name.append(c);
+                }
+            }
+            return name.append(SUFFIX).toString();
+        }
+
+        /**
+         * Get the hash code of an annotation member, as specified by {@link Annotation#hashCode()}
+         * @param member The name of the member
+         * @param value The value of the member
+         * @return The hash code of the member
+         */
+        private static int member(String member, Object value) {
+            return (127 * member.hashCode()) ^ (value instanceof Object[] array ? Arrays.hashCode(array) : value.hashCode());
+        }
+    }
+}
@@ -1,12 +1,12 @@
 package nl.codevs.decree.virtual;
 
 import nl.codevs.decree.DecreeSystem;
+import nl.codevs.decree.util.DecreeArguments;
 import nl.codevs.decree.util.DecreeOrigin;
 import nl.codevs.decree.util.DecreeSender;
 import nl.codevs.decree.util.C;
 import nl.codevs.decree.util.KList;
-
-import java.util.Arrays;
+import nl.codevs.decree.util.NameTrie;
 
 public interface Decreed {
 
@@ -20,6 +20,11 @@ public interface Decreed {
      */
     String getName();
 
+    /**
+     * Get the frozen metadata of the node
+     */
+    DecreeMeta meta();
+
     /**
      * The parent node of this node. Null if origin.
      */
@@ -40,7 +45,7 @@ public interface Decreed {
      * @param args The arguments to parse
      * @param sender The sender to parse for
      */
-    boolean run(KList<String> args, DecreeSender sender);
+    boolean run(DecreeArguments args, DecreeSender sender);
 
     /**
      * Tab completions
@@ -54,28 +59,28 @@ public interface Decreed {
      * Get the origin of the node
      */
     default DecreeOrigin getOrigin() {
-        return decree().origin();
+        return meta().getOrigin();
     }
 
     /**
      * Get the required permission for this node
      */
     default String getPermission() {
-        return (parent() == null || parent().getPermission().equals(Decree.NO_PERMISSION) ? "" : parent().getPermission() + ".") + decree().permission();
+        return meta().getPermission();
     }
 
     /**
      * Get the description of the node
      */
     default String getDescription() {
-        return decree().description();
+        return meta().getDescription();
     }
 
     /**
      * Get whether this node requires sync runtime or not
      */
     default boolean isSync() {
-        return decree().sync() || (parent() != null && parent().isSync());
+        return meta().isSync();
     }
 
     /**
@@ -84,40 +89,32 @@ public interface Decreed {
      * @param color The color to prefix with
      */
     default void debug(String message, C color) {
+        if (!DecreeSystem.settings.debug) {
+            return;
+        }
         system().debug(C.GOLD + (parent() == null ? "" : parent().getPath() + " ") + color + "→ " + C.GOLD + getShortestName() + color + " | " + message);
     }
 
     /**
      * Get the primary and alias names of the node<br>
+     * Do not modify the returned list.
      */
     default KList<String> getNames() {
-        KList<String> names = new KList<>(getName());
-        names.addAll(Arrays.asList(decree().aliases()));
-        return names.qremoveIf(String::isEmpty).qremoveDuplicates().convert(this::capitalToLine);
+        return meta().getNames();
     }
 
     /**
      * Get the shortest name for this node (includes aliases)
      */
     default String getShortestName() {
-        String shortest = getName();
-        for (String name : getNames()) {
-            if (name.length() < shortest.length()) {
-                shortest = name;
-            }
-        }
-        return shortest;
+        return meta().getShortestName();
     }
 
     /**
      * Get the command path to this node
      */
     default String getPath() {
-
-        if (parent() == null) {
-            return "/" + getShortestName();
-        }
-        return parent().getPath() + " " + getShortestName();
+        return meta().getPath();
     }
 
     /**
@@ -126,6 +123,9 @@ public interface Decreed {
      * @param sender the sender who sent the command
      */
     default void debugMismatch(String reason, DecreeSender sender) {
+        if (DecreeSystem.Trace.enabled) {
+            DecreeSystem.Trace.record(DecreeSystem.Trace.Event.MISMATCH, this, reason, 0);
+        }
         if (DecreeSystem.settings.debugMatching) {
             parent().debug("Hiding decreed " + C.GOLD + getShortestName() + C.GREEN + " for sender " + C.GOLD + sender.getName() + C.GREEN + " because of " + C.GOLD + reason, C.GREEN);
         }
@@ -134,10 +134,43 @@ public interface Decreed {
     /**
      * Match against only a sender. Basically an is-allowed check.
      * @param sender The sender to check against
-     * @return True if permitted & origin matches
+     * @return 3 if permitted & origin matches, 0 if not
      */
     default int doesMatch(DecreeSender sender) {
-        return doesMatch(null, sender);
+        return isAllowed(sender) ? 3 : 0;
+    }
+
+    /**
+     * Check whether this node is allowed for a sender (origin and permission)
+     * @param sender The sender to check against
+     * @return True if permitted & origin matches
+     */
+    default boolean isAllowed(DecreeSender sender) {
+        if (!getOrigin().validFor(sender)) {
+            debugMismatch("Origin Mismatch - 0", sender);
+            return false;
+        }
+        if (!sender.hasPermission(meta().getPermission())) {
+            debugMismatch("Permission Mismatch - 0", sender);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Debug (and trace) the result of matching input against the names of this node
+     * @param in The input
+     * @param tier The tier it matched with (see {@link #doesMatch(String, DecreeSender)})
+     */
+    default void debugMatch(CharSequence in, int tier) {
+        if (DecreeSystem.Trace.enabled) {
+            DecreeSystem.Trace.record(DecreeSystem.Trace.Event.MATCH, this, in, tier);
+        }
+
+        if (DecreeSystem.settings.debugMatching) {
+            String compare = "Comparison: " + C.GOLD + in + C.GREEN + " with " + C.GOLD + getNames().toString(C.GREEN + ", " + C.GOLD) + C.GREEN + ": ";
+            parent().debug(compare + (tier == 0 ? C.RED + "NO MATCH - 0" : "MATCHED - " + tier), C.GREEN);
+        }
     }
 
     /**
@@ -154,49 +187,13 @@ public interface Decreed {
      *
      */
     default int doesMatch(String in, DecreeSender sender){
-        if (!getOrigin().validFor(sender)) {
-            debugMismatch("Origin Mismatch - 0", sender);
-            return 0;
-        }
-        if (!sender.hasPermission(getPermission())) {
-            debugMismatch("Permission Mismatch - 0", sender);
+        if (!isAllowed(sender)) {
             return 0;
         }
 
-        String compare = "Comparison: " + C.GOLD + in + C.GREEN + " with " + C.GOLD + getNames().toString(C.GREEN + ", " + C.GOLD) + C.GREEN + ": ";
-
-        if (in == null || in.isEmpty()) {
-            if (DecreeSystem.settings.debugMatching) {
-                parent().debug(compare + "MATCHED - 3", C.GREEN);
-            }
-            return 3;
-        }
-
-        for (String i : getNames()) {
-            if (i.equalsIgnoreCase(in)) {
-                if (DecreeSystem.settings.debugMatching) {
-                    parent().debug(compare + "MATCHED - 3", C.GREEN);
-                }
-                return 3;
-            }
-            if (i.toLowerCase().contains(in.toLowerCase())) {
-                if (DecreeSystem.settings.debugMatching) {
-                    parent().debug(compare + "MATCHED - 2", C.GREEN);
-                }
-                return 2;
-            }
-            if (in.toLowerCase().contains(i.toLowerCase())) {
-                if (DecreeSystem.settings.debugMatching) {
-                    parent().debug(compare + "MATCHED - 1", C.GREEN);
-                }
-                return 1;
-            }
-        }
-
-        if (DecreeSystem.settings.debugMatching) {
-            parent().debug(compare + C.RED + "NO MATCH - 0", C.GREEN);
-        }
-        return 0;
+        int tier = in == null || in.isEmpty() ? 3 : NameTrie.tier(meta().getFoldedNames(), in);
+        debugMatch(in, tier);
+        return tier;
     }
 
     /**
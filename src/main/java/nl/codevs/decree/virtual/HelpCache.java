@@ -0,0 +1,139 @@
+package nl.codevs.decree.virtual;
+
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.TextReplacementConfig;
+import nl.codevs.decree.DecreeSystem;
+import nl.codevs.decree.util.DecreeSender;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Rendered help of a node, per sender state (player or console, permission granted or not).<br>
+ * Each state is rendered once, into a pool of variants when the help has random parts (like example commands).<br>
+ * Values that depend on the sender (like contextual parameters) are rendered as {@link #placeholder(int)}s and filled in when sending.<br>
+ * Rendered help depends on the {@link DecreeSystem.Handler handlers} (ex: for example values), so it is rendered again when they change.
+ */
+final class HelpCache {
+
+    /**
+     * The amount of sender states
+     */
+    private static final int STATES = 4;
+
+    /**
+     * The maximal amount of filled-in variants to keep per state
+     */
+    private static final int MAX_FILLED = 256;
+
+    /**
+     * Renders the help for a state to a MiniMessage string
+     */
+    @FunctionalInterface
+    interface Renderer {
+        String render(boolean player, boolean granted);
+    }
+
+    private final Renderer renderer;
+    private final int poolSize;
+    private final AtomicReferenceArray<Pool> pools = new AtomicReferenceArray<>(STATES);
+    private final ConcurrentHashMap<String, Component> filled = new ConcurrentHashMap<>();
+
+    /**
+     * The version of the handlers the filled-in variants were rendered with
+     */
+    private volatile int filledVersion = DecreeSystem.Handler.version();
+
+    /**
+     * Create a help cache
+     * @param renderer The renderer of the help
+     * @param poolSize The amount of variants to render per state (1 if the help has no random parts)
+     */
+    HelpCache(Renderer renderer, int poolSize) {
+        this.renderer = renderer;
+        this.poolSize = poolSize;
+    }
+
+    /**
+     * Get the help for a sender
+     * @param sender The sender
+     * @param permission The permission the help shows as granted or not
+     * @return The rendered help
+     */
+    Component get(DecreeSender sender, String permission) {
+        return pool(sender, permission)[poolSize == 1 ? 0 : ThreadLocalRandom.current().nextInt(poolSize)];
+    }
+
+    /**
+     * Get the help for a sender, with the {@link #placeholder(int)}s filled in
+     * @param sender The sender
+     * @param permission The permission the help shows as granted or not
+     * @param values The values of the placeholders, by index
+     * @return The rendered help
+     */
+    Component get(DecreeSender sender, String permission, String[] values) {
+        if (values.length == 0) {
+            return get(sender, permission);
+        }
+
+        int version = DecreeSystem.Handler.version();
+        if (filledVersion != version) {
+            filled.clear();
+            filledVersion = version;
+        }
+
+        int state = state(sender, permission);
+        int variant = poolSize == 1 ? 0 : ThreadLocalRandom.current().nextInt(poolSize);
+        String key = version + ":" + state + ":" + variant + ":" + String.join("\u0000", values);
+        Component help = filled.get(key);
+        if (help == null) {
+            help = pool(sender, permission)[variant];
+            for (int i = 0; i < values.length; i++) {
+                help = help.replaceText(TextReplacementConfig.builder().matchLiteral(placeholder(i)).replacement(values[i]).build());
+            }
+            if (filled.size() >= MAX_FILLED) {
+                filled.clear();
+            }
+            filled.put(key, help);
+        }
+        return help;
+    }
+
+    /**
+     * Get a placeholder to render in place of a value that depends on the sender
+     * @param index The index of the value
+     * @return The placeholder
+     */
+    static String placeholder(int index) {
+        return "\uE000" + index + "\uE001";
+    }
+
+    private Component[] pool(DecreeSender sender, String permission) {
+        int state = state(sender, permission);
+        int version = DecreeSystem.Handler.version();
+        Pool pool = pools.get(state);
+        if (pool == null || pool.version != version) {
+            Component[] variants = new Component[poolSize];
+            for (int i = 0; i < poolSize; i++) {
+                variants[i] = DecreeSender.render(renderer.render((state & 2) != 0, (state & 1) != 0));
+            }
+            Pool rendered = new Pool(version, variants);
+            Pool witness = pools.compareAndExchange(state, pool, rendered);
+            pool = witness == pool || witness == null || witness.version != version ? rendered : witness;
+        }
+        return pool.variants;
+    }
+
+    /**
+     * The rendered variants of a state
+     * @param version The version of the handlers they were rendered with
+     * @param variants The variants
+     */
+    private record Pool(int version, Component[] variants) {}
+
+    private static int state(DecreeSender sender, String permission) {
+        boolean granted = permission.equals(Decree.NO_PERMISSION) || sender.isOp() || sender.hasPermission(permission);
+        return (sender.isPlayer() ? 2 : 0) | (granted ? 1 : 0);
+    }
+}
@@ -0,0 +1,108 @@
+package nl.codevs.decree.virtual;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+
+/**
+ * Makes {@link DecreeInvoker}s for command methods found with reflection (see {@link DecreeInvoker#of(Object, Method)})
+ */
+final class Invokers {
+
+    /**
+     * The type of the handles behind invokers
+     */
+    private static final MethodType INVOKER_TYPE = MethodType.methodType(void.class, Object[].class, long[].class);
+
+    private Invokers() {}
+
+    /**
+     * Make an invoker for a method
+     * @param instance The instance to invoke the method on
+     * @param method The method
+     * @return The invoker
+     */
+    static DecreeInvoker of(Object instance, Method method) {
+        MethodHandle handle;
+        try {
+            method.setAccessible(true);
+            handle = MethodHandles.lookup().unreflect(method).bindTo(instance);
+        } catch (IllegalAccessException e) {
+            throw new RuntimeException("Cannot access method " + method.getName() + " in " + method.getDeclaringClass().getCanonicalName(), e);
+        }
+
+        // Replace each parameter with (Object[], long[]), then merge all of those into a single pair
+        Class<?>[] types = method.getParameterTypes();
+        for (int i = types.length - 1; i >= 0; i--) {
+            handle = MethodHandles.collectArguments(handle, i, slotReader(types[i], i));
+        }
+        int[] reorder = new int[types.length * 2];
+        for (int i = 0; i < reorder.length; i++) {
+            reorder[i] = i % 2;
+        }
+        return spin(MethodHandles.permuteArguments(handle, INVOKER_TYPE, reorder));
+    }
+
+    /**
+     * Make a handle reading a parameter value from the parameter arrays of a {@link DecreeInvoker}
+     * @param type The type of the parameter
+     * @param index The index of the parameter
+     * @return A handle of type (Object[], long[])type
+     */
+    private static MethodHandle slotReader(Class<?> type, int index) {
+        if (!DecreeInvoker.isPrimitive(type)) {
+            MethodHandle reader = MethodHandles.insertArguments(MethodHandles.arrayElementGetter(Object[].class), 1, index)
+                    .asType(MethodType.methodType(type, Object[].class));
+            return MethodHandles.dropArguments(reader, 1, long[].class);
+        }
+
+        MethodHandle reader = MethodHandles.insertArguments(MethodHandles.arrayElementGetter(long[].class), 1, index);
+        if (DecreeInvoker.isDecimal(type)) {
+            try {
+                reader = MethodHandles.filterReturnValue(reader, MethodHandles.lookup().findStatic(Double.class, "longBitsToDouble", MethodType.methodType(double.class, long.class)));
+            } catch (NoSuchMethodException | IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        reader = MethodHandles.explicitCastArguments(reader, MethodType.methodType(type, long[].class));
+        return MethodHandles.dropArguments(reader, 0, Object[].class);
+    }
+
+    /**
+     * Wrap a handle in a hidden copy of {@link ConstantInvoker}, holding the handle as a constant.<br>
+     * A handle captured by a lambda is a field read on every call, which the JIT cannot inline through.
+     * Falls back to such a lambda if the template cannot be read (ex: when repackaged without it).
+     * @param handle The handle, of type (Object[], long[])void
+     * @return The invoker
+     */
+    private static DecreeInvoker spin(MethodHandle handle) {
+        byte[] template = Template.BYTES;
+        if (template != null) {
+            try {
+                MethodHandles.Lookup hidden = MethodHandles.lookup().defineHiddenClassWithClassData(template, handle, true);
+                return (DecreeInvoker) hidden.findConstructor(hidden.lookupClass(), MethodType.methodType(void.class)).invoke();
+            } catch (Throwable ignored) {
+                // Fall through to the lambda
+            }
+        }
+        return handle::invokeExact;
+    }
+
+    /**
+     * Lazily read class file of {@link ConstantInvoker}
+     */
+    private static final class Template {
+        private static final byte[] BYTES = read();
+
+        private static byte[] read() {
+            try (InputStream in = ConstantInvoker.class.getResourceAsStream(ConstantInvoker.class.getSimpleName() + ".class")) {
+                return in == null ? null : in.readAllBytes();
+            } catch (IOException e) {
+                return null;
+            }
+        }
+    }
+}
@@ -0,0 +1,284 @@
+package nl.codevs.decree.virtual;
+
+import nl.codevs.decree.DecreeSystem;
+import nl.codevs.decree.util.DecreeSender;
+import nl.codevs.decree.util.KList;
+import nl.codevs.decree.util.NameTrie;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Caches for tab completion.<br>
+ * - A shared cache of the static part of the tree: for a path of arguments (per root), the names that may follow it and the commands it leads to.
+ * The names depend on what a sender may see, so entries are kept per permission profile (origin, and which of the permissions in the tree are granted).<br>
+ * - A short-lived cache of the last completion of each sender. When the next completion only extends the argument being entered,
+ * the previous completions are narrowed down instead of walking the tree again
+ * (unless some were dropped because of the {@link nl.codevs.decree.decrees.DecreeSettings#tabLimit limit}, or a key was just completed).<br>
+ * Everything is invalidated by {@link #invalidateAll()} (tree changes) and when the {@link DecreeSystem.Handler handlers} change.
+ * The profile of a sender is recalculated at most every {@value #PROFILE_TTL}ms, or right away after {@link #invalidate(Object)}.
+ */
+public final class TabCache {
+
+    /**
+     * How long the last completion of a sender may be narrowed down, in milliseconds.
+     * Bounds how stale dynamic completions (like the values of parameters) can be.
+     */
+    private static final long RECENT_TTL = 2000;
+
+    /**
+     * How long the permission profile of a sender is reused, in milliseconds
+     */
+    private static final long PROFILE_TTL = 1000;
+
+    /**
+     * The maximal amount of entries in the shared cache, after which it is cleared
+     */
+    private static final int MAX_SHARED = 4096;
+
+    /**
+     * The distinct permissions of all nodes in the tree
+     */
+    private final String[] permissions;
+
+    /**
+     * The shared cache, by root, path and profile
+     */
+    private final ConcurrentHashMap<String, Resolved> shared = new ConcurrentHashMap<>();
+
+    /**
+     * The ids of the permission profiles
+     */
+    private final ConcurrentHashMap<Profile, Integer> profileIds = new ConcurrentHashMap<>();
+    private final AtomicInteger nextProfileId = new AtomicInteger();
+
+    /**
+     * The current profile of each sender
+     */
+    private final ConcurrentHashMap<Object, SenderProfile> profiles = new ConcurrentHashMap<>();
+
+    /**
+     * The last completion of each sender
+     */
+    private final ConcurrentHashMap<Object, Recent> recent = new ConcurrentHashMap<>();
+
+    private volatile int generation;
+
+    /**
+     * Create the caches for a tree
+     * @param roots The root categories
+     */
+    public TabCache(Collection<? extends Collection<DecreeCategory>> roots) {
+        Set<String> found = new LinkedHashSet<>();
+        for (Collection<DecreeCategory> named : roots) {
+            for (DecreeCategory root : named) {
+                collect(root, found);
+            }
+        }
+        permissions = found.toArray(new String[0]);
+    }
+
+    private static void collect(Decreed node, Set<String> found) {
+        found.add(node.meta().getPermission());
+        if (node instanceof DecreeCategory category) {
+            for (Decreed child : category.getNodes()) {
+                collect(child, found);
+            }
+        }
+    }
+
+    /**
+     * Tab complete
+     * @param key The key of the sender (for the cache of their last completion)
+     * @param sender The sender
+     * @param command The name of the root command
+     * @param roots The roots with that name
+     * @param arguments The arguments (the last one being the partially entered one)
+     * @return The completions for the last argument
+     */
+    public KList<String> complete(Object key, DecreeSender sender, String command, KList<DecreeCategory> roots, String[] arguments) {
+        int last = arguments.length - 1;
+        String current = NameTrie.fold(arguments[last]);
+        long stamp = ((long) generation << 32) | (DecreeSystem.Handler.version() & 0xFFFFFFFFL);
+        int profile = profile(key, sender);
+        StringBuilder path = new StringBuilder(command);
+        for (int i = 0; i < last; i++) {
+            path.append('\u0000').append(NameTrie.fold(arguments[i]));
+        }
+        String pathKey = path.toString();
+
+        int limit = DecreeSystem.settings.tabLimit;
+        Recent previous = recent.get(key);
+        if (previous != null
+                && previous.stamp == stamp
+                && previous.profile == profile
+                && previous.path.equals(pathKey)
+                && current.startsWith(previous.current)
+                // Values are only completed once the key is entered
+                && (current.indexOf('=') < 0 || previous.current.indexOf('=') >= 0)
+                // Completions dropped because of the limit may match now
+                && previous.completions.size() < limit
+                && System.currentTimeMillis() - previous.time < RECENT_TTL) {
+            KList<String> completions = filter(previous.completions, current);
+            recent.put(key, new Recent(pathKey, current, completions, stamp, profile, previous.time));
+            return completions;
+        }
+
+        String sharedKey = pathKey + '\u0000' + profile + '\u0000' + stamp;
+        Resolved resolved = shared.get(sharedKey);
+        if (resolved == null) {
+            resolved = resolve(roots, arguments, last, sender);
+            if (Thread.currentThread().isInterrupted()) {
+                // Cancelled halfway, do not cache
+                return filter(resolved.names, current);
+            }
+            if (shared.size() >= MAX_SHARED) {
+                shared.clear();
+            }
+            shared.put(sharedKey, resolved);
+        }
+
+        KList<String> completions = filter(resolved.names, current);
+        for (int i = 0; i < resolved.commands.size(); i++) {
+            KList<String> args = new KList<>();
+            for (int a = resolved.consumed[i]; a <= last; a++) {
+                args.add(arguments[a]);
+            }
+            completions.addAll(resolved.commands.get(i).tab(args, sender));
+        }
+        completions.removeDuplicates();
+        if (completions.size() > limit) {
+            completions = completions.subList(0, limit);
+        }
+        recent.put(key, new Recent(pathKey, current, completions, stamp, profile, System.currentTimeMillis()));
+        return completions;
+    }
+
+    /**
+     * Recalculate the permission profile of a sender on their next completion (ex: after their permissions were recalculated, or when they leave)
+     * @param key The key of the sender
+     */
+    public void invalidate(Object key) {
+        profiles.remove(key);
+        recent.remove(key);
+    }
+
+    /**
+     * Invalidate all cached completions (ex: after the tree or the possibilities of handlers changed)
+     */
+    public void invalidateAll() {
+        generation++;
+        shared.clear();
+        recent.clear();
+        profiles.clear();
+    }
+
+    /**
+     * Walk the path of arguments through the tree
+     * @param roots The roots
+     * @param arguments The arguments
+     * @param last The index of the argument being entered (the path is everything before it)
+     * @param sender The sender
+     * @return The names that may follow the path, and the commands it leads to
+     */
+    private static Resolved resolve(KList<DecreeCategory> roots, String[] arguments, int last, DecreeSender sender) {
+        KList<Decreed> level = new KList<>();
+        level.addAll(roots);
+        KList<DecreeCommand> commands = new KList<>();
+        KList<Integer> consumed = new KList<>();
+
+        for (int i = 0; i < last && level.isNotEmpty() && !Thread.currentThread().isInterrupted(); i++) {
+            KList<Decreed> next = new KList<>();
+            for (Decreed node : level) {
+                if (node instanceof DecreeCategory category) {
+                    for (Decreed match : category.matchTab(arguments[i], sender)) {
+                        if (match instanceof DecreeCommand command) {
+                            // Commands take the rest of the arguments
+                            commands.add(command);
+                            consumed.add(i + 1);
+                        } else {
+                            next.add(match);
+                        }
+                    }
+                }
+            }
+            level = next;
+        }
+
+        KList<String> names = new KList<>();
+        for (Decreed node : level) {
+            if (node instanceof DecreeCategory category) {
+                names.addAll(category.completeNames("", sender));
+            }
+        }
+        int[] offsets = new int[consumed.size()];
+        for (int i = 0; i < offsets.length; i++) {
+            offsets[i] = consumed.get(i);
+        }
+        return new Resolved(names.qremoveDuplicates(), commands, offsets);
+    }
+
+    /**
+     * Get the id of the permission profile of a sender
+     * @param key The key of the sender
+     * @param sender The sender
+     * @return The profile id
+     */
+    private int profile(Object key, DecreeSender sender) {
+        long now = System.currentTimeMillis();
+        SenderProfile current = profiles.get(key);
+        if (current != null && now - current.time < PROFILE_TTL) {
+            return current.id;
+        }
+
+        BitSet granted = new BitSet(permissions.length);
+        for (int i = 0; i < permissions.length; i++) {
+            if (sender.hasPermission(permissions[i])) {
+                granted.set(i);
+            }
+        }
+        int id = profileIds.computeIfAbsent(new Profile(sender.isPlayer(), granted), p -> nextProfileId.getAndIncrement());
+        profiles.put(key, new SenderProfile(id, now));
+        return id;
+    }
+
+    /**
+     * Keep the completions starting with a (folded) prefix
+     */
+    private static KList<String> filter(KList<String> completions, String prefix) {
+        KList<String> filtered = new KList<>();
+        for (String completion : completions) {
+            if (completion.length() >= prefix.length() && NameTrie.fold(completion.substring(0, prefix.length())).equals(prefix)) {
+                filtered.add(completion);
+            }
+        }
+        return filtered;
+    }
+
+    /**
+     * What a sender may see: their origin, and which permissions of the tree are granted
+     */
+    private record Profile(boolean player, BitSet granted) {}
+
+    /**
+     * The profile of a sender, and when it was calculated
+     */
+    private record SenderProfile(int id, long time) {}
+
+    /**
+     * The static part of the completions for a path
+     * @param names The names of the nodes that may follow the path
+     * @param commands The commands the path leads to
+     * @param consumed Per command, the index of the first argument after it
+     */
+    private record Resolved(KList<String> names, KList<DecreeCommand> commands, int[] consumed) {}
+
+    /**
+     * The last completion of a sender
+     */
+    private record Recent(String path, String current, KList<String> completions, long stamp, int profile, long time) {}
+}